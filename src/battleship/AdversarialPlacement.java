@@ -0,0 +1,465 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Searches for fleets that take the density hunter the most shots to
+ *      sink, and keeps the best in a pool file the computer can place its
+ *      own ships from (see Game's --adversarial option).
+ * Scoring:
+ *          The Computer is deterministic, so one layout against one Computer
+ *      is one number. A layout is instead scored over TRIALS games: three
+ *      density hunters (the default, the stack-of-hits one and the
+ *      whole-board one, as in Strategies) against each of the board's 8
+ *      rotations and reflections, which shuffles the hunters' tie-breaking.
+ *      Its score is the mean shots-to-win over the trials played so far.
+ * Search:
+ *          Successive halving. Every candidate plays TRIALS_PER_ROUND
+ *      trials, the worse half is dropped, the rest play the next trials,
+ *      and so on until the survivors are down to the pool size; those play
+ *      the remaining trials for their final scores. Most games are spent on
+ *      the promising layouts, and 1024 candidates cost about 6 games each.
+ *
+ *          Each round's games are split into chunks played on a thread
+ *      pool. Every thread reuses its own boards and Computers, reset in
+ *      place, so games allocate almost nothing.
+ *
+ *          The pool file is a LayoutCorpus, best layout first. If it
+ *      already exists, its layouts join the candidates, so each run can
+ *      only keep or improve the pool.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.AdversarialPlacement [options]
+ *      Options:
+ *          --candidates=<n>  new random layouts to try (default 1024)
+ *          --pool=<n>        layouts to keep (default 32)
+ *          --out=<file>      pool file (default adversarial-pool.bin)
+ *          --seed=<n>        candidate seed (default 2014)
+ *          --threads=<n>     worker threads (default: all processors)
+ *      The shipped src/adversarial-pool.bin was made with --candidates=4096.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Self-play search for hard-to-find fleets.
+ */
+public class AdversarialPlacement
+{
+	/**
+	 * Board symmetries, density hunters, and the trials they make.
+	 */
+	static final int SYMMETRIES = 8;
+	static final int HUNTERS = 3;
+	static final int TRIALS = SYMMETRIES * HUNTERS;
+
+	/**
+	 * Trials each surviving candidate plays per round.
+	 */
+	static final int TRIALS_PER_ROUND = 3;
+
+	/**
+	 * Pool that plays games.
+	 */
+	private final ExecutorService pool;
+
+	/**
+	 * Chunks each round is split into.
+	 */
+	private final int chunks;
+
+	/**
+	 * Each worker thread's reusable hunters.
+	 */
+	private final ThreadLocal<Hunters> hunters =
+			ThreadLocal.withInitial(Hunters::new);
+
+	/**
+	 * Games played so far.
+	 */
+	private long games = 0;
+
+	/**
+	 * Creates search.
+	 *
+	 * @param threads worker threads
+	 */
+	AdversarialPlacement(int threads)
+	{
+		pool = Executors.newFixedThreadPool(threads);
+		// A few chunks per thread so a slow chunk doesn't idle the others.
+		chunks = 4 * threads;
+	}
+
+	/**
+	 * Parses options, searches and writes the pool.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the pool file can't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int candidates = 1024;
+		int poolSize = 32;
+		String out = "adversarial-pool.bin";
+		long seed = 2014;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--candidates="))
+			{
+				candidates = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--pool="))
+			{
+				poolSize = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--out="))
+			{
+				out = value;
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--threads="))
+			{
+				threads = Integer.parseInt(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (candidates < 0 || poolSize <= 0 || threads <= 0)
+		{
+			System.out.println("Need --candidates >= 0, --pool > 0 and " +
+					"--threads > 0. Exiting.");
+			System.exit(1);
+		}
+
+		// Old pool first, then new candidates that aren't already in it.
+		Set<Long> seen = new LinkedHashSet<>();
+		if (Files.exists(Paths.get(out)))
+		{
+			for (long layout : readPool(out))
+			{
+				seen.add(layout);
+			}
+			System.out.println("Resuming with " + seen.size() +
+					" layouts from " + out + ".");
+		}
+		Random rand = new Random(seed);
+		for (int i = 0; i < candidates; ++i)
+		{
+			seen.add(FleetLayout.randomUniform(rand));
+		}
+		long[] layouts = new long[seen.size()];
+		int index = 0;
+		for (long layout : seen)
+		{
+			layouts[index++] = layout;
+		}
+		if (layouts.length == 0)
+		{
+			System.out.println("No candidates. Exiting.");
+			System.exit(1);
+		}
+
+		AdversarialPlacement search = new AdversarialPlacement(threads);
+		long start = System.nanoTime();
+		double[] scores = new double[layouts.length];
+		int[] best = search.search(layouts, poolSize, scores);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		search.pool.shutdown();
+
+		writePool(out, layouts, best, seed);
+		System.out.printf("Scored %d candidates with %d games in %.1fs " +
+				"(%.0f games/s).%n", layouts.length, search.games, seconds,
+				search.games / seconds);
+		System.out.printf("Pool of %d written to %s; mean shots-to-win " +
+				"%.2f (best %.2f, worst %.2f) over %d trials each.%n",
+				best.length, out, meanOf(scores, best), scores[best[0]],
+				scores[best[best.length - 1]], TRIALS);
+	}
+
+	/**
+	 * Successive halving over candidate layouts.
+	 *
+	 * @param layouts  candidate layouts
+	 * @param poolSize number of layouts to keep
+	 * @param scores   filled with each candidate's mean shots-to-win over
+	 *                 the trials it played
+	 * @return         indices of the kept layouts, best first
+	 */
+	int[] search(long[] layouts, int poolSize, double[] scores)
+	{
+		double[] totals = new double[layouts.length];
+		Integer[] alive = new Integer[layouts.length];
+		for (int i = 0; i < alive.length; ++i)
+		{
+			alive[i] = i;
+		}
+		int count = alive.length;
+		int trials = 0;
+		double allMean = 0;
+
+		while (trials < TRIALS)
+		{
+			int next = Math.min(TRIALS, trials + TRIALS_PER_ROUND);
+			playRound(layouts, alive, count, trials, next, totals);
+			trials = next;
+			if (trials == TRIALS_PER_ROUND)
+			{
+				for (int i = 0; i < count; ++i)
+				{
+					allMean += totals[alive[i]] / trials / count;
+				}
+			}
+
+			// Survivors all played the same trials, so totals compare.
+			Arrays.sort(alive, 0, count, (a, b) -> (totals[a] != totals[b])
+					? Double.compare(totals[b], totals[a])
+					: Integer.compare(a, b));
+			for (int i = 0; i < count; ++i)
+			{
+				scores[alive[i]] = totals[alive[i]] / trials;
+			}
+			System.out.printf("Trials %2d: %5d layouts, best %.2f%n",
+					trials, count, scores[alive[0]]);
+			if (trials < TRIALS)
+			{
+				count = Math.max(Math.min(poolSize, count), count / 2);
+			}
+		}
+		System.out.printf("Candidates averaged %.2f shots over the first %d " +
+				"trials.%n", allMean, TRIALS_PER_ROUND);
+
+		int[] best = new int[Math.min(poolSize, count)];
+		for (int i = 0; i < best.length; ++i)
+		{
+			best[i] = alive[i];
+		}
+		return best;
+	}
+
+	/**
+	 * Plays trials [from, to) of every surviving candidate, in parallel
+	 * chunks.
+	 *
+	 * @param layouts candidate layouts
+	 * @param alive   surviving candidates' indices
+	 * @param count   number of survivors
+	 * @param from    first trial, inclusive
+	 * @param to      last trial, exclusive
+	 * @param totals  shots-to-win so far per candidate; added to
+	 */
+	private void playRound(long[] layouts, Integer[] alive, int count,
+						   int from, int to, double[] totals)
+	{
+		List<Future<?>> results = new ArrayList<>();
+		int roundChunks = Math.min(count, chunks);
+		for (int chunk = 0; chunk < roundChunks; ++chunk)
+		{
+			int first = (int)((long)count * chunk / roundChunks);
+			int last = (int)((long)count * (chunk + 1) / roundChunks);
+			// Chunks write disjoint candidates' totals.
+			results.add(pool.submit(() ->
+			{
+				Hunters mine = hunters.get();
+				for (int i = first; i < last; ++i)
+				{
+					for (int trial = from; trial < to; ++trial)
+					{
+						totals[alive[i]] += mine.play(layouts[alive[i]],
+								trial);
+					}
+				}
+			}));
+		}
+		try
+		{
+			for (Future<?> result : results)
+			{
+				result.get();
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			throw new IllegalStateException("Self-play failed.", e);
+		}
+		games += (long)count * (to - from);
+	}
+
+	/**
+	 * Maps a layout through one of the board's 8 symmetries.
+	 *
+	 * @param layout   packed layout
+	 * @param symmetry 0 - 7: bit 2 transposes, bit 0 flips rows, bit 1 flips
+	 *                 columns; 0 is the identity
+	 * @return         the transformed layout
+	 */
+	static long transform(long layout, int symmetry)
+	{
+		if (symmetry == 0)
+		{
+			return layout;
+		}
+		long result = 0;
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			int origin = FleetLayout.getOrigin(layout, ship);
+			int step = (FleetLayout.getDirection(layout, ship)
+					== FleetLayout.SOUTH) ? 10 : 1;
+			int a = transformCell(origin, symmetry);
+			int b = transformCell(origin + (FleetLayout.SIZES[ship] - 1) * step,
+					symmetry);
+			int first = Math.min(a, b);
+			result = FleetLayout.withShip(result, ship, first / 10,
+					first % 10, (a / 10 == b / 10) ? FleetLayout.EAST
+					: FleetLayout.SOUTH);
+		}
+		return result;
+	}
+
+	/**
+	 * Maps a cell through one of the board's 8 symmetries.
+	 *
+	 * @param cell     row * 10 + col
+	 * @param symmetry as transform
+	 * @return         the transformed cell
+	 */
+	private static int transformCell(int cell, int symmetry)
+	{
+		int row = cell / 10;
+		int col = cell % 10;
+		if ((symmetry & 4) != 0)
+		{
+			int swap = row;
+			row = col;
+			col = swap;
+		}
+		if ((symmetry & 1) != 0)
+		{
+			row = 9 - row;
+		}
+		if ((symmetry & 2) != 0)
+		{
+			col = 9 - col;
+		}
+		return row * 10 + col;
+	}
+
+	/**
+	 * Reads a pool file.
+	 *
+	 * @param fname        the name of the pool file
+	 * @return             its layouts, best first
+	 * @throws IOException if it can't be read or isn't a layout corpus
+	 */
+	static long[] readPool(String fname) throws IOException
+	{
+		LayoutCorpus corpus = new LayoutCorpus(fname);
+		long[] layouts = new long[corpus.size()];
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			layouts[i] = corpus.getLayout(i);
+		}
+		return layouts;
+	}
+
+	/**
+	 * Writes the pool, replacing the old one only once the new one is
+	 * complete.
+	 *
+	 * @param fname        the name of the pool file
+	 * @param layouts      candidate layouts
+	 * @param best         indices of the layouts to write, in order
+	 * @param seed         candidate seed, recorded in the header
+	 * @throws IOException if it can't be written
+	 */
+	static void writePool(String fname, long[] layouts, int[] best, long seed)
+			throws IOException
+	{
+		Path target = Paths.get(fname).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (LayoutCorpus.Writer writer =
+					 new LayoutCorpus.Writer(temp.toString(), seed))
+		{
+			for (int index : best)
+			{
+				writer.append(layouts[index]);
+			}
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Mean of some candidates' scores.
+	 *
+	 * @param scores  every candidate's score
+	 * @param indices candidates to average
+	 * @return        their mean score
+	 */
+	private static double meanOf(double[] scores, int[] indices)
+	{
+		double sum = 0;
+		for (int index : indices)
+		{
+			sum += scores[index];
+		}
+		return sum / indices.length;
+	}
+
+	/**
+	 * One worker thread's density hunters, each with its own board, reused
+	 * for every game.
+	 */
+	private static class Hunters
+	{
+		private final GameBoard[] boards = new GameBoard[HUNTERS];
+		private final Computer[] computers = new Computer[HUNTERS];
+
+		/**
+		 * Creates the hunters, configured as Strategies' "density",
+		 * "density-stack" and "density-full".
+		 */
+		Hunters()
+		{
+			for (int i = 0; i < HUNTERS; ++i)
+			{
+				boards[i] = Simulation.newBoard(FleetLayout.randomUniform(
+						new Random(i)));
+				computers[i] = new Computer(boards[i]);
+			}
+			computers[1].setClusterTargeting(false);
+			computers[2].setClusterTargeting(false);
+			computers[2].setParityHunting(false);
+		}
+
+		/**
+		 * Plays one trial.
+		 *
+		 * @param layout packed layout
+		 * @param trial  0 - TRIALS - 1; picks the hunter and symmetry, so
+		 *               every pair comes up once
+		 * @return       shots-to-win
+		 */
+		int play(long layout, int trial)
+		{
+			int hunter = trial % HUNTERS;
+			return Simulation.playGame(computers[hunter], boards[hunter],
+					transform(layout, trial % SYMMETRIES));
+		}
+	}
+}
@@ -0,0 +1,56 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Java Flight Recorder event for each shot the Computer decides on.
+ * Usage:
+ *          Record a running game with standard JDK tooling, e.g.
+ *          java -XX:StartFlightRecording:filename=game.jfr -cp bin
+ *                  battleship.Game
+ *      or "jcmd <pid> JFR.start" on a running process, then look for
+ *      battleship.AiDecision in JDK Mission Control or "jfr print". With no
+ *      recording running the event is never committed, and the JIT removes
+ *      its allocation.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import jdk.jfr.*;
+
+/**
+ * One Computer decision. The event's duration covers the density
+ * computation and shot selection, not resolving the shot.
+ */
+@Name("battleship.AiDecision")
+@Label("AI Decision")
+@Category("Battleship")
+@Description("A shot chosen by the Computer player")
+@StackTrace(false)
+public class AiDecisionEvent extends Event
+{
+	@Label("Phase")
+	@Description("Hunt or Target")
+	String phase;
+
+	@Label("Cell")
+	@Description("Chosen cell, as shown on the board (e.g. 7C)")
+	String cell;
+
+	@Label("Density")
+	@Description("Chosen cell's BoardSpace counter")
+	int density;
+
+	@Label("Tie-break")
+	@Description("Chosen cell's BoardSpace neighboring sum")
+	int tieBreak;
+
+	@Label("Candidates")
+	@Description("Cells evaluated (Hunt), or stack entries or cells scored (Target)")
+	int candidates;
+
+	@Label("Stack Depth")
+	@Description("Size of possibleHits after the decision")
+	int stackDepth;
+}
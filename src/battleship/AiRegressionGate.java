@@ -0,0 +1,262 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Regression gate for the Computer's strength and speed. Plays the
+ *      current Computer against a fixed, seeded set of layouts and compares
+ *      the results with a stored baseline.
+ * Measurements:
+ *          Strength is the mean and 95th percentile of shots-to-win. Speed is
+ *      nanoseconds and bytes allocated per move, measured after a warm-up
+ *      pass so the JIT has compiled the hot paths. Timing takes the best of
+ *      several passes, since a single pass is easily skewed by whatever
+ *      else the machine is doing. Lower is better for all
+ *      four; the gate fails if any of them exceeds its baseline value by
+ *      more than the tolerance.
+ * Date:
+ *      10/18/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.AiRegressionGate [options]
+ *      Options:
+ *          --games=<n>            number of layouts (default 2000)
+ *          --seed=<n>             layout seed (default 2014)
+ *          --corpus=<file>        take layouts from a LayoutCorpus instead
+ *          --baseline=<file>      baseline (default ai-baseline.properties)
+ *          --tolerance=<f>        allowed strength regression (default 0.01)
+ *          --speed-tolerance=<f>  allowed speed regression (default 0.25)
+ *          --update               record the current results as baseline
+ *      Exits with status 1 if the gate fails.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Strength and speed regression gate for the Computer.
+ */
+public class AiRegressionGate
+{
+	/**
+	 * Parses options, runs the gate and reports.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the baseline or corpus can't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int games = 2000;
+		long seed = 2014;
+		String corpus = null;
+		String baselineFile = "ai-baseline.properties";
+		double tolerance = 0.01;
+		double speedTolerance = 0.25;
+		boolean update = false;
+
+		for (String arg : args)
+		{
+			if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(valueOf(arg));
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(valueOf(arg));
+			}
+			else if (arg.startsWith("--corpus="))
+			{
+				corpus = valueOf(arg);
+			}
+			else if (arg.startsWith("--baseline="))
+			{
+				baselineFile = valueOf(arg);
+			}
+			else if (arg.startsWith("--tolerance="))
+			{
+				tolerance = Double.parseDouble(valueOf(arg));
+			}
+			else if (arg.startsWith("--speed-tolerance="))
+			{
+				speedTolerance = Double.parseDouble(valueOf(arg));
+			}
+			else if (arg.equals("--update"))
+			{
+				update = true;
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+
+		long[] layouts = Simulation.loadLayouts(corpus, seed, games);
+		Properties current = measure(layouts);
+		current.setProperty("games", String.valueOf(layouts.length));
+		current.setProperty("seed", (corpus == null) ? String.valueOf(seed)
+				: corpus);
+
+		if (update)
+		{
+			try (Writer writer = new FileWriter(baselineFile))
+			{
+				current.store(writer, "Computer regression baseline. " +
+						"Regenerate with AiRegressionGate --update.");
+			}
+			System.out.println("Baseline written to " + baselineFile + ":");
+			print(current, null);
+			return;
+		}
+
+		Properties baseline = new Properties();
+		try (Reader reader = new FileReader(baselineFile))
+		{
+			baseline.load(reader);
+		}
+		if (!baseline.getProperty("games").equals(current.getProperty("games"))
+				|| !baseline.getProperty("seed").equals(
+						current.getProperty("seed")))
+		{
+			System.out.println("Baseline was recorded with different " +
+					"layouts; rerun with the same --games/--seed/--corpus " +
+					"or --update. Exiting.");
+			System.exit(1);
+		}
+
+		System.out.println("Computer regression gate:");
+		boolean passed = print(current, baseline);
+		passed &= check(current, baseline, "meanShots", tolerance);
+		passed &= check(current, baseline, "p95Shots", tolerance);
+		passed &= check(current, baseline, "nanosPerMove", speedTolerance);
+		passed &= check(current, baseline, "bytesPerMove", speedTolerance);
+
+		if (!passed)
+		{
+			System.out.println("FAILED: the Computer got weaker or slower.");
+			System.exit(1);
+		}
+		System.out.println("Passed.");
+	}
+
+	/**
+	 * Number of timed passes over the layouts.
+	 */
+	static final int TIMED_PASSES = 5;
+
+	/**
+	 * Plays every layout once to warm up and check strength, then
+	 * TIMED_PASSES more times for speed.
+	 *
+	 * @param layouts packed layouts
+	 * @return        meanShots, p95Shots, nanosPerMove, bytesPerMove
+	 */
+	static Properties measure(long[] layouts)
+	{
+		int[] shots = new int[layouts.length];
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			shots[i] = Simulation.playGame(layouts[i]);
+		}
+
+		long nanos = Long.MAX_VALUE;
+		long bytes = Long.MAX_VALUE;
+		long moves = 0;
+		for (int pass = 0; pass < TIMED_PASSES; ++pass)
+		{
+			long passNanos = 0;
+			long passBytes = 0;
+			moves = 0;
+			for (long layout : layouts)
+			{
+				// Board and Computer set-up isn't part of a move.
+				GameBoard board = Simulation.newBoard(layout);
+				Computer computer = new Computer(board);
+
+				long startBytes = Simulation.allocatedBytes();
+				long start = System.nanoTime();
+				Simulation.playGame(computer, board);
+				passNanos += System.nanoTime() - start;
+				passBytes += Simulation.allocatedBytes() - startBytes;
+				moves += computer.getShotCount();
+			}
+			nanos = Math.min(nanos, passNanos);
+			bytes = Math.min(bytes, passBytes);
+		}
+
+		Properties result = new Properties();
+		result.setProperty("meanShots",
+				String.format("%.3f", Simulation.mean(shots)));
+		result.setProperty("p95Shots",
+				String.valueOf(Simulation.quantile(shots, 0.95)));
+		result.setProperty("nanosPerMove",
+				String.format("%.0f", (double)nanos / moves));
+		result.setProperty("bytesPerMove", (Simulation.allocatedBytes() < 0)
+				? "-1" : String.format("%.0f", (double)bytes / moves));
+		return result;
+	}
+
+	/**
+	 * Checks one measurement against the baseline.
+	 *
+	 * @param current   current results
+	 * @param baseline  stored results
+	 * @param key       measurement name
+	 * @param tolerance allowed relative increase
+	 * @return          true if within tolerance
+	 */
+	private static boolean check(Properties current, Properties baseline,
+								 String key, double tolerance)
+	{
+		double now = Double.parseDouble(current.getProperty(key));
+		double before = Double.parseDouble(baseline.getProperty(key));
+
+		// Negative means allocation couldn't be measured on this JVM.
+		if (now < 0 || before < 0)
+		{
+			return true;
+		}
+		if (now > before * (1 + tolerance))
+		{
+			System.out.printf("  %s regressed: %.3f > %.3f (+%.0f%% " +
+					"allowed)\n", key, now, before, tolerance * 100);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Prints measurements, with baselines if given.
+	 *
+	 * @param current  current results
+	 * @param baseline stored results, or null
+	 * @return         always true, for chaining with check
+	 */
+	private static boolean print(Properties current, Properties baseline)
+	{
+		String[] keys = {"meanShots", "p95Shots", "nanosPerMove",
+				"bytesPerMove"};
+		for (String key : keys)
+		{
+			if (baseline == null)
+			{
+				System.out.printf("  %-14s%s\n", key, current.getProperty(key));
+			}
+			else
+			{
+				System.out.printf("  %-14s%-12s(baseline %s)\n", key,
+						current.getProperty(key), baseline.getProperty(key));
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Value part of a --name=value option.
+	 */
+	private static String valueOf(String arg)
+	{
+		return arg.substring(arg.indexOf('=') + 1);
+	}
+}
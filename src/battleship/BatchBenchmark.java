@@ -0,0 +1,158 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Checks that the BatchEngine plays exactly like the default Computer,
+ *      then compares their speed. Both play the same layouts; the Computer
+ *      reuses one board and Computer, reset in place, as bulk simulations
+ *      do. Timings are the best of several passes after a warm-up.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.BatchBenchmark [options]
+ *      Options:
+ *          --games=<n>      number of layouts (default 5000)
+ *          --seed=<n>       layout seed (default 2014)
+ *          --corpus=<file>  take layouts from a LayoutCorpus instead
+ *          --capacity=<n>   games in flight (default 8)
+ *      Exits with status 1 if any game differs.
+ */
+
+package battleship;
+
+import java.io.*;
+
+/**
+ * Equivalence check and timing of BatchEngine against Computer.
+ */
+public class BatchBenchmark
+{
+	/**
+	 * Timed passes per engine.
+	 */
+	static final int PASSES = 5;
+
+	/**
+	 * Parses options, checks and times both engines.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the corpus can't be read
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int games = 5000;
+		long seed = 2014;
+		String corpus = null;
+		int capacity = BatchEngine.DEFAULT_CAPACITY;
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--corpus="))
+			{
+				corpus = value;
+			}
+			else if (arg.startsWith("--capacity="))
+			{
+				capacity = Integer.parseInt(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+
+		long[] layouts = Simulation.loadLayouts(corpus, seed, games);
+		BatchEngine engine = new BatchEngine(capacity);
+		GameBoard board = Simulation.newBoard(layouts[0]);
+		Computer computer = new Computer(board);
+
+		int[] expected = playEach(computer, board, layouts);
+		int[] batched = engine.play(layouts);
+		int differences = 0;
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			if (batched[i] != expected[i])
+			{
+				if (differences++ < 10)
+				{
+					System.out.printf("Layout %d (%x): Computer %d shots, " +
+							"batched %d%n", i, layouts[i], expected[i],
+							batched[i]);
+				}
+			}
+		}
+		if (differences > 0)
+		{
+			System.out.println("FAILED: " + differences + " of " +
+					layouts.length + " games differ.");
+			System.exit(1);
+		}
+		long moves = 0;
+		for (int shots : expected)
+		{
+			moves += shots;
+		}
+		System.out.printf("%d layouts, all %d moves identical; mean " +
+				"shots-to-win %.3f%n%n", layouts.length, moves,
+				Simulation.mean(expected));
+
+		long computerNanos = Long.MAX_VALUE;
+		long computerBytes = Long.MAX_VALUE;
+		long batchNanos = Long.MAX_VALUE;
+		long batchBytes = Long.MAX_VALUE;
+		for (int pass = 0; pass < PASSES; ++pass)
+		{
+			long startBytes = Simulation.allocatedBytes();
+			long start = System.nanoTime();
+			playEach(computer, board, layouts);
+			computerNanos = Math.min(computerNanos, System.nanoTime() - start);
+			computerBytes = Math.min(computerBytes,
+					Simulation.allocatedBytes() - startBytes);
+
+			startBytes = Simulation.allocatedBytes();
+			start = System.nanoTime();
+			engine.play(layouts);
+			batchNanos = Math.min(batchNanos, System.nanoTime() - start);
+			batchBytes = Math.min(batchBytes,
+					Simulation.allocatedBytes() - startBytes);
+		}
+
+		System.out.printf("%-12s%14s%14s%n", "engine", "ns/move",
+				"bytes/move");
+		System.out.printf("%-12s%14.0f%14.1f%n", "computer",
+				(double)computerNanos / moves, (double)computerBytes / moves);
+		System.out.printf("%-12s%14.0f%14.1f%n", "batched",
+				(double)batchNanos / moves, (double)batchBytes / moves);
+		System.out.printf("Speed-up: %.2fx%n",
+				(double)computerNanos / batchNanos);
+	}
+
+	/**
+	 * Plays every layout with one reused Computer.
+	 *
+	 * @param computer Computer set up for board
+	 * @param board    board it shoots at
+	 * @param layouts  packed layouts
+	 * @return         shots-to-win per layout
+	 */
+	static int[] playEach(Computer computer, GameBoard board, long[] layouts)
+	{
+		int[] shots = new int[layouts.length];
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			shots[i] = Simulation.playGame(computer, board, layouts[i]);
+		}
+		return shots;
+	}
+}
@@ -0,0 +1,613 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Plays many simulated games of the default Computer at once. Instead
+ *      of a Computer, GameBoard and 100 BoardSpaces per game, every game's
+ *      state lives in a few flat primitive arrays, and each step advances
+ *      every unfinished game by one move -- density, shot selection and
+ *      shot resolution -- in one loop over the batch.
+ * Equivalence:
+ *          The moves are exactly the default Computer's (parity-lattice
+ *      Hunt phase, cluster-targeting Target phase; see Computer and
+ *      ClusterTargeter), tie-breaks included, so every game takes the same
+ *      shots as Simulation.playGame(layout). BatchBenchmark checks this.
+ *      The Target phase scores are summed in the same order as
+ *      ClusterTargeter's, so even floating-point ties break the same way.
+ *
+ *          Only the default configuration is batched: no endgame solver,
+ *      Hunt weights or placement prior.
+ * State per game:
+ *          board      100 bytes: UNSHOT, MISS or HIT per cell
+ *          fleet      100 bytes: ship index per cell, or -1 (the hidden
+ *                     layout; the AI only reads it for hit cells, whose
+ *                     ship the hit message names)
+ *          hitCount   5 bytes: hits per ship; a ship is sunk at its size
+ *          hitBox     20 bytes: each ship's hits' min row, max row, min col
+ *                     and max col
+ *          parity     2 bytes: lattice spacing and class
+ *          shots      2 ints: shots fired and the latest shot
+ *
+ *      The density counters, neighbor sums and Target phase scores are
+ *      worked out per move into scratch arrays shared by the batch, so they
+ *      stay in cache.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Batched, allocation-free simulation of the default Computer.
+ */
+public final class BatchEngine
+{
+	/**
+	 * Cell states.
+	 */
+	static final byte UNSHOT = 0;
+	static final byte MISS = 1;
+	static final byte HIT = 2;
+
+	/**
+	 * Default number of games in flight. Small batches measured fastest:
+	 * the win is the flat state, and a few games' state fits in L1.
+	 */
+	static final int DEFAULT_CAPACITY = 8;
+
+	/**
+	 * Number of games the arrays hold.
+	 */
+	private final int capacity;
+
+	/**
+	 * Per-game state, indexed as in the class comment.
+	 */
+	private final byte[] board;
+	private final byte[] fleet;
+	private final byte[] hitCount;
+	private final byte[] hitBox;
+	private final byte[] paritySpacing;
+	private final byte[] parityClass;
+	private final int[] shots;
+	private final int[] lastShot;
+
+	/**
+	 * Games not yet won, and how many.
+	 */
+	private final int[] active;
+	private int activeCount = 0;
+
+	/**
+	 * Scratch for one move: density counters, and Target phase placement
+	 * counts and scores.
+	 */
+	private final int[] counters = new int[100];
+	private final int[] counts = new int[100];
+	private final double[] scores = new double[100];
+
+	/**
+	 * Creates engine.
+	 *
+	 * @param capacity games in flight at once
+	 */
+	public BatchEngine(int capacity)
+	{
+		if (capacity <= 0)
+		{
+			throw new IllegalArgumentException("Capacity must be positive: " +
+					capacity);
+		}
+		this.capacity = capacity;
+		board = new byte[capacity * 100];
+		fleet = new byte[capacity * 100];
+		hitCount = new byte[capacity * FleetLayout.NUM_SHIPS];
+		hitBox = new byte[capacity * FleetLayout.NUM_SHIPS * 4];
+		paritySpacing = new byte[capacity];
+		parityClass = new byte[capacity];
+		shots = new int[capacity];
+		lastShot = new int[capacity];
+		active = new int[capacity];
+	}
+
+	/**
+	 * Plays every layout to the end, a batch at a time.
+	 *
+	 * @param layouts packed layouts
+	 * @return        shots-to-win per layout
+	 */
+	public int[] play(long[] layouts)
+	{
+		int[] results = new int[layouts.length];
+		for (int from = 0; from < layouts.length; from += capacity)
+		{
+			int count = Math.min(capacity, layouts.length - from);
+			load(layouts, from, count);
+			while (step())
+			{
+				// Every game advances one move per step.
+			}
+			System.arraycopy(shots, 0, results, from, count);
+		}
+		return results;
+	}
+
+	/**
+	 * Starts new games, replacing any in flight.
+	 *
+	 * @param layouts packed layouts
+	 * @param from    index of the first layout to load
+	 * @param count   number of layouts; at most the capacity
+	 */
+	public void load(long[] layouts, int from, int count)
+	{
+		if (count > capacity)
+		{
+			throw new IllegalArgumentException("Batch of " + count +
+					" games is over capacity " + capacity);
+		}
+		Arrays.fill(board, 0, count * 100, UNSHOT);
+		Arrays.fill(fleet, 0, count * 100, (byte)-1);
+		Arrays.fill(hitCount, 0, count * FleetLayout.NUM_SHIPS, (byte)0);
+		Arrays.fill(paritySpacing, 0, count, (byte)0);
+		Arrays.fill(parityClass, 0, count, (byte)0);
+		Arrays.fill(shots, 0, count, 0);
+		Arrays.fill(lastShot, 0, count, -1);
+		for (int game = 0; game < count; ++game)
+		{
+			long layout = layouts[from + game];
+			if (!FleetLayout.isValid(layout))
+			{
+				throw new IllegalArgumentException("Illegal fleet layout: " +
+						Long.toHexString(layout));
+			}
+			for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+			{
+				int origin = FleetLayout.getOrigin(layout, ship);
+				int step = (FleetLayout.getDirection(layout, ship)
+						== FleetLayout.SOUTH) ? 10 : 1;
+				for (int i = 0; i < FleetLayout.SIZES[ship]; ++i)
+				{
+					fleet[game * 100 + origin + i * step] = (byte)ship;
+				}
+			}
+			active[game] = game;
+		}
+		activeCount = count;
+	}
+
+	/**
+	 * Plays one move in every unfinished game.
+	 *
+	 * @return true if any game is still unfinished
+	 */
+	public boolean step()
+	{
+		int stillActive = 0;
+		for (int i = 0; i < activeCount; ++i)
+		{
+			int game = active[i];
+			if (!fire(game, chooseShot(game)))
+			{
+				active[stillActive++] = game;
+			}
+		}
+		activeCount = stillActive;
+		return stillActive > 0;
+	}
+
+	/**
+	 * Returns a game's shots so far.
+	 *
+	 * @param game index within the loaded batch
+	 * @return     shots fired
+	 */
+	public int getShots(int game)
+	{
+		return shots[game];
+	}
+
+	/**
+	 * Returns a game's latest shot.
+	 *
+	 * @param game index within the loaded batch
+	 * @return     row * 10 + col, or -1 before the first shot
+	 */
+	public int getLastShot(int game)
+	{
+		return lastShot[game];
+	}
+
+	/**
+	 * Returns what a game's board shows at a cell.
+	 *
+	 * @param game index within the loaded batch
+	 * @param cell row * 10 + col
+	 * @return     UNSHOT, MISS or HIT
+	 */
+	public byte getCell(int game, int cell)
+	{
+		return board[game * 100 + cell];
+	}
+
+	/**
+	 * Chooses a game's next shot as the default Computer would.
+	 *
+	 * @param game game index
+	 * @return     row * 10 + col of the shot
+	 */
+	private int chooseShot(int game)
+	{
+		setCounters(game);
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (isOpen(game, ship))
+			{
+				int shot = chooseTargetShot(game);
+				// No placement explains the hits; shouldn't happen, but hunt.
+				return (shot >= 0) ? shot : chooseHuntShot(game);
+			}
+		}
+		return chooseHuntShot(game);
+	}
+
+	/**
+	 * Resolves a shot.
+	 *
+	 * @param game game index
+	 * @param cell row * 10 + col
+	 * @return     true if it sank the last ship
+	 */
+	private boolean fire(int game, int cell)
+	{
+		if (shots[game] >= Simulation.MAX_SHOTS)
+		{
+			throw new IllegalStateException("Batched game did not finish " +
+					"within " + Simulation.MAX_SHOTS + " shots.");
+		}
+		shots[game]++;
+		lastShot[game] = cell;
+		int ship = fleet[game * 100 + cell];
+		if (ship < 0)
+		{
+			board[game * 100 + cell] = MISS;
+			return false;
+		}
+		board[game * 100 + cell] = HIT;
+
+		int box = (game * FleetLayout.NUM_SHIPS + ship) * 4;
+		int row = cell / 10;
+		int col = cell % 10;
+		if (hitCount[game * FleetLayout.NUM_SHIPS + ship]++ == 0)
+		{
+			hitBox[box] = hitBox[box + 1] = (byte)row;
+			hitBox[box + 2] = hitBox[box + 3] = (byte)col;
+		}
+		else
+		{
+			hitBox[box] = (byte)Math.min(hitBox[box], row);
+			hitBox[box + 1] = (byte)Math.max(hitBox[box + 1], row);
+			hitBox[box + 2] = (byte)Math.min(hitBox[box + 2], col);
+			hitBox[box + 3] = (byte)Math.max(hitBox[box + 3], col);
+		}
+
+		for (int other = 0; other < FleetLayout.NUM_SHIPS; ++other)
+		{
+			if (!isSunk(game, other))
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Whether a ship has been sunk.
+	 *
+	 * @param game game index
+	 * @param ship ship index
+	 * @return     true if every cell of it has been hit
+	 */
+	private boolean isSunk(int game, int ship)
+	{
+		return hitCount[game * FleetLayout.NUM_SHIPS + ship]
+				== FleetLayout.SIZES[ship];
+	}
+
+	/**
+	 * Whether a ship has been hit but not sunk.
+	 *
+	 * @param game game index
+	 * @param ship ship index
+	 * @return     true if it's an open cluster
+	 */
+	private boolean isOpen(int game, int ship)
+	{
+		return hitCount[game * FleetLayout.NUM_SHIPS + ship] > 0
+				&& !isSunk(game, ship);
+	}
+
+	/**
+	 * Sets the density counters: for every ship not yet sunk, the number of
+	 * its horizontal and vertical placements through each cell that run
+	 * only through unshot cells. Works on runs of unshot cells, since a
+	 * ship of length k in a run of length n covers the run's p-th cell in
+	 * min(p, n - k) - max(0, p - k + 1) + 1 placements.
+	 *
+	 * @param game game index
+	 */
+	private void setCounters(int game)
+	{
+		Arrays.fill(counters, 0);
+		int base = game * 100;
+		for (int line = 0; line < 10; ++line)
+		{
+			// Rows, then columns.
+			addRuns(base, line * 10, 1, game);
+			addRuns(base, line, 10, game);
+		}
+	}
+
+	/**
+	 * Adds the placements in one row or column to the counters.
+	 *
+	 * @param base  the game's offset into board
+	 * @param first first cell of the line
+	 * @param step  1 for a row, 10 for a column
+	 * @param game  game index
+	 */
+	private void addRuns(int base, int first, int step, int game)
+	{
+		int start = 0;
+		while (start < 10)
+		{
+			if (board[base + first + start * step] != UNSHOT)
+			{
+				start++;
+				continue;
+			}
+			int end = start;
+			while (end < 10 && board[base + first + end * step] == UNSHOT)
+			{
+				end++;
+			}
+			int length = end - start;
+			for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+			{
+				int size = FleetLayout.SIZES[ship];
+				if (size > length || isSunk(game, ship))
+				{
+					continue;
+				}
+				for (int p = 0; p < length; ++p)
+				{
+					counters[first + (start + p) * step] += Math.min(p,
+							length - size) - Math.max(0, p - size + 1) + 1;
+				}
+			}
+			start = end;
+		}
+	}
+
+	/**
+	 * Hunt phase shot: the highest counter on the parity lattice (or
+	 * anywhere, once the lattice is all shot), then the highest neighbor
+	 * sum, then the first in row-major order.
+	 *
+	 * @param game game index
+	 * @return     row * 10 + col of the shot
+	 */
+	private int chooseHuntShot(int game)
+	{
+		int base = game * 100;
+		boolean useLattice = updateParityLattice(game);
+		int spacing = paritySpacing[game];
+		int cls = parityClass[game];
+
+		int best = -1;
+		int bestCounter = 0;
+		int bestSum = 0;
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			int row = cell / 10;
+			int col = cell % 10;
+			if (board[base + cell] != UNSHOT
+					|| (useLattice && (row + col) % spacing != cls))
+			{
+				continue;
+			}
+			int counter = counters[cell];
+			int sum = ((row != 0) ? counters[cell - 10] : 0)
+					+ ((col != 9) ? counters[cell + 1] : 0)
+					+ ((row != 9) ? counters[cell + 10] : 0)
+					+ ((col != 0) ? counters[cell - 1] : 0);
+			if (best < 0 || counter > bestCounter
+					|| (counter == bestCounter && sum > bestSum))
+			{
+				best = cell;
+				bestCounter = counter;
+				bestSum = sum;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Keeps the game's parity lattice in step with its smallest ship left,
+	 * as Computer.updateParityLattice.
+	 *
+	 * @param game game index
+	 * @return     true if the lattice has any unshot cell left
+	 */
+	private boolean updateParityLattice(int game)
+	{
+		int spacing = 0;
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (!isSunk(game, ship) && (spacing == 0
+					|| FleetLayout.SIZES[ship] < spacing))
+			{
+				spacing = FleetLayout.SIZES[ship];
+			}
+		}
+		if (spacing == 0)
+		{
+			return false;
+		}
+
+		int base = game * 100;
+		if (spacing != paritySpacing[game])
+		{
+			// Search the class with the fewest unshot cells.
+			paritySpacing[game] = (byte)spacing;
+			int[] open = counts;
+			Arrays.fill(open, 0, spacing, 0);
+			for (int cell = 0; cell < 100; ++cell)
+			{
+				if (board[base + cell] == UNSHOT)
+				{
+					open[(cell / 10 + cell % 10) % spacing]++;
+				}
+			}
+			int best = 0;
+			for (int k = 1; k < spacing; ++k)
+			{
+				if (open[k] < open[best])
+				{
+					best = k;
+				}
+			}
+			parityClass[game] = (byte)best;
+		}
+
+		int cls = parityClass[game];
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (board[base + cell] == UNSHOT
+					&& (cell / 10 + cell % 10) % spacing == cls)
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Target phase shot, as ClusterTargeter.chooseShot: the highest summed
+	 * chance of hitting an open ship, then the highest counter, then the
+	 * first in row-major order.
+	 *
+	 * @param game game index
+	 * @return     row * 10 + col of the shot, or -1 if no placement
+	 *             explains the open hits
+	 */
+	private int chooseTargetShot(int game)
+	{
+		Arrays.fill(scores, 0);
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (isOpen(game, ship))
+			{
+				addScores(game, ship);
+			}
+		}
+
+		int best = -1;
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (scores[cell] == 0)
+			{
+				continue;
+			}
+			if (best == -1 || scores[cell] > scores[best]
+					|| (scores[cell] == scores[best]
+					&& counters[cell] > counters[best]))
+			{
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Adds one open ship's placement probabilities to the scores, as
+	 * ClusterTargeter.addScores.
+	 *
+	 * @param game game index
+	 * @param ship ship index
+	 */
+	private void addScores(int game, int ship)
+	{
+		Arrays.fill(counts, 0);
+		int size = FleetLayout.SIZES[ship];
+		int box = (game * FleetLayout.NUM_SHIPS + ship) * 4;
+		int minRow = hitBox[box];
+		int maxRow = hitBox[box + 1];
+		int minCol = hitBox[box + 2];
+		int maxCol = hitBox[box + 3];
+
+		int total = 0;
+		if (minRow == maxRow)
+		{
+			for (int start = Math.max(0, maxCol - size + 1);
+				 start <= Math.min(minCol, 10 - size); ++start)
+			{
+				total += place(game, ship, minRow * 10 + start, 1, size);
+			}
+		}
+		if (minCol == maxCol)
+		{
+			for (int start = Math.max(0, maxRow - size + 1);
+				 start <= Math.min(minRow, 10 - size); ++start)
+			{
+				total += place(game, ship, start * 10 + minCol, 10, size);
+			}
+		}
+
+		if (total == 0)
+		{
+			return;
+		}
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (counts[cell] != 0)
+			{
+				scores[cell] += (double)counts[cell] / total;
+			}
+		}
+	}
+
+	/**
+	 * Counts one placement if it only runs through unshot cells and the
+	 * ship's own hits.
+	 *
+	 * @param game   game index
+	 * @param ship   ship index
+	 * @param origin first cell of placement
+	 * @param step   1 for horizontal, 10 for vertical
+	 * @param size   ship length
+	 * @return       1 if the placement is possible, else 0
+	 */
+	private int place(int game, int ship, int origin, int step, int size)
+	{
+		int base = game * 100;
+		for (int i = 0, cell = origin; i < size; ++i, cell += step)
+		{
+			byte state = board[base + cell];
+			if (state == MISS || (state == HIT && fleet[base + cell] != ship))
+			{
+				return 0;
+			}
+		}
+		for (int i = 0, cell = origin; i < size; ++i, cell += step)
+		{
+			if (board[base + cell] == UNSHOT)
+			{
+				counts[cell]++;
+			}
+		}
+		return 1;
+	}
+}
@@ -79,6 +79,24 @@ public class BoardSpace implements Comparable<BoardSpace>
 		counter++;
 	}
 
+	/**
+	 * Decrement counter value by 1.
+	 */
+	public void decrementCounter()
+	{
+		counter--;
+	}
+
+	/**
+	 * Set counter value, e.g. from a DensityKernel.
+	 *
+	 * @param value new counter
+	 */
+	public void setCounter(int value)
+	{
+		counter = value;
+	}
+
 	/**
 	 * Reset counter value to 0.
 	 */
@@ -0,0 +1,299 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      The Computer's hit-aware Target phase engine. Keeps separate state
+ *      for each ship that has been hit but not sunk (each hit cluster) and
+ *      scores candidate cells by the placements that could explain the
+ *      hits, instead of working through a stack of neighbors.
+ * Strategy details:
+ *          Every hit message names the ship that was struck, so each hit
+ *      belongs to a known ship. For a ship with open hits, the only
+ *      placements still possible are those of its exact length that cover
+ *      all of its hits and otherwise run only through unshot cells (misses
+ *      and other ships' hits block them). Each such placement adds one to
+ *      the count of every unshot cell it covers; a cell's probability of
+ *      holding that ship is its count over the ship's number of placements.
+ *
+ *          A cell's score is the sum of those probabilities over every open
+ *      cluster, i.e., its chance of hitting something. The highest score
+ *      wins, ties going to the higher Hunt density counter and then to the
+ *      first cell in row-major order. Because orientation and extent are
+ *      judged per ship from the placements themselves, adjacent ships or
+ *      several ships hit at once don't confuse each other.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Per-cluster Target phase state and scoring.
+ */
+public class ClusterTargeter
+{
+	/**
+	 * Which ship (0 - 4, FleetLayout order) each cell was a hit on, or -1.
+	 */
+	private final int[] owner = new int[100];
+
+	/**
+	 * Each ship's hit cells (row * 10 + col) and count.
+	 */
+	private final int[][] hits = new int[FleetLayout.NUM_SHIPS][5];
+	private final int[] hitCount = new int[FleetLayout.NUM_SHIPS];
+
+	/**
+	 * Whether each ship has been sunk.
+	 */
+	private final boolean[] sunk = new boolean[FleetLayout.NUM_SHIPS];
+
+	/**
+	 * Scratch: one ship's placement counts per cell, and the summed scores.
+	 */
+	private final int[] counts = new int[100];
+	private final double[] scores = new double[100];
+
+	/**
+	 * Number of cells with a non-zero score in the last chooseShot.
+	 */
+	private int candidates;
+
+	/**
+	 * Creates targeter with no hits.
+	 */
+	public ClusterTargeter()
+	{
+		Arrays.fill(owner, -1);
+	}
+
+	/**
+	 * Forgets all hits, for a new game.
+	 */
+	public void reset()
+	{
+		Arrays.fill(owner, -1);
+		Arrays.fill(hitCount, 0);
+		Arrays.fill(sunk, false);
+		candidates = 0;
+	}
+
+	/**
+	 * Returns whether any hit ship hasn't been sunk yet.
+	 *
+	 * @return true if in the Target phase
+	 */
+	public boolean hasOpenHits()
+	{
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (hitCount[ship] > 0 && !sunk[ship])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Returns which ship a cell was a hit on.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     ship index (FleetLayout order), or -1 if not a hit
+	 */
+	public int getOwner(int cell)
+	{
+		return owner[cell];
+	}
+
+	/**
+	 * Returns whether a ship has been sunk.
+	 *
+	 * @param ship ship index (FleetLayout order)
+	 * @return     true if sunk
+	 */
+	public boolean isShipSunk(int ship)
+	{
+		return sunk[ship];
+	}
+
+	/**
+	 * Returns how many cells the last chooseShot had to choose from.
+	 *
+	 * @return candidate count
+	 */
+	public int getCandidateCount()
+	{
+		return candidates;
+	}
+
+	/**
+	 * Records a hit.
+	 *
+	 * @param row    row of hit
+	 * @param col    col of hit
+	 * @param ship   ship index (FleetLayout order)
+	 * @param isSunk true if the hit sank the ship
+	 */
+	public void recordHit(int row, int col, int ship, boolean isSunk)
+	{
+		int cell = row * 10 + col;
+		if (owner[cell] == -1)
+		{
+			owner[cell] = ship;
+			hits[ship][hitCount[ship]++] = cell;
+		}
+		sunk[ship] |= isSunk;
+	}
+
+	/**
+	 * Undoes the latest recordHit on a ship, for rolling back.
+	 *
+	 * @param row  row of hit
+	 * @param col  col of hit
+	 * @param ship ship index (FleetLayout order)
+	 */
+	public void undoHit(int row, int col, int ship)
+	{
+		int cell = row * 10 + col;
+		if (owner[cell] == ship && hitCount[ship] > 0
+				&& hits[ship][hitCount[ship] - 1] == cell)
+		{
+			owner[cell] = -1;
+			hitCount[ship]--;
+		}
+		// Only the last hit on a ship sinks it.
+		sunk[ship] = false;
+	}
+
+	/**
+	 * Chooses the best Target phase shot. Only call if hasOpenHits().
+	 *
+	 * @param board  the opponent's board
+	 * @param spaces Hunt density, for tie-breaks
+	 * @return       row * 10 + col of the chosen cell, or -1 if no
+	 *               placement can explain the open hits
+	 */
+	public int chooseShot(char[][] board, BoardSpace[][] spaces)
+	{
+		Arrays.fill(scores, 0);
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (hitCount[ship] > 0 && !sunk[ship])
+			{
+				addScores(board, ship);
+			}
+		}
+
+		int best = -1;
+		candidates = 0;
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (scores[cell] == 0)
+			{
+				continue;
+			}
+			candidates++;
+			if (best == -1 || scores[cell] > scores[best]
+					|| (scores[cell] == scores[best]
+					&& spaces[cell / 10][cell % 10].getCounter()
+					> spaces[best / 10][best % 10].getCounter()))
+			{
+				best = cell;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Adds one open ship's placement probabilities to the scores.
+	 *
+	 * @param board the opponent's board
+	 * @param ship  ship index
+	 */
+	private void addScores(char[][] board, int ship)
+	{
+		Arrays.fill(counts, 0);
+		int length = FleetLayout.SIZES[ship];
+
+		// Bounding box of the ship's hits.
+		int minRow = 9;
+		int maxRow = 0;
+		int minCol = 9;
+		int maxCol = 0;
+		for (int i = 0; i < hitCount[ship]; ++i)
+		{
+			int cell = hits[ship][i];
+			minRow = Math.min(minRow, cell / 10);
+			maxRow = Math.max(maxRow, cell / 10);
+			minCol = Math.min(minCol, cell % 10);
+			maxCol = Math.max(maxCol, cell % 10);
+		}
+
+		int total = 0;
+		// Horizontal placements, if all hits share a row.
+		if (minRow == maxRow)
+		{
+			for (int start = Math.max(0, maxCol - length + 1);
+				 start <= Math.min(minCol, 10 - length); ++start)
+			{
+				total += place(board, ship, minRow * 10 + start, 1, length);
+			}
+		}
+		// Vertical placements, if all hits share a column.
+		if (minCol == maxCol)
+		{
+			for (int start = Math.max(0, maxRow - length + 1);
+				 start <= Math.min(minRow, 10 - length); ++start)
+			{
+				total += place(board, ship, start * 10 + minCol, 10, length);
+			}
+		}
+
+		if (total == 0)
+		{
+			return;
+		}
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (counts[cell] != 0)
+			{
+				scores[cell] += (double)counts[cell] / total;
+			}
+		}
+	}
+
+	/**
+	 * Counts one placement if it only runs through unshot cells and the
+	 * ship's own hits.
+	 *
+	 * @param board  the opponent's board
+	 * @param ship   ship index
+	 * @param origin first cell of placement
+	 * @param step   1 for horizontal, 10 for vertical
+	 * @param length ship length
+	 * @return       1 if the placement is possible, else 0
+	 */
+	private int place(char[][] board, int ship, int origin, int step,
+					  int length)
+	{
+		for (int i = 0, cell = origin; i < length; ++i, cell += step)
+		{
+			char curr = board[cell / 10][cell % 10];
+			if (curr == 'O' || (curr == 'X' && owner[cell] != ship))
+			{
+				return 0;
+			}
+		}
+		for (int i = 0, cell = origin; i < length; ++i, cell += step)
+		{
+			if (owner[cell] != ship)
+			{
+				counts[cell]++;
+			}
+		}
+		return 1;
+	}
+}
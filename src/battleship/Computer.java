@@ -37,18 +37,32 @@
  *      orientation of the ship and move on to the next mini-phase, which is
  *      just the completion of the sinking of that ship based on its
  *      now-known orientation.
+ *
+ *          By default the Target phase instead scores cells by the
+ *      placements that could explain each hit ship's hits (see
+ *      ClusterTargeter), and the Hunt phase only searches a parity lattice
+ *      of the smallest extant ship. Both can be turned off to get the
+ *      original algorithm described above.
+ *
+ *          In Salvo games the Computer fires a volley of several shots a
+ *      turn (see chooseVolley). The density is worked out once per volley;
+ *      each shot is the best cell assuming the volley's earlier shots miss,
+ *      so after each pick only the placements through it are taken off the
+ *      counters.
  * Date:
  *      09/20/14.
  */
 
 package battleship;
 
+import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Represents the Computer player.
  */
-public class Computer
+public class Computer implements TargetingStrategy
 {
 	/**
 	 * Human player's board.
@@ -116,6 +130,112 @@ public class Computer
 	 */
 	char[] columnHeaders = "ABCDEFGHIJ".toCharArray();
 
+	/**
+	 * Shots fired this game, and since the last ship was sunk.
+	 */
+	int shotCount = 0;
+	int shotsSinceSink = 0;
+
+	/**
+	 * Whether the shot being played was chosen in the Hunt phase.
+	 */
+	boolean isHunt = true;
+
+	/**
+	 * Parity lattice for the Hunt phase as a 100-bit mask (cells 0 - 63 in
+	 * parityLow, 64 - 99 in parityHigh), and the ship length it was built
+	 * for. See updateParityLattice.
+	 */
+	boolean parityHunting = true;
+	long parityLow;
+	long parityHigh;
+	int paritySpacing = 0;
+	int parityClass = 0;
+
+	/**
+	 * Hit-aware Target phase engine. When on, it replaces the stack of
+	 * possible hits for choosing Target phase shots.
+	 */
+	boolean clusterTargeting = true;
+	ClusterTargeter targeter = new ClusterTargeter();
+
+	/**
+	 * Optional kernel for the placement counters, and its buffers.
+	 */
+	DensityKernel densityKernel = null;
+	int[] kernelBlocked = new int[100];
+	int[] kernelCounters = new int[100];
+
+	/**
+	 * Optional weighted Hunt phase score, replacing BoardSpace.compareTo.
+	 */
+	HuntWeights huntWeights = null;
+
+	/**
+	 * Optional per-cell multipliers for the Hunt phase counters, from the
+	 * opponent's PlacementPrior, or null to hunt by density alone.
+	 */
+	double[] placementPrior = null;
+
+	/**
+	 * Exact solver for the last ships, or null (the default) to always use
+	 * density. Needs cluster targeting, which tracks which ship each hit
+	 * belongs to.
+	 */
+	EndgameSolver endgame = null;
+
+	/**
+	 * Scratch copy of the opponent's board while choosing a volley, with
+	 * the volley's shots so far marked as misses.
+	 */
+	char[][] volleyBoard = new char[10][10];
+
+	/**
+	 * Undo journal for checkpoint and rollback, newest last: one packed
+	 * entry per recorded shot or parity lattice rebuild (see journalShot
+	 * and journalLattice). Grows only if a game somehow needs more.
+	 */
+	long[] journal = new long[128];
+	int journalSize = 0;
+
+	/**
+	 * Background thread that works out the next shot while the human
+	 * chooses theirs, or null if pondering is off.
+	 */
+	private ExecutorService ponderer = null;
+
+	/**
+	 * The shot being pondered, or null if none. Until it is taken, only the
+	 * pondering thread may touch the Computer's state.
+	 */
+	private Future<Integer> pondered = null;
+
+	/**
+	 * Journal position, board and shots on it when pondering started, to
+	 * tell whether the pondered shot is still the right one.
+	 */
+	private int ponderCheckpoint;
+	private GameBoard ponderBoard;
+	private int ponderShotsTaken;
+
+	/**
+	 * True while chooseShot runs on the pondering thread. Its timings, Hunt
+	 * cells evaluated and decision event are then held below rather than
+	 * recorded, and only takePondered records them, so a discarded shot
+	 * doesn't show up in Metrics or Flight Recorder.
+	 */
+	private boolean deferRecording = false;
+
+	/**
+	 * The pondered shot's recordings: setBoardSpaces and setHuntShot nanos
+	 * (-1 if not timed), Hunt cells evaluated, and its filled-in decision
+	 * event (null if Flight Recorder doesn't want it).
+	 */
+	private long deferredBoardSpacesNanos = -1;
+	private long deferredHuntShotNanos = -1;
+	private int deferredCellsEvaluated = 0;
+	private AiDecisionEvent deferredDecision = null;
+
 	/**
 	 * Very simple Computer constructor.
 	 *
@@ -136,56 +256,595 @@ public class Computer
 		}
 	}
 
+	/**
+	 * Clears all game state in place for a new game against the same
+	 * (reset) board. Settings such as parity hunting, cluster targeting,
+	 * weights and kernels are kept.
+	 */
+	public void reset()
+	{
+		discardPondering();
+		rawBoard = ofOpponent.getBoard();
+		for (int i = 0; i < 10; ++i)
+		{
+			for (int j = 0; j < 10; ++j)
+			{
+				boardSpaces[i][j].clearCounter();
+				boardSpaces[i][j].clearNeighboringSum();
+			}
+		}
+		extantShipLengths.clear();
+		Collections.addAll(extantShipLengths, 5, 4, 3, 3, 2);
+
+		row = 0;
+		col = 0;
+		possibleHits.clear();
+		shipsTargeted.clear();
+		orientation = "";
+		pointsTargeted.clear();
+
+		shotCount = 0;
+		shotsSinceSink = 0;
+		isHunt = true;
+		parityLow = 0;
+		parityHigh = 0;
+		paritySpacing = 0;
+		parityClass = 0;
+		journalSize = 0;
+		targeter.reset();
+		if (endgame != null)
+		{
+			endgame.reset();
+		}
+	}
+
 	/**
 	 * Computer plays its turn.
 	 *
 	 * @param ofHuman human player's game board
 	 */
 	public void playOneTurn(GameBoard ofHuman){
+		long turnStart = Metrics.start();
+
+		ofOpponent = ofHuman;
+
+		int shot = takePondered(ofHuman);
+		if (shot < 0)
+		{
+			shot = chooseShot(ofOpponent.getBoard());
+		}
+
+		// Get information about shot.
+		ShotOutcome outcome = ofOpponent.updateBoardAfterShot(false,
+				shot/10 + 1, columnHeaders[shot % 10]);
+
+		recordShot(shot / 10, shot % 10, outcome);
+
+		Metrics.stop(isHunt ? Metrics.HUNT_TURN_NANOS
+				: Metrics.TARGET_TURN_NANOS, turnStart);
+	}
+
+	/**
+	 * Computer plays a Salvo turn: chooses a whole volley, has the board
+	 * resolve it in one batch, then learns from each shot.
+	 *
+	 * @param ofHuman human player's game board
+	 * @param shots   volley size, i.e., the Computer's ships left
+	 */
+	public void playOneVolley(GameBoard ofHuman, int shots)
+	{
+		discardPondering();
 		ofOpponent = ofHuman;
 
+		int[] volley = chooseVolley(ofOpponent.getBoard(), shots);
+		ShotOutcome[] outcomes = ofOpponent.updateBoardAfterVolley(false,
+				volley);
+		for (int i = 0; i < volley.length; ++i)
+		{
+			recordShot(volley[i] / 10, volley[i] % 10, outcomes[i]);
+		}
+	}
+
+	/**
+	 * Turns pondering on or off. When on, ponder starts working out the
+	 * next shot on a background thread, and playOneTurn takes it instead of
+	 * choosing again, so the human doesn't wait for an expensive strategy.
+	 * Turning it off waits for any shot in progress and stops the thread.
+	 *
+	 * @param enabled true to ponder
+	 */
+	public void setPondering(boolean enabled)
+	{
+		discardPondering();
+		if (enabled && ponderer == null)
+		{
+			ponderer = Executors.newSingleThreadExecutor(task ->
+			{
+				Thread thread = new Thread(task, "computer-ponder");
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		else if (!enabled && ponderer != null)
+		{
+			ponderer.shutdown();
+			ponderer = null;
+		}
+	}
+
+	/**
+	 * Starts working out the next shot in the background. The shot doesn't
+	 * depend on the human's, since the Computer only reads its own state and
+	 * the human's board, so it can be pondered while the human chooses.
+	 * Does nothing if pondering is off, the game is over, a shot is already
+	 * being pondered, or cluster targeting is off (the stack of possible
+	 * hits can't be rolled back if the pondered shot goes unused).
+	 * <p>
+	 * Nothing may change the Computer or ofHuman until playOneTurn takes
+	 * the shot. Settings changes and reset discard it first. Its metrics
+	 * and decision event are only recorded if it is taken.
+	 *
+	 * @param ofHuman human player's game board
+	 */
+	public void ponder(GameBoard ofHuman)
+	{
+		if (ponderer == null || pondered != null || !clusterTargeting
+				|| ofHuman.areNoShipsLeft())
+		{
+			return;
+		}
+		char[][] board = ofHuman.getBoard();
+		ponderCheckpoint = checkpoint();
+		ponderBoard = ofHuman;
+		ponderShotsTaken = ofHuman.getShotsTaken();
+		deferredBoardSpacesNanos = -1;
+		deferredHuntShotNanos = -1;
+		deferredCellsEvaluated = 0;
+		deferredDecision = null;
+		deferRecording = true;
+		pondered = ponderer.submit(() -> chooseShot(board));
+	}
+
+	/**
+	 * Waits for the pondered shot and takes it, if it is still valid.
+	 *
+	 * @param ofHuman board the shot is for
+	 * @return        the shot, or -1 if there is none to take
+	 */
+	private int takePondered(GameBoard ofHuman)
+	{
+		if (pondered == null)
+		{
+			return -1;
+		}
+		int shot = awaitPondered();
+		if (ofHuman != ponderBoard
+				|| ofHuman.getShotsTaken() != ponderShotsTaken)
+		{
+			// The board moved on under it; choose again from the same state.
+			rollback(ponderCheckpoint);
+			return -1;
+		}
+		recordDeferred();
+		return shot;
+	}
+
+	/**
+	 * Records what choosing the pondered shot would have, now that it is
+	 * being played.
+	 */
+	private void recordDeferred()
+	{
+		if (Metrics.enabled)
+		{
+			if (deferredBoardSpacesNanos >= 0)
+			{
+				Metrics.SET_BOARD_SPACES_NANOS.record(deferredBoardSpacesNanos);
+			}
+			if (deferredHuntShotNanos >= 0)
+			{
+				Metrics.SET_HUNT_SHOT_NANOS.record(deferredHuntShotNanos);
+			}
+			Metrics.HUNT_CELLS_EVALUATED.add(deferredCellsEvaluated);
+		}
+		if (deferredDecision != null)
+		{
+			deferredDecision.commit();
+			deferredDecision = null;
+		}
+	}
+
+	/**
+	 * Waits for any pondered shot and throws it away, undoing whatever
+	 * choosing it changed.
+	 */
+	private void discardPondering()
+	{
+		if (pondered != null)
+		{
+			awaitPondered();
+			rollback(ponderCheckpoint);
+		}
+	}
+
+	/**
+	 * Waits for the pondering thread to finish its shot.
+	 *
+	 * @return the pondered shot
+	 */
+	private int awaitPondered()
+	{
+		Future<Integer> shot = pondered;
+		pondered = null;
+		boolean interrupted = false;
+		try
+		{
+			while (true)
+			{
+				try
+				{
+					return shot.get();
+				}
+				catch (InterruptedException e)
+				{
+					// The state is shared until the thread is done.
+					interrupted = true;
+				}
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Pondering failed.",
+					e.getCause());
+		}
+		finally
+		{
+			// The pondering thread is done with the state.
+			deferRecording = false;
+			if (interrupted)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Returns the strategy's name.
+	 *
+	 * @return "density"
+	 */
+	@Override
+	public String getName()
+	{
+		return "density";
+	}
+
+	/**
+	 * Chooses the next shot: from the probability density function in the
+	 * Hunt phase, or from the stack of possible hits in the Target phase.
+	 *
+	 * @param board the opponent's board, as returned by getBoard()
+	 * @return      row * 10 + col of the chosen cell
+	 */
+	@Override
+	public int chooseShot(char[][] board)
+	{
+		isHunt = clusterTargeting ? !targeter.hasOpenHits()
+				: possibleHits.isEmpty();
+		// Stack entries, cells scored or cells evaluated, for the event.
+		int candidates = possibleHits.size();
+
+		// Times this decision for Flight Recorder. Free unless recording.
+		AiDecisionEvent decision = new AiDecisionEvent();
+		decision.begin();
+
 		// Update board each turn.
-		rawBoard = ofOpponent.getBoard();
+		rawBoard = board;
 
 		// Set counts "horizontally" first. Calls itself for vertical counts.
+		long start = Metrics.start();
 		setBoardSpaces(true);
+		deferredBoardSpacesNanos = stopTimer(Metrics.SET_BOARD_SPACES_NANOS,
+				start);
 
-		ShipPoint currPoint;
-		String message;
-		char type;
-
-		// Whether ship has been sunk.
-		boolean sunk = false;
+		// With few enough ships left, play the endgame exactly.
+		int endgameShot = -1;
+		if (endgame != null && clusterTargeting
+				&& extantShipLengths.size() <= EndgameSolver.MAX_SHIPS)
+		{
+			endgameShot = endgame.chooseShot(rawBoard, targeter);
+		}
 
+		if (endgameShot >= 0)
+		{
+			row = endgameShot / 10;
+			col = endgameShot % 10;
+		}
 		/*
 		 * Hunt phase (i.e., not trying to finish off ship) so get row & col
 		 * values from probability density function.
 		 */
-		if (possibleHits.isEmpty())
+		else if (isHunt)
 		{
-			setHuntShot();
+			start = Metrics.start();
+			candidates = setHuntShot();
+			deferredHuntShotNanos = stopTimer(Metrics.SET_HUNT_SHOT_NANOS,
+					start);
+		}
+		// Else score the cells around the open hits.
+		else if (clusterTargeting)
+		{
+			int shot = targeter.chooseShot(rawBoard, boardSpaces);
+			candidates = targeter.getCandidateCount();
+			if (shot >= 0)
+			{
+				row = shot / 10;
+				col = shot % 10;
+			}
+			// No placement explains the hits; shouldn't happen, but hunt.
+			else
+			{
+				candidates = setHuntShot();
+			}
 		}
 		// Else use stack of possible hits (like a depth-based search).
 		else
 		{
-			currPoint = possibleHits.pop();
+			ShipPoint currPoint = possibleHits.pop();
 			row = currPoint.getRow();
 			col = currPoint.getCol();
+			if (Metrics.enabled)
+			{
+				Metrics.STACK_POPS.increment();
+			}
+		}
+		decision.end();
+		if (decision.shouldCommit())
+		{
+			describeDecision(decision, isHunt, candidates);
+			if (deferRecording)
+			{
+				deferredDecision = decision;
+			}
+			else
+			{
+				decision.commit();
+			}
 		}
-		type = rawBoard[row][col];
+		return row * 10 + col;
+	}
 
-		// Get information about shot.
-		message = ofOpponent.updateBoardAfterShot(false, row+1,
-				columnHeaders[col]);
+	/**
+	 * Records the time since start into a histogram, or, while pondering,
+	 * returns it for takePondered to record.
+	 *
+	 * @param histogram timer to record into
+	 * @param start     value returned by Metrics.start()
+	 * @return          nanos held back, or -1 if none
+	 */
+	private long stopTimer(Histogram histogram, long start)
+	{
+		if (deferRecording)
+		{
+			return Metrics.enabled ? System.nanoTime() - start : -1;
+		}
+		Metrics.stop(histogram, start);
+		return -1;
+	}
 
-		// If shot was a hit (non-empty message).
-		if (!message.equals(""))
+	/**
+	 * Counts Hunt cells evaluated into Metrics.HUNT_CELLS_EVALUATED, or,
+	 * while pondering, holds them for takePondered to count.
+	 *
+	 * @param evaluated cells evaluated
+	 */
+	private void countEvaluated(int evaluated)
+	{
+		if (deferRecording)
 		{
-			sunk = updateOnHit(message);
+			deferredCellsEvaluated += evaluated;
 		}
+		else if (Metrics.enabled)
+		{
+			Metrics.HUNT_CELLS_EVALUATED.add(evaluated);
+		}
+	}
 
-		// Update board.
-		rawBoard = ofOpponent.getBoard();
+	/**
+	 * Chooses a Salvo volley: up to shots distinct cells, all to be fired
+	 * before any result is known. Each cell is the one chooseShot would pick
+	 * if the volley's earlier cells had been misses. The density is worked
+	 * out once; after each pick, only the placements through it are taken
+	 * off the counters, rather than redoing setBoardSpaces for every shot.
+	 * <p>
+	 * The endgame solver isn't used for volleys. Results go to recordShot,
+	 * shot by shot, once the whole volley has been resolved.
+	 *
+	 * @param board the opponent's board, as returned by getBoard()
+	 * @param shots volley size
+	 * @return      row * 10 + col of each chosen cell, in firing order;
+	 *              fewer than shots if the board runs out of unshot cells
+	 */
+	public int[] chooseVolley(char[][] board, int shots)
+	{
+		long start = Metrics.start();
+
+		// Plan on a copy so the volley's picks can be marked as misses.
+		for (int i = 0; i < 10; ++i)
+		{
+			System.arraycopy(board[i], 0, volleyBoard[i], 0, 10);
+		}
+		rawBoard = volleyBoard;
+		setBoardSpaces(true);
+
+		int[] volley = new int[shots];
+		int picked = 0;
+		while (picked < shots && hasUnshotCell())
+		{
+			int shot = pickVolleyShot();
+			volley[picked++] = shot;
+			removePlacementsThrough(shot / 10, shot % 10);
+			volleyBoard[shot / 10][shot % 10] = 'O';
+		}
+
+		rawBoard = board;
+		Metrics.stop(Metrics.VOLLEY_NANOS, start);
+		return (picked == shots) ? volley : Arrays.copyOf(volley, picked);
+	}
+
+	/**
+	 * Picks one shot of a volley from the current counters and volley board,
+	 * by phase as in chooseShot.
+	 *
+	 * @return row * 10 + col of the chosen cell
+	 */
+	private int pickVolleyShot()
+	{
+		isHunt = clusterTargeting ? !targeter.hasOpenHits()
+				: possibleHits.isEmpty();
+		if (isHunt)
+		{
+			setHuntShot();
+		}
+		else if (clusterTargeting)
+		{
+			int shot = targeter.chooseShot(rawBoard, boardSpaces);
+			if (shot >= 0)
+			{
+				return shot;
+			}
+			// Every placement over the hits is covered by the volley already.
+			setHuntShot();
+		}
+		else
+		{
+			// Skip stacked points the volley has already picked.
+			while (!possibleHits.isEmpty())
+			{
+				ShipPoint currPoint = possibleHits.pop();
+				if (Metrics.enabled)
+				{
+					Metrics.STACK_POPS.increment();
+				}
+				char curr = rawBoard[currPoint.getRow()][currPoint.getCol()];
+				if (curr != 'X' && curr != 'O')
+				{
+					return currPoint.getRow() * 10 + currPoint.getCol();
+				}
+			}
+			setHuntShot();
+		}
+		return row * 10 + col;
+	}
+
+	/**
+	 * Takes every still-possible placement through a cell off the counters,
+	 * as if the cell had been shot and missed. The counters end up as
+	 * setBoardSpaces would set them with the cell blocked.
+	 *
+	 * @param row row of the cell
+	 * @param col col of the cell
+	 */
+	private void removePlacementsThrough(int row, int col)
+	{
+		for (Integer length : extantShipLengths)
+		{
+			for (int start = Math.max(0, col - length + 1);
+				 start <= Math.min(col, 10 - length); ++start)
+			{
+				if (isPlaceable(row, start, length, true))
+				{
+					removeSpaceCounters(row, start, length, true);
+				}
+			}
+			for (int start = Math.max(0, row - length + 1);
+				 start <= Math.min(row, 10 - length); ++start)
+			{
+				if (isPlaceable(start, col, length, false))
+				{
+					removeSpaceCounters(start, col, length, false);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns whether any cell of the board being planned on is unshot.
+	 *
+	 * @return true if there is a cell left to shoot
+	 */
+	private boolean hasUnshotCell()
+	{
+		for (int i = 0; i < 10; ++i)
+		{
+			for (int j = 0; j < 10; ++j)
+			{
+				if (rawBoard[i][j] != 'X' && rawBoard[i][j] != 'O')
+				{
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Updates targeting state with the outcome of the shot just chosen.
+	 *
+	 * @param shotRow row of the shot
+	 * @param shotCol col of the shot
+	 * @param outcome outcome returned by updateBoardAfterShot
+	 */
+	@Override
+	public void recordShot(int shotRow, int shotCol, ShotOutcome outcome)
+	{
+		row = shotRow;
+		col = shotCol;
+		int previousSinceSink = shotsSinceSink;
+		shotCount++;
+		shotsSinceSink++;
+
+		// Whether ship has been sunk.
+		boolean sunk = false;
+
+		// A Target phase shot that turned out not to be part of a ship.
+		if (!isHunt && !outcome.isHit() && Metrics.enabled)
+		{
+			Metrics.TARGET_MISSES.increment();
+			if (!clusterTargeting)
+			{
+				Metrics.STACK_WASTED_POPS.increment();
+			}
+		}
+
+		// If shot was a hit.
+		int ship = outcome.getShip();
+		int lengthIndex = 0;
+		if (outcome.isHit())
+		{
+			lengthIndex = extantShipLengths.indexOf(FleetLayout.SIZES[ship]);
+			sunk = outcome.isSunk();
+			// Cluster targeting has no use for updateOnHit's lists and stack.
+			if (clusterTargeting)
+			{
+				if (sunk)
+				{
+					recordSink(outcome.getShipName());
+				}
+			}
+			else
+			{
+				updateOnHit(outcome);
+			}
+			targeter.recordHit(row, col, ship, sunk);
+		}
+		journalShot(ship, sunk, lengthIndex, previousSinceSink);
+
+		// The targeter needs no stack.
+		if (clusterTargeting)
+		{
+			return;
+		}
 
 		/*
 		 * Only add plausible candidates to stack if still in Target phase and
@@ -197,26 +856,165 @@ public class Computer
 			// If shot was successful.
 			if (rawBoard[row][col] == 'X')
 			{
-				currPoint = new ShipPoint(type, row, col);
+				// Placeholder type; would be cheating to look at real type.
+				ShipPoint currPoint = new ShipPoint('X', row, col);
 				// Add feasible points around successful hit to stack.
 				addPointsAround(currPoint, orientation);
 			}
 		}
-		/*
-		 * If still in target phase and did just sink a ship.
-		 * Go back to a point of another ship that was hit and push possible
-		 * hits to stack using that.
-		 */
-		else if (!shipsTargeted.isEmpty())
-		{
-			ArrayList<Object> pointLeft;
-			pointLeft = pointsTargeted.get(0);
-			int rowLeft = (Integer)pointLeft.get(1);
-			int colLeft = (Integer)pointLeft.get(2);
+		/*
+		 * If still in target phase and did just sink a ship.
+		 * Go back to a point of another ship that was hit and push possible
+		 * hits to stack using that.
+		 */
+		else if (!shipsTargeted.isEmpty())
+		{
+			ArrayList<Object> pointLeft;
+			pointLeft = pointsTargeted.get(0);
+			int rowLeft = (Integer)pointLeft.get(1);
+			int colLeft = (Integer)pointLeft.get(2);
+
+			ShipPoint shipPointLeft = new ShipPoint('Z', rowLeft, colLeft);
+			addPointsAround(shipPointLeft, orientation);
+		}
+	}
+
+	/**
+	 * Fills in a Flight Recorder decision event for the shot just chosen.
+	 *
+	 * @param decision   the timed event
+	 * @param isHunt     true if chosen in the Hunt phase
+	 * @param candidates cells the Hunt phase evaluated (as counted in
+	 *                   Metrics.HUNT_CELLS_EVALUATED), the size of
+	 *                   possibleHits before choosing, or the number of cells
+	 *                   scored by the cluster targeter
+	 */
+	private void describeDecision(AiDecisionEvent decision, boolean isHunt,
+								  int candidates)
+	{
+		decision.phase = isHunt ? "Hunt" : "Target";
+		decision.cell = String.valueOf(row + 1) + columnHeaders[col];
+		decision.density = boardSpaces[row][col].getCounter();
+		decision.tieBreak = boardSpaces[row][col].getNeighboringSum();
+		decision.candidates = candidates;
+		decision.stackDepth = possibleHits.size();
+	}
+
+	/**
+	 * Returns the journal position, for rolling back to later, e.g. before
+	 * trying hypothetical shots in a lookahead search. O(1); nothing is
+	 * copied. Take it between turns, i.e., after recordShot.
+	 * <p>
+	 * Needs cluster targeting: the stack of possible hits isn't journaled.
+	 * The endgame solver's give-up heuristic isn't either, so with the
+	 * solver on it may decline a position sooner after a rollback.
+	 *
+	 * @return checkpoint to pass to rollback
+	 */
+	public int checkpoint()
+	{
+		if (!clusterTargeting)
+		{
+			throw new IllegalStateException("Checkpoints need cluster " +
+					"targeting.");
+		}
+		return journalSize;
+	}
+
+	/**
+	 * Undoes every shot recorded since a checkpoint, newest first, so the
+	 * next chooseShot sees exactly the state it would have then. Allocates
+	 * nothing. Roll the board back to its matching checkpoint too.
+	 *
+	 * @param checkpoint value returned by checkpoint
+	 */
+	public void rollback(int checkpoint)
+	{
+		if (checkpoint < 0 || checkpoint > journalSize)
+		{
+			throw new IllegalArgumentException("Not a current checkpoint: " +
+					checkpoint);
+		}
+		while (journalSize > checkpoint)
+		{
+			long entry = journal[--journalSize];
+			// A parity lattice rebuild.
+			if ((entry & 1) != 0)
+			{
+				paritySpacing = (int)(entry >>> 1) & 0x7;
+				buildParityLattice((int)(entry >>> 4) & 0x7);
+				continue;
+			}
+
+			int cell = (int)(entry >>> 1) & 0x7F;
+			int ship = (int)(entry >>> 8) & 0x7;
+			boolean sunk = ((entry >>> 11) & 1) != 0;
+			shotCount--;
+			shotsSinceSink = (int)(entry >>> 12) & 0xFF;
+			if (ship != 0x7)
+			{
+				targeter.undoHit(cell / 10, cell % 10, ship);
+				if (sunk)
+				{
+					extantShipLengths.add((int)(entry >>> 20) & 0x7,
+							FleetLayout.SIZES[ship]);
+				}
+			}
+		}
+	}
 
-			ShipPoint shipPointLeft = new ShipPoint('Z', rowLeft, colLeft);
-			addPointsAround(shipPointLeft, orientation);
+	/**
+	 * Journals the shot just recorded. Entry bits: 0 = 0 (a shot),
+	 * 1 - 7 cell, 8 - 10 ship hit (7 for none), 11 sunk, 12 - 19
+	 * shotsSinceSink before the shot, 20 - 22 where the sunk ship's length
+	 * was in extantShipLengths.
+	 *
+	 * @param ship              ship hit, or -1
+	 * @param sunk              true if the shot sank it
+	 * @param lengthIndex       index of the sunk ship's length
+	 * @param previousSinceSink shotsSinceSink before the shot
+	 */
+	private void journalShot(int ship, boolean sunk, int lengthIndex,
+							 int previousSinceSink)
+	{
+		addJournalEntry((long)(row * 10 + col) << 1
+				| (long)(ship & 0x7) << 8
+				| (sunk ? 1L : 0L) << 11
+				| (long)Math.min(previousSinceSink, 0xFF) << 12
+				| (long)(lengthIndex & 0x7) << 20);
+	}
+
+	/**
+	 * Journals the parity lattice about to be replaced. Entry bits: 0 = 1
+	 * (a lattice), 1 - 3 spacing, 4 - 6 class.
+	 */
+	private void journalLattice()
+	{
+		addJournalEntry(1L | (long)paritySpacing << 1 | (long)parityClass << 4);
+	}
+
+	/**
+	 * Appends a journal entry.
+	 *
+	 * @param entry packed entry
+	 */
+	private void addJournalEntry(long entry)
+	{
+		if (journalSize == journal.length)
+		{
+			journal = Arrays.copyOf(journal, 2 * journal.length);
 		}
+		journal[journalSize++] = entry;
+	}
+
+	/**
+	 * Returns the number of shots fired this game.
+	 *
+	 * @return shots fired so far
+	 */
+	public int getShotCount()
+	{
+		return shotCount;
 	}
 
 	/**
@@ -241,6 +1039,13 @@ public class Computer
 					boardSpaces[i][j].clearNeighboringSum();
 				}
 			}
+
+			// Let the kernel do both directions at once if there is one.
+			if (densityKernel != null)
+			{
+				setBoardSpacesWithKernel();
+				return;
+			}
 		}
 
 		boolean isPlaceable;
@@ -280,6 +1085,30 @@ public class Computer
 		}
 	}
 
+	/**
+	 * Sets BoardSpace counters using the density kernel instead of walking
+	 * each placement.
+	 */
+	private void setBoardSpacesWithKernel()
+	{
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			char curr = rawBoard[cell / 10][cell % 10];
+			kernelBlocked[cell] = (curr == 'X' || curr == 'O') ? 1 : 0;
+		}
+		int[] lengths = new int[extantShipLengths.size()];
+		for (int i = 0; i < lengths.length; ++i)
+		{
+			lengths[i] = extantShipLengths.get(i);
+		}
+		densityKernel.computeCounters(kernelBlocked, 10, 10, lengths,
+				kernelCounters);
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			boardSpaces[cell / 10][cell % 10].setCounter(kernelCounters[cell]);
+		}
+	}
+
 	/**
 	 * Calculates whether ship of given length can be placed.
 	 *
@@ -349,49 +1178,349 @@ public class Computer
 		}
 	}
 
+	/**
+	 * Decrement BoardSpace counter values for a placement that is no longer
+	 * possible.
+	 *
+	 * @param row          starting point's row value
+	 * @param col          starting point's col value
+	 * @param length       length of ship
+	 * @param isHorizontal true if going horizontally, false if vertically
+	 */
+	private void removeSpaceCounters(int row, int col, int length,
+									 boolean isHorizontal)
+	{
+		for (int i = 0; i < length; ++i)
+		{
+			boardSpaces[row][col].decrementCounter();
+			if (isHorizontal)
+			{
+				col++;
+			}
+			// Else go vertically.
+			else
+			{
+				row++;
+			}
+		}
+	}
+
 	/**
 	 * Get the best position to shoot at next in the Hunt phase based on the
 	 * above described probability density function.
+	 * <p>
+	 * With parity hunting on, only cells on the parity lattice are
+	 * candidates (see updateParityLattice). The best candidate is the one
+	 * with the highest counter, then the highest neighbor sum, then the
+	 * first in row-major order -- the same shot sorting all BoardSpaces in
+	 * descending order would give, without building and sorting a list.
+	 *
+	 * @return cells evaluated
 	 */
-	private void setHuntShot()
+	private int setHuntShot()
 	{
+		if (huntWeights != null)
+		{
+			return setWeightedHuntShot();
+		}
+
+		boolean useLattice = parityHunting && updateParityLattice();
+
 		// In case the highest counter value is shared.
-		setSpaceNeighborSums();
+		setSpaceNeighborSums(useLattice);
 
-		ArrayList<BoardSpace> flatList = new ArrayList<>();
+		BoardSpace best = null;
+		int evaluated = 0;
 		for (int i = 0; i < 10; ++i)
 		{
-			Collections.addAll(flatList, boardSpaces[i]);
+			for (int j = 0; j < 10; ++j)
+			{
+				// Skip cells already shot at, or off the lattice.
+				if (rawBoard[i][j] == 'X' || rawBoard[i][j] == 'O'
+						|| (useLattice && !isOnLattice(i * 10 + j)))
+				{
+					continue;
+				}
+				evaluated++;
+				if (best == null || isBetterHunt(boardSpaces[i][j], best))
+				{
+					best = boardSpaces[i][j];
+				}
+			}
+		}
+		countEvaluated(evaluated);
+
+		row = best.getRow();
+		col = best.getCol();
+		return evaluated;
+	}
+
+	/**
+	 * Whether a cell is a better Hunt phase shot than the best so far: by
+	 * BoardSpace.compareTo, or with a placement prior, by weighted counter
+	 * and then neighbor sum.
+	 *
+	 * @param curr candidate cell
+	 * @param best best cell so far
+	 * @return     true if curr should replace best
+	 */
+	private boolean isBetterHunt(BoardSpace curr, BoardSpace best)
+	{
+		if (placementPrior == null)
+		{
+			return curr.compareTo(best) > 0;
+		}
+		double currScore = curr.getCounter()
+				* placementPrior[curr.getRow() * 10 + curr.getCol()];
+		double bestScore = best.getCounter()
+				* placementPrior[best.getRow() * 10 + best.getCol()];
+		return currScore > bestScore || (currScore == bestScore
+				&& curr.getNeighboringSum() > best.getNeighboringSum());
+	}
+
+	/**
+	 * Hunt phase shot by weighted score (see HuntWeights). Every unshot cell
+	 * is a candidate; with parity hunting on, lattice cells get the parity
+	 * bonus instead of being the only candidates. Ties go to the first cell
+	 * in row-major order.
+	 *
+	 * @return cells evaluated
+	 */
+	private int setWeightedHuntShot()
+	{
+		boolean useLattice = parityHunting && updateParityLattice();
+		setSpaceNeighborSums(false);
+
+		double bestScore = 0;
+		int evaluated = 0;
+		for (int i = 0; i < 10; ++i)
+		{
+			for (int j = 0; j < 10; ++j)
+			{
+				if (rawBoard[i][j] == 'X' || rawBoard[i][j] == 'O')
+				{
+					continue;
+				}
+				BoardSpace curr = boardSpaces[i][j];
+				double counter = (placementPrior == null) ? curr.getCounter()
+						: curr.getCounter() * placementPrior[i * 10 + j];
+				double score = huntWeights.score(counter,
+						curr.getNeighboringSum(), i, j,
+						useLattice && isOnLattice(i * 10 + j));
+				if (evaluated == 0 || score > bestScore)
+				{
+					bestScore = score;
+					row = i;
+					col = j;
+				}
+				evaluated++;
+			}
+		}
+		countEvaluated(evaluated);
+		return evaluated;
+	}
+
+	/**
+	 * Turns the exact endgame solver on or off.
+	 *
+	 * @param enabled false to play the endgame by density too
+	 */
+	public void setEndgameSolving(boolean enabled)
+	{
+		discardPondering();
+		endgame = enabled ? new EndgameSolver() : null;
+	}
+
+	/**
+	 * Scores Hunt phase cells with weights instead of BoardSpace.compareTo.
+	 *
+	 * @param weights weights to use, or null for compareTo's ordering
+	 */
+	public void setHuntWeights(HuntWeights weights)
+	{
+		discardPondering();
+		huntWeights = weights;
+	}
+
+	/**
+	 * Biases the Hunt phase by where the opponent has put ships before. The
+	 * weights are kept until changed, including across reset.
+	 *
+	 * @param weights per-cell multipliers from PlacementPrior.weights, or
+	 *                null to hunt by density alone
+	 */
+	public void setPlacementPrior(double[] weights)
+	{
+		if (weights != null && weights.length != 100)
+		{
+			throw new IllegalArgumentException("Need 100 prior weights, got " +
+					weights.length);
+		}
+		discardPondering();
+		placementPrior = weights;
+	}
+
+	/**
+	 * Biases the Hunt phase towards where GameBoard's randomized placement
+	 * tends to put ships, for play against computer-generated boards. The
+	 * shipped OccupancyTable is read on first use.
+	 *
+	 * @throws IOException if the table can't be read
+	 */
+	public void useRandomizedBoardPrior() throws IOException
+	{
+		setPlacementPrior(OccupancyTable.shipped().weights(1));
+	}
+
+	/**
+	 * Computes BoardSpace counters with a DensityKernel instead of the
+	 * built-in placement walk. The results are the same.
+	 *
+	 * @param kernel kernel to use, or null for the built-in walk
+	 */
+	public void setDensityKernel(DensityKernel kernel)
+	{
+		discardPondering();
+		densityKernel = kernel;
+	}
+
+	/**
+	 * Turns hit-aware cluster targeting on or off.
+	 *
+	 * @param enabled false to use the stack of possible hits instead
+	 */
+	public void setClusterTargeting(boolean enabled)
+	{
+		discardPondering();
+		clusterTargeting = enabled;
+	}
+
+	/**
+	 * Turns parity-lattice hunting on or off.
+	 *
+	 * @param enabled false to consider every unshot cell in the Hunt phase
+	 */
+	public void setParityHunting(boolean enabled)
+	{
+		discardPondering();
+		parityHunting = enabled;
+	}
+
+	/**
+	 * Keeps the parity lattice in step with the smallest extant ship.
+	 * <p>
+	 * Every horizontal or vertical ship of length at least n covers exactly
+	 * one cell of each class of (row + col) % n, so the Hunt phase only
+	 * needs to search one class. When the smallest ship sinks, the spacing
+	 * grows and the lattice is rebuilt, using whichever class has the
+	 * fewest cells left to shoot.
+	 *
+	 * @return true if the lattice has any unshot cell left
+	 */
+	private boolean updateParityLattice()
+	{
+		if (extantShipLengths.isEmpty())
+		{
+			return false;
+		}
+		int spacing = Collections.min(extantShipLengths);
+		if (spacing != paritySpacing)
+		{
+			journalLattice();
+			paritySpacing = spacing;
+
+			// Count unshot cells in each class.
+			int[] open = new int[spacing];
+			for (int i = 0; i < 10; ++i)
+			{
+				for (int j = 0; j < 10; ++j)
+				{
+					if (rawBoard[i][j] != 'X' && rawBoard[i][j] != 'O')
+					{
+						open[(i + j) % spacing]++;
+					}
+				}
+			}
+			int best = 0;
+			for (int k = 1; k < spacing; ++k)
+			{
+				if (open[k] < open[best])
+				{
+					best = k;
+				}
+			}
+			buildParityLattice(best);
 		}
-		/*
-		 * Sort in descending order based on counter then on neighbor sum.
-		 * Now the BoardSpace with the highest counter etc. is at the beginning.
-		 */
-		Collections.sort(flatList, Collections.reverseOrder());
 
-		row = flatList.get(0).getRow();
-		col = flatList.get(0).getCol();
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			char curr = rawBoard[cell / 10][cell % 10];
+			if (isOnLattice(cell) && curr != 'X' && curr != 'O')
+			{
+				return true;
+			}
+		}
+		return false;
+	}
 
-		// Just in case have already shot there.
-		int index = 0;
-		while ((rawBoard[row][col] == 'X') || (rawBoard[row][col] == 'O'))
+	/**
+	 * Sets the lattice masks to one class of (row + col) % paritySpacing.
+	 *
+	 * @param cls class to search
+	 */
+	private void buildParityLattice(int cls)
+	{
+		parityClass = cls;
+		parityLow = 0;
+		parityHigh = 0;
+		if (paritySpacing == 0)
+		{
+			return;
+		}
+		for (int cell = 0; cell < 100; ++cell)
 		{
-			index++;
-			row = flatList.get(index).getRow();
-			col = flatList.get(index).getCol();
+			if ((cell / 10 + cell % 10) % paritySpacing == cls)
+			{
+				if (cell < 64)
+				{
+					parityLow |= 1L << cell;
+				}
+				else
+				{
+					parityHigh |= 1L << (cell - 64);
+				}
+			}
 		}
 	}
 
+	/**
+	 * Returns whether a cell is on the current parity lattice.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     true if on the lattice
+	 */
+	private boolean isOnLattice(int cell)
+	{
+		return (cell < 64) ? (parityLow & (1L << cell)) != 0
+				: (parityHigh & (1L << (cell - 64))) != 0;
+	}
+
 	/**
 	 * Tiebreaker in compareTo method. Set's each BoardSpaces neighbor sum,
 	 * which is the sum of its neighbors' counter values.
+	 *
+	 * @param latticeOnly true to only set sums for parity lattice cells
 	 */
-	private void setSpaceNeighborSums()
+	private void setSpaceNeighborSums(boolean latticeOnly)
 	{
 		for (int row = 0; row < 10; ++row)
 		{
 			for (int col = 0; col < 10; ++col)
 			{
+				if (latticeOnly && !isOnLattice(row * 10 + col))
+				{
+					continue;
+				}
 				BoardSpace curr = boardSpaces[row][col];
 				int sum = 0;
 				// Add north neighbor's counter.
@@ -422,17 +1551,13 @@ public class Computer
 	/**
 	 * Updates on shot being a hit: gets orientation, figures out if sunk, etc.
 	 *
-	 * @param message the message printed from a shot
-	 * @return        true if ship was sunk from hit
+	 * @param outcome outcome of the hit
 	 */
-	private boolean updateOnHit(String message)
+	private void updateOnHit(ShotOutcome outcome)
 	{
-		final String shipName;
-		boolean sunk;
-
 		// Get ship name and whether it was sunk.
-		shipName = getNameFromMessage(message);
-		sunk = isSunk(message);
+		final String shipName = outcome.getShipName();
+		boolean sunk = outcome.isSunk();
 
 		// Array of ship type, row, col. Double brace initialized.
 		ArrayList<Object> pointHit = new ArrayList<Object>()
@@ -487,63 +1612,12 @@ public class Computer
 			while (!possibleHits.empty())
 			{
 				possibleHits.pop();
+				if (Metrics.enabled)
+				{
+					Metrics.STACK_POPS.increment();
+				}
 			}
 		}
-		return sunk;
-	}
-
-	/**
-	 * Returns the name of the ship that was hit.
-	 *
-	 * @param message part of the message that is printed
-	 * @return        name of ship hit
-	 */
-	private String getNameFromMessage(String message)
-	{
-		String toReturn = "";
-		if (message.contains("Carrier"))
-		{
-			toReturn = "Carrier";
-		}
-		else if (message.contains("Battleship"))
-		{
-			toReturn = "Battleship";
-		}
-		else if (message.contains("Cruiser"))
-		{
-			toReturn = "Cruiser";
-		}
-		else if (message.contains("Submarine"))
-		{
-			toReturn = "Submarine";
-		}
-		else if (message.contains("Destroyer"))
-		{
-			toReturn = "Destroyer";
-		}
-		return toReturn;
-	}
-
-	/**
-	 * Returns whether ship was sunk or not.
-	 *
-	 * @param message part of the message that is printed
-	 * @return        true if ship was sunk
-	 */
-	private boolean isSunk(String message)
-	{
-		boolean toReturn = false;
-
-		// Based on the getHitMessage method.
-		if (message.contains("but did not sink"))
-		{
-			toReturn = false;
-		}
-		else if (message.contains("and sunk"))
-		{
-			toReturn = true;
-		}
-		return toReturn;
 	}
 
 	/**
@@ -656,6 +1730,22 @@ public class Computer
 		// Reset orientation since ship sunk.
 		orientation = "";
 
+		recordSink(name);
+	}
+
+	/**
+	 * Bookkeeping for a sunk ship that both targeting engines need.
+	 *
+	 * @param name sunk ship's name
+	 */
+	private void recordSink(String name)
+	{
+		if (Metrics.enabled)
+		{
+			Metrics.SHOTS_PER_SHIP.record(shotsSinceSink);
+		}
+		shotsSinceSink = 0;
+
 		// Remove sunk ship's length.
 		updateExtantShipLengths(name);
 	}
@@ -704,6 +1794,17 @@ public class Computer
 		}
 	}
 
+	/**
+	 * Counts a push onto possibleHits if recording metrics.
+	 */
+	private void countPush()
+	{
+		if (Metrics.enabled)
+		{
+			Metrics.STACK_PUSHES.increment();
+		}
+	}
+
 	/**
 	 * Pushes onto stack the points around origin hit that are legal and not
 	 * yet attempted.
@@ -736,6 +1837,7 @@ public class Computer
 			{
 				// Push to stack then.
 				possibleHits.push(currPoint);
+				countPush();
 			}
 		}
 		/*
@@ -755,6 +1857,7 @@ public class Computer
 			{
 				// Push to stack then.
 				possibleHits.push(currPoint);
+				countPush();
 			}
 		}
 		// South.
@@ -767,6 +1870,7 @@ public class Computer
 					rawBoard[newRow][originCol] != 'O')
 			{
 				possibleHits.push(currPoint);
+				countPush();
 			}
 		}
 		// East.
@@ -779,6 +1883,7 @@ public class Computer
 					rawBoard[originRow][newCol] != 'O')
 			{
 				possibleHits.push(currPoint);
+				countPush();
 			}
 		}
 	}
@@ -0,0 +1,257 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      EventBus subscriber that renders a game on the console from its
+ *      events alone: each shot's miss, hit or sink message, a one-line
+ *      summary instead for each Salvo volley, e.g.
+ *
+ *          Your volley: 3B miss, 4C hit Cruiser, 5D sank Destroyer.
+ *
+ *      and both boards, ships uncovered, when a game ends. The game thread
+ *      awaits the subscription before its next prompt. It keeps its own
+ *      copy of each board, built from placements and shots, so it never
+ *      reads a GameBoard the game thread is changing.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Console output for shots and game ends.
+ */
+public class ConsoleRenderer implements GameEventHandler
+{
+	/**
+	 * To convert col value to column letter.
+	 */
+	private static final String COLUMNS = "ABCDEFGHIJ";
+
+	/**
+	 * Board size.
+	 */
+	private static final int SIZE = 10;
+
+	/**
+	 * Where output goes.
+	 */
+	private final PrintStream out;
+
+	/**
+	 * Each board as GameBoard prints it, by board id. Subscriber thread
+	 * only.
+	 */
+	private final char[][][] boards = new char[2][SIZE][SIZE];
+
+	/**
+	 * Summary of the volley being resolved.
+	 */
+	private final StringBuilder volley = new StringBuilder();
+
+	/**
+	 * Shots of the current volley still to come; 0 when not in a volley.
+	 */
+	private int volleyLeft = 0;
+
+	/**
+	 * Creates renderer.
+	 *
+	 * @param out where to print, e.g. System.out
+	 */
+	public ConsoleRenderer(PrintStream out)
+	{
+		this.out = out;
+		clearBoards();
+	}
+
+	/**
+	 * Renders one event.
+	 *
+	 * @param sequence event number
+	 * @param type     event type
+	 * @param board    board id
+	 * @param cell     cell, or -1
+	 * @param ship     ship index, or -1
+	 * @param value    type-specific value
+	 */
+	@Override
+	public void onEvent(long sequence, GameEventType type, int board, int cell,
+						int ship, int value)
+	{
+		switch (type)
+		{
+			case PLACEMENT:
+				place(board, cell, ship, value != 0);
+				break;
+			case VOLLEY:
+				volley.setLength(0);
+				volley.append((board == EventBus.COMPUTER_BOARD)
+						? "Your volley:" : "The computer's volley:");
+				volleyLeft = value;
+				break;
+			case MISS:
+			case HIT:
+			case SINK:
+				recordShot(type, board, cell, ship, value);
+				break;
+			case GAME_OVER:
+				printBoards();
+				clearBoards();
+				break;
+			default:
+				break;
+		}
+	}
+
+	/**
+	 * Marks a ship on a board.
+	 *
+	 * @param board    board id
+	 * @param origin   top-left cell, row * 10 + col
+	 * @param ship     ship index
+	 * @param vertical true if it runs down from origin, else across
+	 */
+	private void place(int board, int origin, int ship, boolean vertical)
+	{
+		int row = origin / 10;
+		int col = origin % 10;
+		for (int i = 0; i < FleetLayout.SIZES[ship]; ++i)
+		{
+			boards[board][vertical ? row + i : row][vertical ? col
+					: col + i] = FleetLayout.TYPES[ship];
+		}
+	}
+
+	/**
+	 * Marks a shot and prints it or, in a volley, adds it to the summary,
+	 * printing the summary after the volley's last shot.
+	 *
+	 * @param type  MISS, HIT or SINK
+	 * @param board board id
+	 * @param cell  row * 10 + col
+	 * @param ship  ship index, or -1
+	 * @param value 1 for a repeated shot, else 0
+	 */
+	private void recordShot(GameEventType type, int board, int cell,
+							int ship, int value)
+	{
+		// A repeat leaves its mark as it was.
+		if (value == 0)
+		{
+			boards[board][cell / 10][cell % 10] =
+					(type == GameEventType.MISS) ? 'O' : 'X';
+		}
+		if (volleyLeft == 0)
+		{
+			printShot(type, board, cell, ship, value);
+			return;
+		}
+
+		volley.append(' ').append(cell / 10 + 1).append(COLUMNS.charAt(
+				cell % 10));
+		if (type == GameEventType.MISS)
+		{
+			volley.append((value == 0) ? " miss" : " repeat");
+		}
+		else
+		{
+			volley.append((type == GameEventType.SINK) ? " sank " : " hit ")
+					.append(FleetLayout.NAMES[ship]);
+		}
+		volleyLeft--;
+		volley.append((volleyLeft == 0) ? '.' : ',');
+		if (volleyLeft == 0)
+		{
+			out.println(volley);
+		}
+	}
+
+	/**
+	 * Prints a single shot's message.
+	 *
+	 * @param type  MISS, HIT or SINK
+	 * @param board board id
+	 * @param cell  row * 10 + col
+	 * @param ship  ship index, or -1
+	 * @param value 1 for a repeated shot, else 0
+	 */
+	private void printShot(GameEventType type, int board, int cell, int ship,
+						   int value)
+	{
+		int rawRow = cell / 10 + 1;
+		char rawCol = COLUMNS.charAt(cell % 10);
+		boolean belongsToComputer = board == EventBus.COMPUTER_BOARD;
+
+		// Already shot here. Neither hit or miss.
+		if (type == GameEventType.MISS && value != 0)
+		{
+			out.printf("\nAlready shot at %d%s!\n", rawRow, rawCol);
+		}
+		// Print out differing messages based on whether computer's or not.
+		else if (type == GameEventType.MISS && belongsToComputer)
+		{
+			out.printf("\n%d%s was a miss. Better luck next time!\n", rawRow,
+					rawCol);
+		}
+		else if (type == GameEventType.MISS)
+		{
+			out.printf("The computer missed with %d%s!\n", rawRow, rawCol);
+		}
+		else
+		{
+			out.printf(belongsToComputer
+					? "\n%d%s was a hit. Congratulations, you struck a %s%s"
+					: "The computer hit with %d%s. \nUnfortunately, it " +
+					"struck your %s%s", rawRow, rawCol, FleetLayout.NAMES[ship],
+					(type == GameEventType.SINK) ? " and sunk it!\n"
+							: ".. but did not sink it.\n");
+		}
+	}
+
+	/**
+	 * Prints both boards side by side, as Game does, but with the
+	 * computer's ships showing.
+	 */
+	private void printBoards()
+	{
+		out.printf("\n%-20s%-20s\n\n", "Your Board", "Computer's Board");
+		out.printf("%-20s%-20s\n", "  " + COLUMNS, "  " + COLUMNS);
+		for (int row = 0; row < SIZE; ++row)
+		{
+			out.printf("%-20s%-20s\n", line(EventBus.HUMAN_BOARD, row),
+					line(EventBus.COMPUTER_BOARD, row));
+		}
+	}
+
+	/**
+	 * Returns one row of a board as GameBoard.toString prints it.
+	 *
+	 * @param board board id
+	 * @param row   row index
+	 * @return      the row, with its number
+	 */
+	private String line(int board, int row)
+	{
+		// Need blank space because of the 10th row.
+		return ((row != 9) ? " " : "") + (row + 1)
+				+ new String(boards[board][row]);
+	}
+
+	/**
+	 * Empties both boards for the next game's placements.
+	 */
+	private void clearBoards()
+	{
+		for (char[][] board : boards)
+		{
+			for (char[] row : board)
+			{
+				Arrays.fill(row, ' ');
+			}
+		}
+	}
+}
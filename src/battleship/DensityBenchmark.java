@@ -0,0 +1,157 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Benchmarks DensityKernel implementations per board size, after
+ *      checking they agree with each other.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game, plus
+ * VectorDensityKernel as described in its file to include it):
+ *      java --add-modules jdk.incubator.vector -cp bin
+ *              battleship.DensityBenchmark [sizes]
+ *      sizes is a comma-separated list of square board sizes; the default is
+ *      10,32,64,128,256,512,1024. Each board has 30% of its cells blocked.
+ *      Speed-ups are relative to the scalar kernel. The parallel kernel only
+ *      splits boards of ParallelDensityKernel.PARALLEL_CELLS or more.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Per-board-size timings of the density kernels.
+ */
+public class DensityBenchmark
+{
+	/**
+	 * Fleet lengths placed on every board.
+	 */
+	static final int[] LENGTHS = {5, 4, 3, 3, 2};
+
+	/**
+	 * Runs every available kernel on every size and prints a table.
+	 *
+	 * @param args optional comma-separated board sizes
+	 */
+	public static void main(String[] args)
+	{
+		String sizeList = (args.length > 0) ? args[0]
+				: "10,32,64,128,256,512,1024";
+
+		List<DensityKernel> kernels = new ArrayList<>();
+		kernels.add(new ScalarDensityKernel());
+		DensityKernel fastest = DensityKernel.best();
+		if (fastest.getClass() != ScalarDensityKernel.class)
+		{
+			kernels.add(fastest);
+		}
+		else
+		{
+			System.out.println("Vector API kernel not available.");
+		}
+		kernels.add(new ParallelDensityKernel());
+
+		System.out.printf("%-8s", "size");
+		for (DensityKernel kernel : kernels)
+		{
+			System.out.printf("%16s", kernel.getName() + " ns");
+		}
+		for (int k = 1; k < kernels.size(); ++k)
+		{
+			System.out.printf("%14s", "x " + kernels.get(k).getName());
+		}
+		System.out.println();
+
+		for (String sizeText : sizeList.split(","))
+		{
+			int size = Integer.parseInt(sizeText.trim());
+			int[] blocked = randomBoard(size, new Random(size));
+			long[] nanos = new long[kernels.size()];
+			int[][] counters = new int[kernels.size()][size * size];
+			int[][] sums = new int[kernels.size()][size * size];
+			int[] best = new int[kernels.size()];
+
+			for (int k = 0; k < kernels.size(); ++k)
+			{
+				nanos[k] = time(kernels.get(k), blocked, size, counters[k],
+						sums[k]);
+				best[k] = kernels.get(k).selectBest(blocked, counters[k],
+						sums[k], size, size);
+			}
+			for (int k = 1; k < kernels.size(); ++k)
+			{
+				if (!Arrays.equals(counters[0], counters[k])
+						|| !Arrays.equals(sums[0], sums[k])
+						|| best[0] != best[k])
+				{
+					System.out.println(kernels.get(k).getName() + " disagrees " +
+							"with scalar on size " + size + ". Exiting.");
+					System.exit(1);
+				}
+			}
+
+			System.out.printf("%-8d", size);
+			for (long nano : nanos)
+			{
+				System.out.printf("%16d", nano);
+			}
+			for (int k = 1; k < kernels.size(); ++k)
+			{
+				System.out.printf("%14.2f", (double)nanos[0] / nanos[k]);
+			}
+			System.out.println();
+		}
+	}
+
+	/**
+	 * Random square board with 30% of cells blocked.
+	 *
+	 * @param size side length
+	 * @param rand source of randomness
+	 * @return     blocked cells
+	 */
+	static int[] randomBoard(int size, Random rand)
+	{
+		int[] blocked = new int[size * size];
+		for (int i = 0; i < blocked.length; ++i)
+		{
+			blocked[i] = (rand.nextInt(10) < 3) ? 1 : 0;
+		}
+		return blocked;
+	}
+
+	/**
+	 * Best-of-several time for one full density pass (counters, neighbor
+	 * sums and best cell) after warming up.
+	 *
+	 * @param kernel   kernel to time
+	 * @param blocked  board
+	 * @param size     side length
+	 * @param counters output counters, for comparing kernels
+	 * @param sums     output neighbor sums, for comparing kernels
+	 * @return         nanoseconds per pass
+	 */
+	static long time(DensityKernel kernel, int[] blocked, int size,
+					 int[] counters, int[] sums)
+	{
+		// Enough repetitions for roughly the same work on every size.
+		int reps = Math.max(5, 20_000_000 / (size * size));
+		long best = Long.MAX_VALUE;
+
+		for (int round = 0; round < 5; ++round)
+		{
+			long start = System.nanoTime();
+			for (int rep = 0; rep < reps; ++rep)
+			{
+				kernel.computeCounters(blocked, size, size, LENGTHS, counters);
+				kernel.computeNeighborSums(counters, size, size, sums);
+				kernel.selectBest(blocked, counters, sums, size, size);
+			}
+			best = Math.min(best, (System.nanoTime() - start) / reps);
+		}
+		return best;
+	}
+}
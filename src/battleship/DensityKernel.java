@@ -0,0 +1,142 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      The data-parallel core of the Hunt phase density function, for
+ *      boards of any size: placement counts, neighbor sums and the best
+ *      cell. Implementations trade set-up cost for throughput on big boards.
+ * Board representation:
+ *          Boards are flat, row-major arrays: cell (row, col) is at index
+ *      row * cols + col. A blocked cell (1) is one no ship can pass through,
+ *      i.e., a miss or a hit ('O' or 'X' to the Computer); free cells are 0.
+ *
+ *          The counters match Computer.setBoardSpaces: a cell's counter is
+ *      the number of ways, horizontal or vertical, to place each listed
+ *      length over it through free cells only. Lengths may repeat (two
+ *      ships of length 3 count twice).
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+/**
+ * Density function kernel. Instances keep scratch space and aren't
+ * thread-safe; use one per thread.
+ */
+public abstract class DensityKernel
+{
+	/**
+	 * Class name of the optional Vector API kernel, compiled separately.
+	 */
+	static final String VECTOR_KERNEL = "battleship.VectorDensityKernel";
+
+	/**
+	 * Returns the kernel's name, for reports.
+	 *
+	 * @return kernel name
+	 */
+	public abstract String getName();
+
+	/**
+	 * Sets each cell's placement counter.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output, rows * cols
+	 */
+	public abstract void computeCounters(int[] blocked, int rows, int cols,
+										 int[] lengths, int[] counters);
+
+	/**
+	 * Sets each cell's sum of its four neighbors' counters.
+	 *
+	 * @param counters counters from computeCounters
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param sums     output, rows * cols
+	 */
+	public abstract void computeNeighborSums(int[] counters, int rows,
+											 int cols, int[] sums);
+
+	/**
+	 * Returns the best free cell: highest counter, then highest neighbor
+	 * sum, then first in row-major order, as in BoardSpace.compareTo.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param counters counters from computeCounters
+	 * @param sums     sums from computeNeighborSums
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @return         index of the best cell, or -1 if all are blocked
+	 */
+	public int selectBest(int[] blocked, int[] counters, int[] sums, int rows,
+						  int cols)
+	{
+		return selectBestInRange(blocked, counters, sums, 0, rows * cols);
+	}
+
+	/**
+	 * Best free cell within a range of indices. See selectBest above.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param counters counters from computeCounters
+	 * @param sums     sums from computeNeighborSums
+	 * @param from     first index, inclusive
+	 * @param to       last index, exclusive
+	 * @return         index of the best cell, or -1 if all are blocked
+	 */
+	static int selectBestInRange(int[] blocked, int[] counters, int[] sums,
+								 int from, int to)
+	{
+		int best = -1;
+		for (int i = from; i < to; ++i)
+		{
+			if (blocked[i] == 0 && (best == -1 || isBetter(counters, sums, i,
+					best)))
+			{
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Whether cell a beats cell b on counter then neighbor sum. Equal cells
+	 * don't beat each other, so the earlier one stays best.
+	 *
+	 * @param counters counters
+	 * @param sums     neighbor sums
+	 * @param a        candidate cell
+	 * @param b        current best cell
+	 * @return         true if a is strictly better
+	 */
+	static boolean isBetter(int[] counters, int[] sums, int a, int b)
+	{
+		return counters[a] > counters[b]
+				|| (counters[a] == counters[b] && sums[a] > sums[b]);
+	}
+
+	/**
+	 * Returns the fastest kernel available: the Vector API one if it was
+	 * compiled and the jdk.incubator.vector module is present, else the
+	 * scalar one.
+	 *
+	 * @return a new kernel
+	 */
+	static DensityKernel best()
+	{
+		try
+		{
+			return (DensityKernel)Class.forName(VECTOR_KERNEL)
+					.getDeclaredConstructor().newInstance();
+		}
+		// Not compiled, or module not added with --add-modules.
+		catch (ReflectiveOperationException | LinkageError e)
+		{
+			return new ScalarDensityKernel();
+		}
+	}
+}
@@ -0,0 +1,473 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Differential test of an optimized engine against the reference: a
+ *      fresh Computer shooting at a fresh GameBoard, one per game. Both play
+ *      the same layout in lockstep, and after every turn the harness
+ *      compares the cell each chose and all 100 cells of each board. The
+ *      first mismatch ends that game.
+ * Reproducing:
+ *          Game i's layout is GameBoard's randomized placement from
+ *      new Random(seed + i), so every game stands alone. A divergence is
+ *      reported as the smallest failing seed and the turn it first shows
+ *      up on, along with the command that replays just that game.
+ *
+ *          Seeds are checked in chunks on a thread pool. Once a divergence
+ *      is found, chunks that start past it are skipped, but those before it
+ *      still run to the end, so the seed reported is the smallest one that
+ *      fails whatever the thread count.
+ * Candidates:
+ *          batched    BatchEngine, one game in flight
+ *          reset      one Computer and board reused and reset in place
+ *          <name>     any Strategies name, fresh per game; only the
+ *                     exact ones (such as density-kernel) should pass
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.DifferentialHarness [options]
+ *      Options:
+ *          --candidate=<name>  engine to check (default batched)
+ *          --games=<n>         number of seeds (default 1000000)
+ *          --seed=<n>          first seed (default 2014)
+ *          --threads=<n>       worker threads (default: one per core)
+ *      Exits with status 1 on a divergence.
+ */
+
+package battleship;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Lockstep comparison of a candidate engine with the reference Computer.
+ */
+public class DifferentialHarness
+{
+	/**
+	 * Seeds per chunk.
+	 */
+	static final int CHUNK_SIZE = 4096;
+
+	/**
+	 * One side of the comparison, playing one game at a time.
+	 */
+	interface Engine
+	{
+		/**
+		 * Starts a game against a layout.
+		 *
+		 * @param layout packed layout
+		 */
+		void start(long layout);
+
+		/**
+		 * Chooses and fires the next shot.
+		 *
+		 * @return row * 10 + col
+		 */
+		int fire();
+
+		/**
+		 * Returns what the board shows at a cell.
+		 *
+		 * @param cell row * 10 + col
+		 * @return     BatchEngine.UNSHOT, MISS or HIT
+		 */
+		byte getCell(int cell);
+
+		/**
+		 * Whether every ship is sunk.
+		 *
+		 * @return true if the game is over
+		 */
+		boolean isOver();
+	}
+
+	/**
+	 * A TargetingStrategy shooting at a GameBoard.
+	 */
+	static class BoardEngine implements Engine
+	{
+		private final String name;
+		private final boolean reuse;
+		private GameBoard board;
+		private TargetingStrategy strategy;
+		private char[][] raw;
+
+		/**
+		 * Sets up the engine.
+		 *
+		 * @param name  Strategies name
+		 * @param reuse true to keep one board and strategy, reset per game
+		 */
+		BoardEngine(String name, boolean reuse)
+		{
+			this.name = name;
+			this.reuse = reuse;
+		}
+
+		/**
+		 * Places the layout and sets up the strategy, fresh unless reused.
+		 *
+		 * @param layout packed layout
+		 */
+		public void start(long layout)
+		{
+			if (reuse && board != null)
+			{
+				FleetLayout.place(board, layout);
+				((Computer)strategy).reset();
+			}
+			else
+			{
+				board = Simulation.newBoard(layout);
+				strategy = Strategies.create(name, board, layout);
+			}
+			raw = board.getBoard();
+		}
+
+		/**
+		 * Chooses, fires and records a shot.
+		 *
+		 * @return row * 10 + col
+		 */
+		public int fire()
+		{
+			int shot = strategy.chooseShot(raw);
+			ShotOutcome outcome = board.updateBoardAfterShot(false,
+					shot / 10 + 1, Simulation.COLUMN_HEADERS[shot % 10]);
+			strategy.recordShot(shot / 10, shot % 10, outcome);
+			return shot;
+		}
+
+		/**
+		 * Reads a cell of the board.
+		 *
+		 * @param cell row * 10 + col
+		 * @return     BatchEngine.UNSHOT, MISS or HIT
+		 */
+		public byte getCell(int cell)
+		{
+			char c = raw[cell / 10][cell % 10];
+			return (c == 'X') ? BatchEngine.HIT
+					: (c == 'O') ? BatchEngine.MISS : BatchEngine.UNSHOT;
+		}
+
+		/**
+		 * Whether every ship is sunk.
+		 *
+		 * @return true if the game is over
+		 */
+		public boolean isOver()
+		{
+			return board.areNoShipsLeft();
+		}
+	}
+
+	/**
+	 * A BatchEngine stepping a single game.
+	 */
+	static class BatchedEngine implements Engine
+	{
+		private final BatchEngine engine = new BatchEngine(1);
+		private final long[] layouts = new long[1];
+		private boolean over;
+
+		/**
+		 * Loads the layout as a batch of one.
+		 *
+		 * @param layout packed layout
+		 */
+		public void start(long layout)
+		{
+			layouts[0] = layout;
+			engine.load(layouts, 0, 1);
+			over = false;
+		}
+
+		/**
+		 * Steps the batch by one shot.
+		 *
+		 * @return row * 10 + col
+		 */
+		public int fire()
+		{
+			over = !engine.step();
+			return engine.getLastShot(0);
+		}
+
+		/**
+		 * Reads a cell of the batched board.
+		 *
+		 * @param cell row * 10 + col
+		 * @return     BatchEngine.UNSHOT, MISS or HIT
+		 */
+		public byte getCell(int cell)
+		{
+			return engine.getCell(0, cell);
+		}
+
+		/**
+		 * Whether the game has left the batch.
+		 *
+		 * @return true if the game is over
+		 */
+		public boolean isOver()
+		{
+			return over;
+		}
+	}
+
+	/**
+	 * Parses options and checks the seeds.
+	 *
+	 * @param args see class comment
+	 */
+	public static void main(String[] args)
+	{
+		String candidate = "batched";
+		int games = 1000000;
+		long seed = 2014;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--candidate="))
+			{
+				candidate = value;
+			}
+			else if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--threads="))
+			{
+				threads = Integer.parseInt(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (!candidate.equals("batched") && !candidate.equals("reset") &&
+				!Arrays.asList(Strategies.NAMES).contains(candidate))
+		{
+			System.out.println("Unknown candidate " + candidate +
+					". Exiting.");
+			System.exit(1);
+		}
+		if (games <= 0 || threads <= 0)
+		{
+			System.out.println("Need at least one game and one thread. " +
+					"Exiting.");
+			System.exit(1);
+		}
+
+		long start = System.nanoTime();
+		long[] moves = new long[1];
+		String divergence = check(candidate, seed, games, threads, moves);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		if (divergence != null)
+		{
+			System.out.println(divergence);
+			System.exit(1);
+		}
+		System.out.printf("%s matches the reference on %d seeds from %d: " +
+				"%d moves in %.1fs.\n", candidate, games, seed, moves[0],
+				seconds);
+	}
+
+	/**
+	 * Checks a range of seeds on a thread pool.
+	 *
+	 * @param candidate candidate name
+	 * @param seed      first seed
+	 * @param games     number of seeds
+	 * @param threads   worker threads
+	 * @param moves     receives the number of turns compared
+	 * @return          report of the smallest failing seed, or null
+	 */
+	static String check(String candidate, long seed, int games, int threads,
+			long[] moves)
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		AtomicLong firstFailure = new AtomicLong(Long.MAX_VALUE);
+		ConcurrentSkipListMap<Long, String> failures =
+				new ConcurrentSkipListMap<>();
+		AtomicLong moveCount = new AtomicLong();
+		List<Future<?>> chunks = new ArrayList<>();
+
+		for (int from = 0; from < games; from += CHUNK_SIZE)
+		{
+			long first = seed + from;
+			int count = Math.min(CHUNK_SIZE, games - from);
+			chunks.add(pool.submit(() ->
+			{
+				Engine reference = new BoardEngine("density", false);
+				Engine engine = newEngine(candidate);
+				int[] turns = new int[1];
+				long chunkMoves = 0;
+				for (long s = first; s < first + count; ++s)
+				{
+					if (s > firstFailure.get())
+					{
+						break;
+					}
+					String report = compare(reference, engine, candidate, s,
+							turns);
+					if (report != null)
+					{
+						failures.put(s, report);
+						firstFailure.accumulateAndGet(s, Math::min);
+						break;
+					}
+					chunkMoves += turns[0];
+				}
+				moveCount.addAndGet(chunkMoves);
+			}));
+		}
+
+		try
+		{
+			for (int i = 0; i < chunks.size(); ++i)
+			{
+				chunks.get(i).get();
+				if ((i + 1) % 64 == 0 && i + 1 < chunks.size() &&
+						failures.isEmpty())
+				{
+					System.out.printf("%d of %d seeds\n",
+							(long)(i + 1) * CHUNK_SIZE, games);
+				}
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			throw new IllegalStateException("Checking failed.", e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		moves[0] = moveCount.get();
+		return failures.isEmpty() ? null : failures.firstEntry().getValue();
+	}
+
+	/**
+	 * Builds a candidate engine.
+	 *
+	 * @param candidate candidate name
+	 * @return          the engine
+	 */
+	static Engine newEngine(String candidate)
+	{
+		switch (candidate)
+		{
+			case "batched":
+				return new BatchedEngine();
+			case "reset":
+				return new BoardEngine("density", true);
+			default:
+				return new BoardEngine(candidate, false);
+		}
+	}
+
+	/**
+	 * Plays one seed with both engines in lockstep.
+	 *
+	 * @param reference the reference engine
+	 * @param engine    the candidate engine
+	 * @param candidate candidate name, for the report
+	 * @param seed      the game's seed
+	 * @param turns     receives the number of turns played
+	 * @return          a report of the first mismatch, or null
+	 */
+	static String compare(Engine reference, Engine engine, String candidate,
+			long seed, int[] turns)
+	{
+		long layout = Simulation.layoutFor(seed);
+		reference.start(layout);
+		engine.start(layout);
+
+		int turn = 0;
+		while (!reference.isOver())
+		{
+			if (turn >= Simulation.MAX_SHOTS)
+			{
+				return report(candidate, seed, layout, turn,
+						"the reference did not finish");
+			}
+			if (engine.isOver())
+			{
+				return report(candidate, seed, layout, turn + 1,
+						"the candidate finished early");
+			}
+			turn++;
+			int expected = reference.fire();
+			int actual = engine.fire();
+			if (actual != expected)
+			{
+				return report(candidate, seed, layout, turn, "reference " +
+						"shot " + cellName(expected) + ", candidate shot " +
+						cellName(actual));
+			}
+			for (int cell = 0; cell < 100; ++cell)
+			{
+				if (engine.getCell(cell) != reference.getCell(cell))
+				{
+					return report(candidate, seed, layout, turn, "after " +
+							cellName(actual) + " the boards differ at " +
+							cellName(cell) + " (reference " +
+							reference.getCell(cell) + ", candidate " +
+							engine.getCell(cell) + ")");
+				}
+			}
+		}
+		if (!engine.isOver())
+		{
+			return report(candidate, seed, layout, turn + 1,
+					"the candidate did not finish");
+		}
+		turns[0] = turn;
+		return null;
+	}
+
+	/**
+	 * Formats a divergence.
+	 *
+	 * @param candidate candidate name
+	 * @param seed      failing seed
+	 * @param layout    its layout
+	 * @param turn      first turn that differs, counting from 1
+	 * @param what      what differed
+	 * @return          the report
+	 */
+	static String report(String candidate, long seed, long layout, int turn,
+			String what)
+	{
+		return String.format("DIVERGED: seed %d (layout %x), turn %d: %s.\n" +
+				"Replay with: java -cp bin battleship.DifferentialHarness " +
+				"--candidate=%s --seed=%d --games=1", seed, layout, turn, what,
+				candidate, seed);
+	}
+
+	/**
+	 * Names a cell as on the printed board.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     e.g. "C7"
+	 */
+	static String cellName(int cell)
+	{
+		return "" + Simulation.COLUMN_HEADERS[cell % 10] + (cell / 10 + 1);
+	}
+}
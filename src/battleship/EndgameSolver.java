@@ -0,0 +1,809 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Exact late-game play for the Computer. With one or two ships left,
+ *      it lists every placement of them consistent with the board and
+ *      picks the shot that minimizes the expected number of shots to sink
+ *      them all, assuming each consistent layout is equally likely.
+ * Search:
+ *          Expectimax. A state is the set of layouts still consistent; a
+ *      shot splits it by outcome (miss, or a hit on a named ship, since hit
+ *      messages name the ship). Its value is
+ *
+ *          E(S) = min over cells c of 1 + sum over outcomes o of
+ *                 |S_o| / |S| * E(S_o)
+ *
+ *      and a single layout is worth its unshot cells. Only cells some layout
+ *      covers are tried, most-covered first.
+ *
+ *          Each layout needs at least its unshot cells in shots, so their
+ *      mean is a lower bound on E(S). Shots whose partial value plus the
+ *      bounds of their unsearched outcomes can't beat the best so far are
+ *      cut off.
+ *
+ *          States are memoized on a compact key: a bitmask of which of the
+ *      move's layouts are still consistent, and a bitmask of the shot cells
+ *      those layouts cover (all hits). A state's value depends on nothing
+ *      else -- misses elsewhere only matter for which layouts they ruled
+ *      out -- so shots that reach the same layouts in a different order
+ *      share one entry. Only exact values are memoized, never cut-off
+ *      bounds. Layouts are listed afresh each move, so the memo is too.
+ * Budget:
+ *          A move may visit at most a fixed number of states, so it takes
+ *      bounded time and gives the same answer on every machine. A move that
+ *      would need more, or a board with more than MAX_LAYOUTS consistent
+ *      layouts, gets -1 back and the Computer uses density instead. After
+ *      running out, the solver sits out until the layouts have halved.
+ *
+ *          Before each move, the greedy policy (forced cells, then the
+ *      most-covered cell) is evaluated exactly; it bounds the search from
+ *      the start, so only shots that beat it are explored.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Memoized expectimax for the last one or two ships.
+ */
+public class EndgameSolver
+{
+	/**
+	 * Most ships left for the solver to take over.
+	 */
+	static final int MAX_SHIPS = 2;
+
+	/**
+	 * Most consistent layouts the solver will search.
+	 */
+	static final int MAX_LAYOUTS = 100;
+
+	/**
+	 * States a single move may visit.
+	 */
+	static final int NODE_BUDGET = 5_000;
+
+	/**
+	 * Thrown (preallocated, no stack trace) when a move runs out of budget.
+	 */
+	private static final RuntimeException OUT_OF_BUDGET =
+			new RuntimeException("Endgame budget exceeded", null, false,
+					false)
+			{
+				private static final long serialVersionUID = 1L;
+			};
+
+	/**
+	 * Remaining ships (FleetLayout indices) the layouts and memo are for.
+	 */
+	private int[] ships = new int[0];
+
+	/**
+	 * Every consistent layout: each remaining ship's cells as low (0 - 63)
+	 * and high (64 - 99) masks, indexed [layout][ship].
+	 */
+	private long[][] shipLow;
+	private long[][] shipHigh;
+
+	/**
+	 * Exact values of solved states.
+	 */
+	private final Map<State, Double> memo = new HashMap<>();
+
+	/**
+	 * Layout count of the last move that ran out of budget, for the same
+	 * remaining ships. Layouts only shrink, so the solver waits until
+	 * there are half as many before trying again rather than burning the
+	 * budget every move.
+	 */
+	private int failedAt = Integer.MAX_VALUE;
+
+	/**
+	 * Scratch for lowerBound.
+	 */
+	private final int[] boundCoverage = new int[100];
+
+	/**
+	 * States visited so far this move.
+	 */
+	private int nodes;
+
+	/**
+	 * Moves solved, and moves handed back to density.
+	 */
+	private int solved;
+	private int declined;
+
+	/**
+	 * Memo key: consistent layouts and the shot cells they cover.
+	 */
+	private static final class State
+	{
+		private final long[] layouts;
+		private final long hitLow;
+		private final long hitHigh;
+
+		/**
+		 * Creates key.
+		 *
+		 * @param layouts bitmask of consistent layout indices
+		 * @param hitLow  shot cells 0 - 63 covered by those layouts
+		 * @param hitHigh shot cells 64 - 99 covered by those layouts
+		 */
+		State(long[] layouts, long hitLow, long hitHigh)
+		{
+			this.layouts = layouts;
+			this.hitLow = hitLow;
+			this.hitHigh = hitHigh;
+		}
+
+		/**
+		 * Equal if all masks are.
+		 *
+		 * @param that the object being compared to
+		 * @return     true if the same state
+		 */
+		@Override
+		public boolean equals(Object that)
+		{
+			if (!(that instanceof State))
+			{
+				return false;
+			}
+			State other = (State)that;
+			return hitLow == other.hitLow && hitHigh == other.hitHigh
+					&& Arrays.equals(layouts, other.layouts);
+		}
+
+		/**
+		 * Hash of all masks.
+		 *
+		 * @return hash code
+		 */
+		@Override
+		public int hashCode()
+		{
+			return Long.hashCode(hitLow * 31 + hitHigh) * 31
+					+ Arrays.hashCode(layouts);
+		}
+	}
+
+	/**
+	 * Forgets the last game, for a new one.
+	 */
+	public void reset()
+	{
+		ships = new int[0];
+		failedAt = Integer.MAX_VALUE;
+		memo.clear();
+		solved = 0;
+		declined = 0;
+	}
+
+	/**
+	 * Returns the number of moves solved exactly.
+	 *
+	 * @return moves solved
+	 */
+	public int getSolvedCount()
+	{
+		return solved;
+	}
+
+	/**
+	 * Returns the number of moves handed back to density.
+	 *
+	 * @return moves declined
+	 */
+	public int getDeclinedCount()
+	{
+		return declined;
+	}
+
+	/**
+	 * Chooses the shot minimizing expected remaining shots, if the endgame
+	 * is small enough.
+	 *
+	 * @param board    the opponent's board
+	 * @param targeter hit owners and sunk ships
+	 * @return         row * 10 + col of the chosen cell, or -1 to use
+	 *                 density instead
+	 */
+	public int chooseShot(char[][] board, ClusterTargeter targeter)
+	{
+		int[] remaining = remainingShips(targeter);
+		if (remaining.length == 0 || remaining.length > MAX_SHIPS)
+		{
+			return -1;
+		}
+		if (!Arrays.equals(remaining, ships))
+		{
+			ships = remaining;
+			failedAt = Integer.MAX_VALUE;
+		}
+		memo.clear();
+
+		long shotLow = 0;
+		long shotHigh = 0;
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			char curr = board[cell / 10][cell % 10];
+			if (curr == 'X' || curr == 'O')
+			{
+				if (cell < 64)
+				{
+					shotLow |= 1L << cell;
+				}
+				else
+				{
+					shotHigh |= 1L << (cell - 64);
+				}
+			}
+		}
+
+		int count = listLayouts(targeter, shotLow, shotHigh);
+		if (count == 0 || count > MAX_LAYOUTS || 2 * count > failedAt)
+		{
+			declined++;
+			return -1;
+		}
+
+		int[] all = new int[count];
+		for (int i = 0; i < count; ++i)
+		{
+			all[i] = i;
+		}
+		nodes = 0;
+		try
+		{
+			// Only shots that beat the greedy policy need searching.
+			int[] best = new int[1];
+			double bound = greedy(all, shotLow, shotHigh, best) + 1e-9;
+			solve(all, shotLow, shotHigh, bound, best);
+			solved++;
+			return best[0];
+		}
+		catch (RuntimeException e)
+		{
+			if (e != OUT_OF_BUDGET)
+			{
+				throw e;
+			}
+			failedAt = count;
+			declined++;
+			return -1;
+		}
+	}
+
+	/**
+	 * Returns the ships not yet sunk.
+	 *
+	 * @param targeter sunk ships
+	 * @return         ship indices, ascending
+	 */
+	private static int[] remainingShips(ClusterTargeter targeter)
+	{
+		int count = 0;
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (!targeter.isShipSunk(ship))
+			{
+				count++;
+			}
+		}
+		int[] remaining = new int[count];
+		for (int ship = 0, i = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (!targeter.isShipSunk(ship))
+			{
+				remaining[i++] = ship;
+			}
+		}
+		return remaining;
+	}
+
+	/**
+	 * Lists every placement of the remaining ships consistent with the
+	 * board: each ship covers all of its own hits, its other cells are
+	 * unshot, and ships don't overlap.
+	 *
+	 * @param targeter hit owners
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @return         number of layouts, or MAX_LAYOUTS + 1 if too many
+	 */
+	private int listLayouts(ClusterTargeter targeter, long shotLow,
+							long shotHigh)
+	{
+		// Each ship's own placements, as masks.
+		long[][] low = new long[ships.length][];
+		long[][] high = new long[ships.length][];
+		for (int i = 0; i < ships.length; ++i)
+		{
+			List<long[]> placements = placements(ships[i], targeter, shotLow,
+					shotHigh);
+			low[i] = new long[placements.size()];
+			high[i] = new long[placements.size()];
+			for (int p = 0; p < placements.size(); ++p)
+			{
+				low[i][p] = placements.get(p)[0];
+				high[i][p] = placements.get(p)[1];
+			}
+		}
+
+		if (shipLow == null || shipLow[0].length != ships.length)
+		{
+			shipLow = new long[MAX_LAYOUTS][ships.length];
+			shipHigh = new long[MAX_LAYOUTS][ships.length];
+		}
+		int count = 0;
+		if (ships.length == 1)
+		{
+			for (int p = 0; p < low[0].length; ++p)
+			{
+				if (count == MAX_LAYOUTS)
+				{
+					return MAX_LAYOUTS + 1;
+				}
+				shipLow[count][0] = low[0][p];
+				shipHigh[count][0] = high[0][p];
+				count++;
+			}
+			return count;
+		}
+		for (int p = 0; p < low[0].length; ++p)
+		{
+			for (int q = 0; q < low[1].length; ++q)
+			{
+				if ((low[0][p] & low[1][q]) != 0
+						|| (high[0][p] & high[1][q]) != 0)
+				{
+					continue;
+				}
+				if (count == MAX_LAYOUTS)
+				{
+					return MAX_LAYOUTS + 1;
+				}
+				shipLow[count][0] = low[0][p];
+				shipHigh[count][0] = high[0][p];
+				shipLow[count][1] = low[1][q];
+				shipHigh[count][1] = high[1][q];
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Lists one ship's placements consistent with the board.
+	 *
+	 * @param ship     ship index
+	 * @param targeter hit owners
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @return         {low, high} mask per placement
+	 */
+	private static List<long[]> placements(int ship, ClusterTargeter targeter,
+										   long shotLow, long shotHigh)
+	{
+		// The ship's own hits, which every placement has to cover.
+		long hitLow = 0;
+		long hitHigh = 0;
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (targeter.getOwner(cell) == ship)
+			{
+				if (cell < 64)
+				{
+					hitLow |= 1L << cell;
+				}
+				else
+				{
+					hitHigh |= 1L << (cell - 64);
+				}
+			}
+		}
+
+		List<long[]> placements = new ArrayList<>();
+		int size = FleetLayout.SIZES[ship];
+		for (int origin = 0; origin < 100; ++origin)
+		{
+			for (int step = 1; step <= 10; step += 9)
+			{
+				// Went off the edge.
+				if ((step == 1 && origin % 10 + size > 10)
+						|| (step == 10 && origin / 10 + size > 10))
+				{
+					continue;
+				}
+				long low = 0;
+				long high = 0;
+				for (int i = 0, cell = origin; i < size; ++i, cell += step)
+				{
+					if (cell < 64)
+					{
+						low |= 1L << cell;
+					}
+					else
+					{
+						high |= 1L << (cell - 64);
+					}
+				}
+				// Shot cells it covers must be exactly its own hits.
+				if ((low & shotLow) == hitLow && (high & shotHigh) == hitHigh)
+				{
+					placements.add(new long[] {low, high});
+				}
+			}
+		}
+		return placements;
+	}
+
+	/**
+	 * Expected shots to sink every remaining ship from a state.
+	 *
+	 * @param subset   consistent layouts
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @param bound    the caller can't use a value of bound or more, so
+	 *                 search may stop once it knows the value is that high
+	 * @param bestCell if non-null, receives the best cell
+	 * @return         expected shots: exact if below bound, else a lower
+	 *                 bound of at least bound
+	 */
+	private double solve(int[] subset, long shotLow, long shotHigh,
+						 double bound, int[] bestCell)
+	{
+		if (++nodes > NODE_BUDGET)
+		{
+			throw OUT_OF_BUDGET;
+		}
+
+		double lowerBound = lowerBound(subset, shotLow, shotHigh);
+		if (subset.length == 1 && bestCell == null)
+		{
+			return lowerBound;
+		}
+		State key = null;
+		if (bestCell == null)
+		{
+			key = key(subset, shotLow, shotHigh);
+			Double known = memo.get(key);
+			if (known != null)
+			{
+				return known;
+			}
+			if (lowerBound >= bound)
+			{
+				return lowerBound;
+			}
+		}
+
+		// Unshot cells by how many layouts cover them.
+		int[] coverage = new int[100];
+		for (int layout : subset)
+		{
+			for (int i = 0; i < ships.length; ++i)
+			{
+				addCoverage(coverage, shipLow[layout][i] & ~shotLow,
+						shipHigh[layout][i] & ~shotHigh);
+			}
+		}
+
+		// A cell every layout puts the same ship on tells nothing and has
+		// to be shot anyway, so shooting it first is always optimal.
+		int forced = forcedCell(subset, coverage);
+		if (forced >= 0)
+		{
+			if (bestCell != null)
+			{
+				bestCell[0] = forced;
+				return lowerBound;
+			}
+			double value = 1 + solve(subset,
+					(forced < 64) ? shotLow | (1L << forced) : shotLow,
+					(forced < 64) ? shotHigh : shotHigh | (1L << (forced - 64)),
+					bound - 1, null);
+			if (value < bound)
+			{
+				memo.put(key, value);
+			}
+			return value;
+		}
+
+		Integer[] cells = candidates(coverage);
+		double best = bound;
+		int[][] groups = new int[ships.length + 1][subset.length];
+		int[] sizes = new int[ships.length + 1];
+		Set<Long> splits = new HashSet<>();
+		for (int cell : cells)
+		{
+			// Split by outcome: 0 for a miss, i + 1 for a hit on ship i.
+			Arrays.fill(sizes, 0);
+			long split = 0;
+			for (int layout : subset)
+			{
+				int outcome = outcome(layout, cell);
+				groups[outcome][sizes[outcome]++] = layout;
+				split = split * 0x9E3779B97F4A7C15L + outcome;
+			}
+			// Cells that split the layouts the same way are worth the same.
+			if (!splits.add(split))
+			{
+				continue;
+			}
+
+			long nextLow = (cell < 64) ? shotLow | (1L << cell) : shotLow;
+			long nextHigh = (cell < 64) ? shotHigh
+					: shotHigh | (1L << (cell - 64));
+
+			// Bounds of every outcome, then refined one outcome at a time.
+			int[][] children = new int[groups.length][];
+			double[] bounds = new double[groups.length];
+			double value = 1;
+			for (int o = 0; o < groups.length; ++o)
+			{
+				if (sizes[o] > 0)
+				{
+					children[o] = Arrays.copyOf(groups[o], sizes[o]);
+					bounds[o] = lowerBound(children[o], nextLow, nextHigh);
+					value += bounds[o] * sizes[o] / subset.length;
+				}
+			}
+			for (int o = 0; o < groups.length && value < best; ++o)
+			{
+				if (sizes[o] == 0)
+				{
+					continue;
+				}
+				double weight = (double)sizes[o] / subset.length;
+				double rest = value - bounds[o] * weight;
+				double child = solve(children[o], nextLow, nextHigh,
+						(best - rest) / weight, null);
+				value = rest + child * weight;
+			}
+
+			if (value < best)
+			{
+				best = value;
+				if (bestCell != null)
+				{
+					bestCell[0] = cell;
+				}
+			}
+		}
+
+		if (key != null && best < bound)
+		{
+			memo.put(key, best);
+		}
+		return best;
+	}
+
+	/**
+	 * Returns a cell every layout covers with the same ship, if any.
+	 *
+	 * @param subset   layouts
+	 * @param coverage unshot cells by how many layouts cover them
+	 * @return         the first such cell, or -1
+	 */
+	private int forcedCell(int[] subset, int[] coverage)
+	{
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (coverage[cell] != subset.length)
+			{
+				continue;
+			}
+			int first = outcome(subset[0], cell);
+			boolean same = true;
+			for (int i = 1; i < subset.length && same; ++i)
+			{
+				same = outcome(subset[i], cell) == first;
+			}
+			if (same)
+			{
+				return cell;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Lower bound on expected shots. Each layout needs at least its unshot
+	 * cells in shots, and the next shot misses at least as often as the
+	 * most-covered cell would, costing one more.
+	 *
+	 * @param subset   layouts
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @return         lower bound on expected shots
+	 */
+	private double lowerBound(int[] subset, long shotLow, long shotHigh)
+	{
+		Arrays.fill(boundCoverage, 0);
+		long total = 0;
+		for (int layout : subset)
+		{
+			for (int i = 0; i < ships.length; ++i)
+			{
+				long low = shipLow[layout][i] & ~shotLow;
+				long high = shipHigh[layout][i] & ~shotHigh;
+				total += Long.bitCount(low) + Long.bitCount(high);
+				addCoverage(boundCoverage, low, high);
+			}
+		}
+		// Game over.
+		if (total == 0)
+		{
+			return 0;
+		}
+		int maxCoverage = 0;
+		for (int count : boundCoverage)
+		{
+			maxCoverage = Math.max(maxCoverage, count);
+		}
+		return (double)total / subset.length
+				+ 1 - (double)maxCoverage / subset.length;
+	}
+
+	/**
+	 * Expected shots of the greedy policy: forced cells first, else the
+	 * most-covered cell. An upper bound on the exact value, to start the
+	 * search with.
+	 *
+	 * @param subset   consistent layouts
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @param bestCell if non-null, receives the greedy cell
+	 * @return         expected shots under the greedy policy
+	 */
+	private double greedy(int[] subset, long shotLow, long shotHigh,
+						  int[] bestCell)
+	{
+		if (subset.length == 1)
+		{
+			// Any of the last layout's cells; the caller only needs one.
+			if (bestCell != null)
+			{
+				long low = shipLow[subset[0]][0] & ~shotLow;
+				bestCell[0] = (low != 0) ? Long.numberOfTrailingZeros(low)
+						: 64 + Long.numberOfTrailingZeros(
+								shipHigh[subset[0]][0] & ~shotHigh);
+			}
+			return lowerBound(subset, shotLow, shotHigh);
+		}
+
+		int[] coverage = new int[100];
+		for (int layout : subset)
+		{
+			for (int i = 0; i < ships.length; ++i)
+			{
+				addCoverage(coverage, shipLow[layout][i] & ~shotLow,
+						shipHigh[layout][i] & ~shotHigh);
+			}
+		}
+		int cell = forcedCell(subset, coverage);
+		if (cell < 0)
+		{
+			cell = candidates(coverage)[0];
+		}
+		if (bestCell != null)
+		{
+			bestCell[0] = cell;
+		}
+
+		int[][] groups = new int[ships.length + 1][subset.length];
+		int[] sizes = new int[ships.length + 1];
+		for (int layout : subset)
+		{
+			int outcome = outcome(layout, cell);
+			groups[outcome][sizes[outcome]++] = layout;
+		}
+		long nextLow = (cell < 64) ? shotLow | (1L << cell) : shotLow;
+		long nextHigh = (cell < 64) ? shotHigh : shotHigh | (1L << (cell - 64));
+		double value = 1;
+		for (int o = 0; o < groups.length; ++o)
+		{
+			if (sizes[o] > 0)
+			{
+				value += greedy(Arrays.copyOf(groups[o], sizes[o]), nextLow,
+						nextHigh, null) * sizes[o] / subset.length;
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * Memo key of a state.
+	 *
+	 * @param subset   consistent layouts
+	 * @param shotLow  shot cells 0 - 63
+	 * @param shotHigh shot cells 64 - 99
+	 * @return         key
+	 */
+	private State key(int[] subset, long shotLow, long shotHigh)
+	{
+		long[] layouts = new long[(MAX_LAYOUTS + 63) / 64];
+		long coverLow = 0;
+		long coverHigh = 0;
+		for (int layout : subset)
+		{
+			layouts[layout >>> 6] |= 1L << layout;
+			for (int i = 0; i < ships.length; ++i)
+			{
+				coverLow |= shipLow[layout][i];
+				coverHigh |= shipHigh[layout][i];
+			}
+		}
+		return new State(layouts, coverLow & shotLow, coverHigh & shotHigh);
+	}
+
+	/**
+	 * Outcome of shooting a cell if a layout is the real one.
+	 *
+	 * @param layout layout index
+	 * @param cell   row * 10 + col
+	 * @return       0 for a miss, i + 1 for a hit on remaining ship i
+	 */
+	private int outcome(int layout, int cell)
+	{
+		for (int i = 0; i < ships.length; ++i)
+		{
+			long mask = (cell < 64) ? shipLow[layout][i] >>> cell
+					: shipHigh[layout][i] >>> (cell - 64);
+			if ((mask & 1) != 0)
+			{
+				return i + 1;
+			}
+		}
+		return 0;
+	}
+
+	/**
+	 * Adds one to the coverage of every cell in a mask.
+	 *
+	 * @param coverage per-cell counts
+	 * @param low      cells 0 - 63
+	 * @param high     cells 64 - 99
+	 */
+	private static void addCoverage(int[] coverage, long low, long high)
+	{
+		while (low != 0)
+		{
+			coverage[Long.numberOfTrailingZeros(low)]++;
+			low &= low - 1;
+		}
+		while (high != 0)
+		{
+			coverage[64 + Long.numberOfTrailingZeros(high)]++;
+			high &= high - 1;
+		}
+	}
+
+	/**
+	 * Covered cells, most-covered first (row-major among equals), so good
+	 * shots are found early and cut off worse ones.
+	 *
+	 * @param coverage per-cell counts
+	 * @return         candidate cells
+	 */
+	private static Integer[] candidates(int[] coverage)
+	{
+		List<Integer> cells = new ArrayList<>();
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			if (coverage[cell] > 0)
+			{
+				cells.add(cell);
+			}
+		}
+		Integer[] sorted = cells.toArray(new Integer[0]);
+		Arrays.sort(sorted, (a, b) -> coverage[b] - coverage[a]);
+		return sorted;
+	}
+}
@@ -0,0 +1,310 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Lock-free, single-producer ring buffer of game events. The boards
+ *      and game loop publish placements, volleys, shot outcomes and game
+ *      overs; subscribers (console, replay log, metrics, ...) drain them on
+ *      their own threads.
+ * Design:
+ *          Each slot is one long holding the event's sequence number (high
+ *      40 bits) and the event itself (low 24 bits):
+ *
+ *          bits  0 -  2  type (GameEventType ordinal)
+ *          bit        3  board
+ *          bits  4 - 10  cell, 127 for none
+ *          bits 11 - 13  ship, 7 for none
+ *          bits 14 - 23  value, 0 - 1023
+ *
+ *      so publishing is a single ordered store into a pre-allocated array:
+ *      no locks and no allocation. A reader knows a slot holds the event it
+ *      wants when the slot's sequence number matches.
+ *
+ *          The publisher never waits. A subscriber that falls a whole ring
+ *      behind is lapped: it sees a newer sequence number than it wants,
+ *      skips ahead to the oldest event still in the ring, and counts the
+ *      events it lost.
+ *
+ *          Only one thread may publish. Each subscriber has its own thread
+ *      and position, so a slow one doesn't hold up the others.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.concurrent.atomic.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * Single-producer, multi-subscriber game event ring.
+ */
+public final class EventBus
+{
+	/**
+	 * Board ids.
+	 */
+	static final int HUMAN_BOARD = 0;
+	static final int COMPUTER_BOARD = 1;
+
+	/**
+	 * Default capacity; plenty for a few full games.
+	 */
+	static final int DEFAULT_CAPACITY = 4096;
+
+	/**
+	 * Sequence numbers sit above the event bits.
+	 */
+	private static final int SEQUENCE_SHIFT = 24;
+
+	/**
+	 * Idle polls that spin before a subscriber starts parking, and how long
+	 * it parks.
+	 */
+	private static final int SPINS = 100;
+	private static final long PARK_NANOS = 50_000;
+
+	/**
+	 * Cached, since values() copies.
+	 */
+	private static final GameEventType[] TYPES = GameEventType.values();
+
+	/**
+	 * The ring. -1 marks a slot never written.
+	 */
+	private final AtomicLongArray slots;
+
+	/**
+	 * Capacity - 1, for wrapping sequence numbers to slots.
+	 */
+	private final int mask;
+
+	/**
+	 * Sequence number of the next event. Publisher thread only.
+	 */
+	private long next = 0;
+
+	/**
+	 * Creates bus with the default capacity.
+	 */
+	public EventBus()
+	{
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates bus.
+	 *
+	 * @param capacity number of events kept; a power of two
+	 */
+	public EventBus(int capacity)
+	{
+		if (capacity <= 0 || Integer.bitCount(capacity) != 1)
+		{
+			throw new IllegalArgumentException("Capacity must be a power of " +
+					"two: " + capacity);
+		}
+		slots = new AtomicLongArray(capacity);
+		for (int i = 0; i < capacity; ++i)
+		{
+			slots.set(i, -1);
+		}
+		mask = capacity - 1;
+	}
+
+	/**
+	 * Publishes an event. Never blocks or allocates. Publisher thread only.
+	 *
+	 * @param type  event type
+	 * @param board HUMAN_BOARD or COMPUTER_BOARD
+	 * @param cell  row * 10 + col, or -1 if none
+	 * @param ship  ship index, or -1 if none
+	 * @param value type-specific value; clamped to 0 - 1023
+	 */
+	public void publish(GameEventType type, int board, int cell, int ship,
+						int value)
+	{
+		long event = type.ordinal()
+				| (board & 1) << 3
+				| (cell & 0x7F) << 4
+				| (ship & 0x7) << 11
+				| Math.max(0, Math.min(value, 1023)) << 14;
+		// Release store: a reader that sees the sequence sees the event.
+		slots.lazySet((int)(next & mask), next << SEQUENCE_SHIFT | event);
+		next++;
+	}
+
+	/**
+	 * Returns how many events have been published.
+	 *
+	 * @return events published; publisher thread only
+	 */
+	public long getPublished()
+	{
+		return next;
+	}
+
+	/**
+	 * Starts a subscriber thread that passes every event published from
+	 * now on (and any still in the ring) to a handler.
+	 *
+	 * @param handler handler, called on the new thread
+	 * @param name    thread name
+	 * @return        the running subscription
+	 */
+	public Subscription subscribe(GameEventHandler handler, String name)
+	{
+		Subscription subscription = new Subscription(handler);
+		Thread thread = new Thread(subscription, name);
+		thread.setDaemon(true);
+		subscription.thread = thread;
+		thread.start();
+		return subscription;
+	}
+
+	/**
+	 * One subscriber: its position in the ring and its thread.
+	 */
+	public final class Subscription implements Runnable, AutoCloseable
+	{
+		/**
+		 * Where events go.
+		 */
+		private final GameEventHandler handler;
+
+		/**
+		 * Sequence number of the next event to handle. Only the subscriber
+		 * thread writes it; volatile for awaitHandled.
+		 */
+		private volatile long position = 0;
+
+		/**
+		 * Events overwritten before this subscriber got to them.
+		 */
+		private volatile long lost = 0;
+
+		/**
+		 * Set by close: drain what's published, then stop.
+		 */
+		private volatile boolean closing = false;
+
+		/**
+		 * The subscriber thread.
+		 */
+		private Thread thread;
+
+		/**
+		 * Creates subscription.
+		 *
+		 * @param handler where events go
+		 */
+		private Subscription(GameEventHandler handler)
+		{
+			this.handler = handler;
+		}
+
+		/**
+		 * Subscriber loop: handles events as they come, spinning briefly
+		 * then parking while there are none.
+		 */
+		@Override
+		public void run()
+		{
+			int idle = 0;
+			while (true)
+			{
+				// Read first, so everything published before close is seen.
+				boolean done = closing;
+				if (poll())
+				{
+					idle = 0;
+				}
+				else if (done)
+				{
+					return;
+				}
+				else if (++idle < SPINS)
+				{
+					Thread.onSpinWait();
+				}
+				else
+				{
+					LockSupport.parkNanos(PARK_NANOS);
+				}
+			}
+		}
+
+		/**
+		 * Handles the next event if it has been published.
+		 *
+		 * @return false if there was nothing new
+		 */
+		private boolean poll()
+		{
+			long slot = slots.get((int)(position & mask));
+			long sequence = slot >>> SEQUENCE_SHIFT;
+			// Never written, or not yet rewritten on this lap.
+			if (slot < 0 || sequence < position)
+			{
+				return false;
+			}
+			// Lapped: skip to the oldest event the ring can still hold.
+			if (sequence > position)
+			{
+				long oldest = sequence - mask;
+				lost += oldest - position;
+				position = oldest;
+				return true;
+			}
+
+			int cell = (int)(slot >>> 4) & 0x7F;
+			int ship = (int)(slot >>> 11) & 0x7;
+			handler.onEvent(sequence, TYPES[(int)slot & 0x7],
+					(int)(slot >>> 3) & 1, (cell == 0x7F) ? -1 : cell,
+					(ship == 0x7) ? -1 : ship, (int)(slot >>> 14) & 0x3FF);
+			position++;
+			return true;
+		}
+
+		/**
+		 * Waits until this subscriber has handled (or lost) every event
+		 * published so far, e.g. so the console subscriber's output comes
+		 * before the game's next prompt. Publisher thread only.
+		 */
+		public void awaitHandled()
+		{
+			long published = next;
+			while (position < published && thread.isAlive())
+			{
+				LockSupport.parkNanos(PARK_NANOS);
+			}
+		}
+
+		/**
+		 * Returns how many events this subscriber missed by being lapped.
+		 *
+		 * @return events lost
+		 */
+		public long getLost()
+		{
+			return lost;
+		}
+
+		/**
+		 * Handles every event published so far, then stops the thread.
+		 */
+		@Override
+		public void close()
+		{
+			closing = true;
+			try
+			{
+				thread.join();
+			}
+			catch (InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+}
@@ -0,0 +1,347 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Packs a whole fleet's placement into a single long so that layouts
+ *      can be stored, hashed and compared without any object graph.
+ * Layout encoding:
+ *          Each of the five ships (in Carrier, Battleship, Cruiser,
+ *      Submarine, Destroyer order) takes 9 bits: 7 bits for the index of its
+ *      origin cell (row * 10 + col) and 2 bits for its direction, using the
+ *      same 0 North, 1 West, 2 South, 3 East convention as
+ *      GameBoard.placePoints. Ship i occupies bits [9i, 9i + 9).
+ *
+ *          Encoded layouts are canonical: the origin is always the ship's
+ *      top-left point and the direction is always South or East. A ship
+ *      placed "northward" from its bottom point therefore encodes the same as
+ *      one placed "southward" from its top point, so equal fleets always
+ *      encode to equal longs.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Static helpers for the packed fleet layout representation.
+ */
+public final class FleetLayout
+{
+	/**
+	 * Ship types and sizes, in encoding order.
+	 */
+	static final char[] TYPES = {'A', 'B', 'C', 'S', 'D'};
+	static final int[] SIZES = {5, 4, 3, 3, 2};
+	static final String[] NAMES = {"Carrier", "Battleship", "Cruiser",
+			"Submarine", "Destroyer"};
+
+	/**
+	 * Bits used by each ship and by the whole layout.
+	 */
+	static final int BITS_PER_SHIP = 9;
+	static final int NUM_SHIPS = 5;
+
+	/**
+	 * Directions, as in GameBoard.placePoints.
+	 */
+	static final int NORTH = 0;
+	static final int WEST = 1;
+	static final int SOUTH = 2;
+	static final int EAST = 3;
+
+	/**
+	 * Static helpers only.
+	 */
+	private FleetLayout()
+	{
+	}
+
+	/**
+	 * Returns a ship's index from its name.
+	 *
+	 * @param name ship name, e.g. "Carrier"
+	 * @return     ship index, 0 - 4, or -1 if not a ship name
+	 */
+	static int indexOfName(String name)
+	{
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			if (NAMES[ship].equals(name))
+			{
+				return ship;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Packs one ship's placement into a layout.
+	 *
+	 * @param layout layout so far
+	 * @param ship   ship index, 0 - 4
+	 * @param row    origin row
+	 * @param col    origin col
+	 * @param dir    direction (0 - 3)
+	 * @return       the layout with the ship's bits set
+	 */
+	static long withShip(long layout, int ship, int row, int col, int dir)
+	{
+		int size = SIZES[ship];
+
+		// Canonicalize to the top-left point, heading South or East.
+		if (dir == NORTH)
+		{
+			row -= size - 1;
+			dir = SOUTH;
+		}
+		else if (dir == WEST)
+		{
+			col -= size - 1;
+			dir = EAST;
+		}
+
+		long bits = ((long)(row * 10 + col) << 2) | dir;
+		int shift = ship * BITS_PER_SHIP;
+		layout &= ~(0x1FFL << shift);
+		return layout | (bits << shift);
+	}
+
+	/**
+	 * Returns the origin cell index (row * 10 + col) of a ship.
+	 *
+	 * @param layout packed layout
+	 * @param ship   ship index, 0 - 4
+	 * @return       origin cell index
+	 */
+	static int getOrigin(long layout, int ship)
+	{
+		return (int)(layout >>> (ship * BITS_PER_SHIP + 2)) & 0x7F;
+	}
+
+	/**
+	 * Returns the direction of a ship.
+	 *
+	 * @param layout packed layout
+	 * @param ship   ship index, 0 - 4
+	 * @return       direction (0 - 3)
+	 */
+	static int getDirection(long layout, int ship)
+	{
+		return (int)(layout >>> (ship * BITS_PER_SHIP)) & 0x3;
+	}
+
+	/**
+	 * Encodes the ship placement of a board. Uses the board's list of ship
+	 * points, which, unlike the Ship objects, isn't consumed by hits.
+	 *
+	 * @param gameBoard board with all five ships placed
+	 * @return          packed layout
+	 */
+	static long encode(GameBoard gameBoard)
+	{
+		long layout = 0;
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			int minRow = 10;
+			int minCol = 10;
+			int maxRow = -1;
+			for (ShipPoint point : gameBoard.shipPoints)
+			{
+				if (point.getType() == TYPES[ship])
+				{
+					minRow = Math.min(minRow, point.getRow());
+					minCol = Math.min(minCol, point.getCol());
+					maxRow = Math.max(maxRow, point.getRow());
+				}
+			}
+			if (maxRow < 0)
+			{
+				throw new IllegalArgumentException("Board has no " +
+						TYPES[ship] + " ship to encode.");
+			}
+			int dir = (maxRow > minRow) ? SOUTH : EAST;
+			layout = withShip(layout, ship, minRow, minCol, dir);
+		}
+		return layout;
+	}
+
+	/**
+	 * Returns whether a layout is a legal fleet: every ship on the board and
+	 * no two ships overlapping. Works directly on the packed value, so
+	 * corpus readers can validate records without building a GameBoard.
+	 *
+	 * @param layout packed layout
+	 * @return       true if the layout is legal
+	 */
+	static boolean isValid(long layout)
+	{
+		// Bits above the five ships must be clear.
+		if ((layout >>> (NUM_SHIPS * BITS_PER_SHIP)) != 0)
+		{
+			return false;
+		}
+
+		// 100 cells as a low (0 - 63) and high (64 - 99) mask.
+		long low = 0;
+		long high = 0;
+
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			int origin = getOrigin(layout, ship);
+			int dir = getDirection(layout, ship);
+			if (origin >= 100 || (dir != SOUTH && dir != EAST))
+			{
+				return false;
+			}
+			int row = origin / 10;
+			int col = origin % 10;
+			int size = SIZES[ship];
+
+			// Went off the edge.
+			if ((dir == SOUTH && row + size > 10)
+					|| (dir == EAST && col + size > 10))
+			{
+				return false;
+			}
+
+			for (int i = 0; i < size; ++i)
+			{
+				int cell = (dir == SOUTH) ? origin + 10 * i : origin + i;
+				if (cell < 64)
+				{
+					if ((low & (1L << cell)) != 0)
+					{
+						return false;
+					}
+					low |= 1L << cell;
+				}
+				else
+				{
+					if ((high & (1L << (cell - 64))) != 0)
+					{
+						return false;
+					}
+					high |= 1L << (cell - 64);
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Builds a GameBoard with the layout's ships placed and set up.
+	 *
+	 * @param layout packed layout
+	 * @return       a fresh, unshot board
+	 * @throws IllegalArgumentException if the layout isn't a legal fleet
+	 */
+	static GameBoard toBoard(long layout)
+	{
+		GameBoard gameBoard = new GameBoard(false);
+		place(gameBoard, layout);
+		return gameBoard;
+	}
+
+	/**
+	 * Resets a board in place and places the layout's ships on it in one
+	 * step (see GameBoard.placeFleet), so one board can be reused for many
+	 * layouts.
+	 *
+	 * @param gameBoard board to reuse
+	 * @param layout    packed layout
+	 * @throws IllegalArgumentException if the layout isn't a legal fleet
+	 */
+	static void place(GameBoard gameBoard, long layout)
+	{
+		// placeFleet checks everything else isValid does.
+		if ((layout >>> (NUM_SHIPS * BITS_PER_SHIP)) != 0)
+		{
+			throw new IllegalArgumentException("Illegal fleet layout: " +
+					Long.toHexString(layout));
+		}
+		int[] rows = new int[NUM_SHIPS];
+		int[] cols = new int[NUM_SHIPS];
+		int[] dirs = new int[NUM_SHIPS];
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			int origin = getOrigin(layout, ship);
+			rows[ship] = origin / 10;
+			cols[ship] = origin % 10;
+			dirs[ship] = getDirection(layout, ship);
+		}
+		List<String> conflicts = gameBoard.placeFleet(TYPES, rows, cols,
+				dirs);
+		if (!conflicts.isEmpty())
+		{
+			throw new IllegalArgumentException("Illegal fleet layout: " +
+					Long.toHexString(layout) + " " + conflicts);
+		}
+	}
+
+	/**
+	 * Draws a layout uniformly at random from all legal fleets. Each ship
+	 * picks uniformly from all its placements and the whole fleet is redrawn
+	 * on any overlap, which keeps every legal layout equally likely (unlike
+	 * GameBoard's origin-then-direction placement).
+	 *
+	 * @param rand source of randomness
+	 * @return     packed layout
+	 */
+	static long randomUniform(Random rand)
+	{
+		while (true)
+		{
+			long layout = 0;
+			long low = 0;
+			long high = 0;
+			boolean overlaps = false;
+
+			for (int ship = 0; ship < NUM_SHIPS && !overlaps; ++ship)
+			{
+				int size = SIZES[ship];
+				// Placements per orientation: 10 lines, 11 - size starts each.
+				int perOrientation = 10 * (11 - size);
+				int pick = rand.nextInt(2 * perOrientation);
+				int dir = (pick < perOrientation) ? EAST : SOUTH;
+				pick %= perOrientation;
+
+				int row;
+				int col;
+				if (dir == EAST)
+				{
+					row = pick / (11 - size);
+					col = pick % (11 - size);
+				}
+				else
+				{
+					row = pick % (11 - size);
+					col = pick / (11 - size);
+				}
+
+				for (int i = 0; i < size; ++i)
+				{
+					int cell = (dir == SOUTH) ? (row + i) * 10 + col
+							: row * 10 + col + i;
+					if (cell < 64)
+					{
+						overlaps |= (low & (1L << cell)) != 0;
+						low |= 1L << cell;
+					}
+					else
+					{
+						overlaps |= (high & (1L << (cell - 64))) != 0;
+						high |= 1L << (cell - 64);
+					}
+				}
+				layout = withShip(layout, ship, row, col, dir);
+			}
+
+			if (!overlaps)
+			{
+				return layout;
+			}
+		}
+	}
+}
@@ -19,6 +19,29 @@
  *          (This first gets the right ships.txt file, then temporarily sets
  *          classpath to bin folder and runs the Game class in the battleship
  *          package.)
+ *      Options:
+ *          --metrics          print AI and game metrics when the session ends.
+ *          --metrics=<file>   write them to <file> instead.
+ *          --salvo            play Salvo: each turn, fire one shot per ship
+ *                             you have left.
+ *          --replay=<file>    log every placement, volley, shot and game
+ *                             over to <file> (see ReplayLog).
+ *          --fleet=<spec>     place your whole fleet at once every game.
+ *                             <spec> is the Carrier, Battleship, Cruiser,
+ *                             Submarine and Destroyer's origin and direction,
+ *                             comma-separated, e.g. 1AS,1BS,1CS,1DS,1ES.
+ *          --priors=<file>    learn where you like to put your ships, kept
+ *                             in <file> (see PriorStore), and hunt there
+ *                             first.
+ *          --player=<name>    whose placement prior to use (default
+ *                             "player").
+ *          --adversarial=<file>
+ *                             place the computer's fleet from a pool of
+ *                             hard-to-find layouts (see AdversarialPlacement),
+ *                             randomly rotated or reflected, instead of at
+ *                             random.
+ *          --no-ponder        don't let the computer work out its next shot
+ *                             while you choose yours.
  */
 
 package battleship;
@@ -41,76 +64,385 @@ public class Game
     static Computer computer;
 
     /**
-     * Just calls primary game loop method with appropriate argument.
+     * Where to write the metrics snapshot; "" for standard output. Null if
+     * metrics are off.
+     */
+    static String metricsFile = null;
+
+    /**
+     * Where to write the replay log; null for none.
+     */
+    static String replayFile = null;
+
+    /**
+     * The player's fleet, as given with --fleet; null to place ships one by
+     * one.
+     */
+    static String fleetSpec = null;
+
+    /**
+     * Where placement priors are kept; null to not use them.
+     */
+    static String priorsFile = null;
+
+    /**
+     * Whose placement prior to use and update.
+     */
+    static String player = "player";
+
+    /**
+     * Open placement prior store, or null.
+     */
+    static PriorStore priors = null;
+
+    /**
+     * Layouts for the computer's fleet, from --adversarial; null to place
+     * it at random.
+     */
+    static long[] adversarialPool = null;
+
+    /**
+     * Whether each side fires one shot per surviving ship each turn.
+     */
+    static boolean salvo = false;
+
+    /**
+     * Whether the computer ponders its next shot during the human's turn.
+     */
+    static boolean pondering = true;
+
+    /**
+     * Game events, for the console, replay log and metrics subscribers.
+     */
+    static EventBus events = null;
+
+    /**
+     * The console subscriber (see ConsoleRenderer). Awaited wherever its
+     * output has to come before the game's own.
+     */
+    static EventBus.Subscription console = null;
+
+    /**
+     * Parses options then calls primary game loop method.
      *
-     * @throws FileNotFoundException if no initial AI ships text file
+     * @throws IOException if no initial AI ships text file, or if the metrics
+     *                     snapshot, replay log or placement priors can't be
+     *                     written
      */
-    public static void main(String[] args) throws FileNotFoundException
+    public static void main(String[] args) throws IOException
     {
-        // true because first playthrough of game.
-        playGame(true);
+        for (String arg : args)
+        {
+            if (arg.equals("--metrics"))
+            {
+                metricsFile = "";
+            }
+            else if (arg.startsWith("--metrics="))
+            {
+                metricsFile = arg.substring("--metrics=".length());
+            }
+            else if (arg.equals("--salvo"))
+            {
+                salvo = true;
+            }
+            else if (arg.equals("--no-ponder"))
+            {
+                pondering = false;
+            }
+            else if (arg.startsWith("--replay="))
+            {
+                replayFile = arg.substring("--replay=".length());
+            }
+            else if (arg.startsWith("--fleet="))
+            {
+                fleetSpec = arg.substring("--fleet=".length());
+            }
+            else if (arg.startsWith("--priors="))
+            {
+                priorsFile = arg.substring("--priors=".length());
+            }
+            else if (arg.startsWith("--player="))
+            {
+                player = arg.substring("--player=".length());
+            }
+            else if (arg.startsWith("--adversarial="))
+            {
+                String poolFile = arg.substring("--adversarial=".length());
+                try
+                {
+                    adversarialPool = AdversarialPlacement.readPool(poolFile);
+                }
+                catch (IOException e)
+                {
+                    System.out.println("Couldn't read the adversarial pool: " +
+                            e.getMessage() + " Exiting.");
+                    System.exit(1);
+                }
+                if (adversarialPool.length == 0)
+                {
+                    System.out.println(poolFile + " has no layouts. Exiting.");
+                    System.exit(1);
+                }
+            }
+            else
+            {
+                System.out.println("Unknown option " + arg + ". Exiting.");
+                System.exit(1);
+            }
+        }
+        Metrics.enabled = metricsFile != null;
+
+        // Subscribers drain events on their own threads.
+        List<EventBus.Subscription> subscriptions = new ArrayList<>();
+        ReplayLog replay = null;
+        events = new EventBus();
+        console = events.subscribe(new ConsoleRenderer(System.out),
+                "console");
+        subscriptions.add(console);
+        if (replayFile != null)
+        {
+            replay = new ReplayLog(replayFile);
+            subscriptions.add(events.subscribe(replay, "replay-log"));
+        }
+        if (Metrics.enabled)
+        {
+            subscriptions.add(events.subscribe(Metrics::countEvent,
+                    "event-metrics"));
+        }
+
+        if (priorsFile != null)
+        {
+            try
+            {
+                priors = new PriorStore(priorsFile,
+                        PriorStore.DEFAULT_CACHE_SIZE);
+                priors.get(player);
+            }
+            catch (IOException | IllegalArgumentException e)
+            {
+                System.out.println("Couldn't open placement priors: " +
+                        e.getMessage() + " Exiting.");
+                System.exit(1);
+            }
+        }
+
+        try
+        {
+            playGame();
+        }
+        finally
+        {
+            if (computer != null)
+            {
+                computer.setPondering(false);
+            }
+            if (priors != null)
+            {
+                priors.close();
+            }
+        }
+
+        for (EventBus.Subscription subscription : subscriptions)
+        {
+            subscription.close();
+            if (subscription.getLost() > 0)
+            {
+                System.out.println("Warning: an event subscriber fell " +
+                        "behind and missed " + subscription.getLost() +
+                        " events.");
+            }
+        }
+        if (replay != null)
+        {
+            replay.close();
+        }
+
+        if (metricsFile != null)
+        {
+            if (metricsFile.isEmpty())
+            {
+                System.out.println("\nMetrics:");
+                System.out.print(Metrics.snapshot());
+            }
+            else
+            {
+                Metrics.writeSnapshot(metricsFile);
+            }
+        }
     }
 
     /**
-     * The main game loop.
+     * The main game loop. Plays games until the user stops, reusing the same
+     * boards and Computer every game, so long sessions don't build up
+     * objects or stack.
      *
-     * @param firstTime              true if first game
-     * @throws FileNotFoundException if no initial AI ships text file
+     * @throws IOException if no initial AI ships text file, or the placement
+     *                     priors can't be read or written
      */
-    private static void playGame(Boolean firstTime) throws FileNotFoundException
+    private static void playGame() throws IOException
     {
-        GameBoard computerGameBoard;
-        GameBoard playerGameBoard;
-
         // First playthrough has AI use provided ships text file.
-        if (firstTime)
+        GameBoard computerGameBoard = new GameBoard("ships.txt");
+        GameBoard playerGameBoard = new GameBoard(false);
+        computer = new Computer(playerGameBoard);
+        computer.setPondering(pondering);
+        Random rand = new Random();
+        playerGameBoard.setEventBus(events, EventBus.HUMAN_BOARD);
+        computerGameBoard.setEventBus(events, EventBus.COMPUTER_BOARD);
+        if (adversarialPool != null)
         {
-            computerGameBoard = new GameBoard("ships.txt");
+            placeAdversarial(computerGameBoard, rand);
         }
-        else
+
+        while (true)
         {
-            // Give computer a random gameboard.
-            computerGameBoard = new GameBoard(true);
-        }
+            // Let player place ships, all at once if a fleet was given.
+            if (!placeFleet(playerGameBoard))
+            {
+                customizeBoard(playerGameBoard, computerGameBoard);
+            }
+            playerGameBoard.publishPlacements();
+            computerGameBoard.publishPlacements();
+            if (priors != null)
+            {
+                computer.setPlacementPrior(priors.get(player).weights(
+                        PlacementPrior.DEFAULT_BLEND));
+            }
 
-        // Instantiate gameboard for player and let him/her place ships.
-        playerGameBoard = new GameBoard(false);
-        customizeBoard(playerGameBoard, computerGameBoard);
+            do
+            {
+                playOneTurn(playerGameBoard, computerGameBoard);
+            }
+            // Loop until one game board has no ships left.
+            while (!playerGameBoard.areNoShipsLeft() &&
+                    !computerGameBoard.areNoShipsLeft());
+
+            GameBoard loser = computerGameBoard.areNoShipsLeft()
+                    ? computerGameBoard : playerGameBoard;
+            events.publish(GameEventType.GAME_OVER, loser.eventBoard, -1, -1,
+                    loser.getShotsTaken());
+            // Final boards first.
+            console.awaitHandled();
+            if (priors != null)
+            {
+                priors.record(player, FleetLayout.encode(playerGameBoard),
+                        PlacementPrior.DEFAULT_DECAY);
+            }
 
-        computer = new Computer(playerGameBoard);
+            if (computerGameBoard.areNoShipsLeft())
+            {
+                System.out.println("\nCongratulations, you've won! Nice job.");
+            }
+            else if (playerGameBoard.areNoShipsLeft())
+            {
+                if (Metrics.enabled)
+                {
+                    Metrics.SHOTS_TO_WIN.record(computer.getShotCount());
+                }
+                System.out.println("\nSorry, the computer has beaten you. " +
+                        "Better luck next time!");
+            }
 
-        do
+            // Find out if user wants to play again.
+            System.out.printf("\nDo you want to play again? Enter %s " +
+                    "or %s: ", "Y", "N");
+            char response = reader.next().charAt(0);
+            if (response != 'Y' && response != 'y')
+            {
+                System.out.println("Okay, thanks for playing!");
+                break;
+            }
+            System.out.println("Okay, new game commencing. Good luck!");
+
+            // Give computer a new gameboard and start everything afresh.
+            if (adversarialPool != null)
+            {
+                placeAdversarial(computerGameBoard, rand);
+            }
+            else
+            {
+                computerGameBoard.reset(rand);
+            }
+            playerGameBoard.reset();
+            computer.reset();
+        }
+    }
+
+    /**
+     * Places the computer's fleet from the adversarial pool: a random
+     * layout under a random one of the board's 8 rotations and
+     * reflections, which the search scored it under, so repeat games don't
+     * show the human the same few fleets.
+     *
+     * @param board computer's game board
+     * @param rand  source of randomness
+     */
+    private static void placeAdversarial(GameBoard board, Random rand)
+    {
+        long layout = adversarialPool[rand.nextInt(adversarialPool.length)];
+        FleetLayout.place(board, AdversarialPlacement.transform(layout,
+                rand.nextInt(AdversarialPlacement.SYMMETRIES)));
+    }
+
+    /**
+     * Places the fleet given with --fleet, reporting every problem with it
+     * at once if it can't be placed.
+     *
+     * @param board human player's board
+     * @return      true if the fleet was placed
+     */
+    private static boolean placeFleet(GameBoard board)
+    {
+        if (fleetSpec == null)
         {
-            playOneTurn(playerGameBoard, computerGameBoard);
+            return false;
         }
-        // Loop until one game board has no ships left.
-        while (!playerGameBoard.areNoShipsLeft() &&
-                !computerGameBoard.areNoShipsLeft());
 
-        if (computerGameBoard.areNoShipsLeft())
+        String[] specs = fleetSpec.toUpperCase().split(",");
+        List<String> conflicts = new ArrayList<>();
+        int[] rows = new int[specs.length];
+        int[] cols = new int[specs.length];
+        int[] dirs = new int[specs.length];
+        for (int i = 0; i < specs.length; ++i)
         {
-            System.out.println("\nCongratulations, you've won! Nice job.");
+            String spec = specs[i].trim();
+            String name = (i < FleetLayout.NUM_SHIPS) ? FleetLayout.NAMES[i]
+                    : "Ship " + (i + 1);
+            try
+            {
+                dirs[i] = "NWSE".indexOf(spec.charAt(spec.length() - 1));
+                cols[i] = "ABCDEFGHIJ".indexOf(spec.charAt(spec.length() - 2));
+                rows[i] = Integer.parseInt(spec.substring(0,
+                        spec.length() - 2)) - 1;
+                if (dirs[i] < 0 || cols[i] < 0)
+                {
+                    conflicts.add(name + ": \"" + spec + "\" isn't a row, " +
+                            "column and direction (N, W, S, E).");
+                }
+            }
+            catch (NumberFormatException | IndexOutOfBoundsException e)
+            {
+                conflicts.add(name + ": \"" + spec + "\" isn't a row, " +
+                        "column and direction (N, W, S, E).");
+            }
         }
-        else if (playerGameBoard.areNoShipsLeft())
+        if (conflicts.isEmpty())
         {
-            System.out.println("\nSorry, the computer has beaten you. " +
-                    "Better luck next time!");
+            conflicts = board.placeFleet(Arrays.copyOf(FleetLayout.TYPES,
+                    specs.length), rows, cols, dirs);
         }
-
-        // Find out if user wants to play again.
-        System.out.printf("\nDo you want to play again? Enter %s " +
-                "or %s: ", "Y", "N");
-        char response = reader.next().charAt(0);
-        if (response == 'Y' || response == 'y')
+        if (conflicts.isEmpty())
         {
-            System.out.println("Okay, new game commencing. Good luck!");
-            // Call itself, but with argument false since no longer first time.
-            playGame(false);
+            return true;
         }
-        else
+
+        System.out.println("\nYour fleet couldn't be placed:");
+        for (String conflict : conflicts)
         {
-            System.out.println("Okay, thanks for playing!");
+            System.out.println("  " + conflict);
         }
+        System.out.println("Place your ships one by one instead.");
+        return false;
     }
 
     /**
@@ -219,7 +551,9 @@ public class Game
     }
 
     /**
-     * Plays a single turn (human and computer).
+     * Plays a single turn (human and computer). In Salvo games each side
+     * fires a volley, one shot per ship it has left, that is resolved only
+     * once every shot has been entered.
      *
      * @param ofHuman    human player's game board
      * @param ofComputer computer's game board
@@ -229,6 +563,58 @@ public class Game
         outputGameBoards(ofHuman, ofComputer);
         outputShips(ofHuman);
 
+        int shots = salvo ? ofHuman.getShipsLeft() : 1;
+        if (salvo)
+        {
+            System.out.printf("You have %d %s this turn.\n", shots,
+                    (shots == 1) ? "shot" : "shots");
+        }
+        // A Salvo volley's size depends on the human's shots, so isn't
+        // pondered.
+        if (!salvo)
+        {
+            computer.ponder(ofHuman);
+        }
+        int[] volley = new int[shots];
+        for (int i = 0; i < shots; ++i)
+        {
+            volley[i] = readShot(ofComputer, volley, i);
+        }
+        if (salvo)
+        {
+            ofComputer.updateBoardAfterVolley(true, volley);
+        }
+        else
+        {
+            ofComputer.updateBoardAfterShot(true, volley[0] / 10 + 1,
+                    "ABCDEFGHIJ".charAt(volley[0] % 10));
+        }
+        // The console prints the shots' outcomes before anything else.
+        console.awaitHandled();
+
+        System.out.println("\nComputer's turn.\n");
+        if (salvo)
+        {
+            computer.playOneVolley(ofHuman, ofComputer.getShipsLeft());
+        }
+        else
+        {
+            computer.playOneTurn(ofHuman);
+        }
+        console.awaitHandled();
+    }
+
+    /**
+     * Reads one legal shot from the user.
+     *
+     * @param ofComputer computer's game board
+     * @param volley     shots already entered this turn, as row * 10 + col
+     * @param entered    number of shots already entered
+     * @return           row * 10 + col of the shot
+     */
+    private static int readShot(GameBoard ofComputer, int[] volley,
+                                int entered)
+    {
         String legalCols = "ABCDEFGHIJ";
         int row;
         char col;
@@ -266,10 +652,17 @@ public class Game
                         System.out.println("You've already shot here! " +
                                 "Try again.\n");
                     }
+                    // Or is already shooting here this turn.
+                    else if (isInVolley(volley, entered,
+                            (row - 1) * 10 + legalCols.indexOf(col)))
+                    {
+                        System.out.println("You're already shooting here " +
+                                "this turn! Try again.\n");
+                    }
                     else
                     {
                         // Legal shot.
-                        break;
+                        return (row - 1) * 10 + legalCols.indexOf(col);
                     }
                 }
                 // Else, have user try again.
@@ -288,11 +681,26 @@ public class Game
                 reader.next();
             }
         }
-        ofComputer.updateBoardAfterShot(true, row, col);
-
-        System.out.println("\nComputer's turn.\n");
-        computer.playOneTurn(ofHuman);
+    }
 
+    /**
+     * Returns whether a cell is among the shots entered so far this turn.
+     *
+     * @param volley  shots entered this turn
+     * @param entered number of shots entered
+     * @param cell    row * 10 + col
+     * @return        true if already entered
+     */
+    private static boolean isInVolley(int[] volley, int entered, int cell)
+    {
+        for (int i = 0; i < entered; ++i)
+        {
+            if (volley[i] == cell)
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
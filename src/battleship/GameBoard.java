@@ -49,6 +49,40 @@ public class GameBoard
 	ArrayList<ShipPoint> rawCruiser = new ArrayList<>(3);
 	ArrayList<ShipPoint> rawSubmarine = new ArrayList<>(3);
 	ArrayList<ShipPoint> rawDestroyer = new ArrayList<>(2);
+
+	/**
+	 * The raw lists by ship index (FleetLayout order).
+	 */
+	private final List<ArrayList<ShipPoint>> rawShips = Arrays.asList(
+			rawCarrier, rawBattleship, rawCruiser, rawSubmarine, rawDestroyer);
+
+	/**
+	 * Scratch for placeFleet: each ship's cell mask (cells 0 - 63 and
+	 * 64 - 99) and which entry of the fleet spec placed it.
+	 */
+	private final long[] fleetLow = new long[5];
+	private final long[] fleetHigh = new long[5];
+	private final int[] fleetGiven = new int[5];
+
+	/**
+	 * Where shot outcomes and placements are published, if anywhere, and
+	 * this board's id on it.
+	 */
+	EventBus events = null;
+	int eventBoard;
+
+	/**
+	 * Undo journal for checkpoint and rollback: one entry per shot that
+	 * changed the board, newest last. An entry is the cell, its mark before
+	 * the shot and, for a hit, the ShipPoint taken off the ship and where it
+	 * was in the ship's list. A cell only changes once, so 100 entries is
+	 * always enough.
+	 */
+	private final int[] journalCells = new int[100];
+	private final char[] journalMarks = new char[100];
+	private final ShipPoint[] journalPoints = new ShipPoint[100];
+	private final int[] journalIndices = new int[100];
+	private int journalSize = 0;
 	
 	/**
 	 * Constructs game board with provided file.
@@ -128,17 +162,69 @@ public class GameBoard
 
 		if (random)
 		{
-			randomizeBoard();
+			randomizeBoard(new Random());
 			setUpShips();
 		}
 	}
 
+	/**
+	 * Overloaded constructor for a randomized board drawn from the given
+	 * generator, so that simulations and corpus generation are repeatable.
+	 *
+	 * @param rand source of randomness for ship placement
+	 */
+	public GameBoard(Random rand)
+	{
+		this(false);
+		randomizeBoard(rand);
+		setUpShips();
+	}
+
+	/**
+	 * Clears the board in place for a new game: no shots and no ships. The
+	 * board array and lists are kept, so a long session or a bulk
+	 * simulation reuses the same objects every game.
+	 */
+	public void reset()
+	{
+		for (int j = 0; j < numRows; ++j)
+		{
+			for (int k = 0; k < numColumns; ++k)
+			{
+				board[j][k] = ' ';
+			}
+		}
+		shipPoints.clear();
+		ships.clear();
+		rawCarrier.clear();
+		rawBattleship.clear();
+		rawCruiser.clear();
+		rawSubmarine.clear();
+		rawDestroyer.clear();
+		Arrays.fill(journalPoints, null);
+		journalSize = 0;
+	}
+
+	/**
+	 * Clears the board in place and places a new random fleet, like the
+	 * GameBoard(Random) constructor.
+	 *
+	 * @param rand source of randomness for ship placement
+	 */
+	public void reset(Random rand)
+	{
+		reset();
+		randomizeBoard(rand);
+		setUpShips();
+	}
+
 	/**
 	 * Randomizes board's ship placement.
+	 *
+	 * @param rand source of randomness for ship placement
 	 */
-	private void randomizeBoard()
+	private void randomizeBoard(Random rand)
 	{
-		Random rand;
 		int row;
 		int col;
 		
@@ -155,8 +241,6 @@ public class GameBoard
 		{
 			while(true)
 			{
-				rand = new Random();
-				
 				// Get a random "origin" point for ship.
 				row = rand.nextInt(10);
 				col = rand.nextInt(10);
@@ -167,8 +251,6 @@ public class GameBoard
 				 */
 				if (board[row][col] == ' ')
 				{
-					rand = new Random();
-					
 					// Get random direction to place ship in.
 					// max - min + 1 (to make max inclusive).
 					dir = rand.nextInt(4);
@@ -248,6 +330,147 @@ public class GameBoard
 		return toReturn;
 	}
 	
+	/**
+	 * Places a whole fleet in one step, replacing any ships already placed.
+	 * Every ship is checked against the board's edges and every other ship
+	 * using 100-bit cell masks (cells 0 - 63 in one long, 64 - 99 in
+	 * another), and all conflicts are reported together. The board is only
+	 * changed if there are none; the Ship objects are then built directly,
+	 * so setUpShips must not be called.
+	 *
+	 * @param types ship types; each of A, B, C, S and D exactly once
+	 * @param rows  row of each ship's origin point
+	 * @param cols  col of each ship's origin point
+	 * @param dirs  direction of each ship, as in placePoints
+	 * @return      conflicts, e.g. "Cruiser overlaps Carrier at 3C"; empty
+	 *              if the fleet was placed
+	 */
+	public List<String> placeFleet(char[] types, int[] rows, int[] cols,
+								   int[] dirs)
+	{
+		List<String> conflicts = new ArrayList<>();
+		if (types.length != NUM_SHIPS || rows.length != NUM_SHIPS
+				|| cols.length != NUM_SHIPS || dirs.length != NUM_SHIPS)
+		{
+			conflicts.add("A fleet is exactly " + NUM_SHIPS + " ships.");
+			return conflicts;
+		}
+
+		// Each ship's cells, by ship index (FleetLayout order).
+		long[] low = fleetLow;
+		long[] high = fleetHigh;
+		int[] given = fleetGiven;
+		Arrays.fill(low, 0);
+		Arrays.fill(high, 0);
+		Arrays.fill(given, -1);
+		// Every cell taken so far.
+		long fleetCellsLow = 0;
+		long fleetCellsHigh = 0;
+
+		for (int i = 0; i < NUM_SHIPS; ++i)
+		{
+			int ship = shipIndex(types[i]);
+			if (ship < 0)
+			{
+				conflicts.add("'" + types[i] + "' isn't a ship type.");
+				continue;
+			}
+			String name = FleetLayout.NAMES[ship];
+			if (given[ship] >= 0)
+			{
+				conflicts.add(name + " is placed more than once.");
+				continue;
+			}
+			given[ship] = i;
+
+			if (dirs[i] < 0 || dirs[i] > 3)
+			{
+				conflicts.add(name + " has no direction " + dirs[i] + ".");
+				continue;
+			}
+			int size = FleetLayout.SIZES[ship];
+			int dRow = (dirs[i] == 0) ? -1 : (dirs[i] == 2) ? 1 : 0;
+			int dCol = (dirs[i] == 1) ? -1 : (dirs[i] == 3) ? 1 : 0;
+			int endRow = rows[i] + dRow * (size - 1);
+			int endCol = cols[i] + dCol * (size - 1);
+			if (Math.min(rows[i], endRow) < 0 || Math.max(rows[i], endRow) > 9
+					|| Math.min(cols[i], endCol) < 0
+					|| Math.max(cols[i], endCol) > 9)
+			{
+				conflicts.add(name + " goes off the board.");
+				continue;
+			}
+			for (int k = 0; k < size; ++k)
+			{
+				int cell = (rows[i] + dRow * k) * 10 + cols[i] + dCol * k;
+				if (cell < 64)
+				{
+					low[ship] |= 1L << cell;
+				}
+				else
+				{
+					high[ship] |= 1L << (cell - 64);
+				}
+			}
+
+			// Overlaps with ships already checked, if any: find which.
+			boolean overlaps = (low[ship] & fleetCellsLow) != 0
+					|| (high[ship] & fleetCellsHigh) != 0;
+			fleetCellsLow |= low[ship];
+			fleetCellsHigh |= high[ship];
+			for (int other = 0; overlaps && other < NUM_SHIPS; ++other)
+			{
+				if (other == ship || given[other] < 0)
+				{
+					continue;
+				}
+				long lowOverlap = low[ship] & low[other];
+				long highOverlap = high[ship] & high[other];
+				if ((lowOverlap | highOverlap) != 0)
+				{
+					int cell = (lowOverlap != 0)
+							? Long.numberOfTrailingZeros(lowOverlap)
+							: 64 + Long.numberOfTrailingZeros(highOverlap);
+					conflicts.add(name + " overlaps "
+							+ FleetLayout.NAMES[other] + " at " + (cell / 10 + 1)
+							+ "ABCDEFGHIJ".charAt(cell % 10) + ".");
+				}
+			}
+		}
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			if (given[ship] < 0)
+			{
+				conflicts.add(FleetLayout.NAMES[ship] + " is missing.");
+			}
+		}
+		if (!conflicts.isEmpty())
+		{
+			return conflicts;
+		}
+
+		// All clear: lay the fleet down and build the ships directly.
+		reset();
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			char type = FleetLayout.TYPES[ship];
+			int i = given[ship];
+			int dRow = (dirs[i] == 0) ? -1 : (dirs[i] == 2) ? 1 : 0;
+			int dCol = (dirs[i] == 1) ? -1 : (dirs[i] == 3) ? 1 : 0;
+			for (int k = 0; k < FleetLayout.SIZES[ship]; ++k)
+			{
+				int row = rows[i] + dRow * k;
+				int col = cols[i] + dCol * k;
+				ShipPoint point = new ShipPoint(type, row, col);
+				board[row][col] = type;
+				shipPoints.add(point);
+				rawShips.get(ship).add(point);
+			}
+			ships.add(new Ship(rawShips.get(ship)));
+		}
+		return conflicts;
+	}
+
 	/**
 	 * Returns whether path is clear for ship to be placed.
 	 * 
@@ -347,13 +570,16 @@ public class GameBoard
 	}
 	
 	/**
-	 * Updates game board after a shot.
+	 * Updates game board after a shot. Prints nothing: the outcome goes to
+	 * the event bus, if any, for the console (see ConsoleRenderer).
 	 * 
 	 * @param belongsToComputer true if board being updated is computer's
 	 * @param rawRow            user-input row number
 	 * @param rawCol            user-input col letter
+	 * @return                  what the shot did, for the shooter to learn
+	 *                          from
 	 */
-	public String updateBoardAfterShot(boolean belongsToComputer, int rawRow,
+	public ShotOutcome updateBoardAfterShot(boolean belongsToComputer, int rawRow,
 								  char rawCol)
 	{
 		// Subtract 1 because board is 0-indexed.
@@ -361,126 +587,195 @@ public class GameBoard
 		// Convert column letter to numerical index.
 		int col = "ABCDEFGHIJ".indexOf(rawCol);
 
-		// Message to be printed.
-		String message = "";
+		ShotOutcome outcome = ShotOutcome.MISS;
+
+		// For Flight Recorder. Free unless recording.
+		ShotEvent event = new ShotEvent();
+		char type = board[row][col];
 		
 		// A miss.
 		if (board[row][col] == ' ') 
 		{
 			// Mark as a miss.
+			journal(row * 10 + col, ' ', null, -1);
 			board[row][col] = 'O';
-
-			// Print out differing messages based on whether computer's or not.
-			if (belongsToComputer)
-			{
-				System.out.printf("\n%d%s was a miss. Better luck next " +
-						"time!\n", rawRow, rawCol);
-			}
-			else
-			{
-				System.out.printf("The computer missed with %d%s!\n",
-						rawRow, rawCol);
-			}
 		}
-		// Already shot here. Neither hit or miss.
-		else if (board[row][col] == 'X' || board[row][col] == 'O')
+		// Else must be a hit, unless already shot here: neither hit or miss.
+		else if (board[row][col] != 'X' && board[row][col] != 'O')
 		{
-			System.out.printf("\nAlready shot at %d%s!\n", rawRow, rawCol);
+			int ship = shipIndex(type);
+			if (ship < 0)
+			{
+				System.out.printf("Something went wrong! %s isn't a legal " +
+						"ship type.", type);
+				System.exit(1);
+			}
+			/*
+			 * Ships will always be in same position even when sunk, because
+			 * each ship is just an object containing an array of ShipPoints.
+			 * Being sunk merely means the ship has an empty array of the
+			 * points.
+			 */
+			Ship currShip = ships.get(ship);
+			// Update ship, i.e., remove hit ship point from array.
+			int index = currShip.indexOfPoint(row, col);
+			journal(row * 10 + col, type, currShip.primitiveShip.get(index),
+					index);
+			currShip.updateShipAfterShot(row, col);
+			// Mark as a hit.
+			board[row][col] = 'X';
+			outcome = ShotOutcome.hit(ship, currShip.isSunk());
 		}
-		// Else must be a hit.
-		else
+
+		if (event.shouldCommit())
 		{
-			// Get appropriate string to be outputted.
-			if (belongsToComputer)
+			event.board = belongsToComputer ? "Computer" : "Human";
+			event.cell = String.valueOf(rawRow) + rawCol;
+			if (type == ' ')
 			{
-				message = getHitMessage(true, row, col);
-				System.out.printf("\n%d%s was a hit. %s", rawRow,
-						rawCol, message);
+				event.outcome = "Miss";
+			}
+			else if (type == 'X' || type == 'O')
+			{
+				event.outcome = "Repeat";
 			}
 			else
 			{
-				message = getHitMessage(false, row, col);
-				System.out.printf("The computer hit with %d%s. %s", rawRow,
-						rawCol, message);
+				event.outcome = outcome.isSunk() ? "Sink" : "Hit";
+				event.ship = new ShipPoint(type, row, col).getLongType();
 			}
-			// Mark as a hit.
-			board[row][col] = 'X';
+			event.commit();
+		}
+		if (events != null)
+		{
+			publishShot(type, row * 10 + col);
 		}
 		// For the benefit of the computer's strategy.
-		return message;
+		return outcome;
 	}
 	
 	/**
-	 * Gets appropriate successful shot message and updates the hit ship object.
-	 * 
+	 * Resolves a Salvo volley: every shot is marked and reported, in order,
+	 * before the shooter learns any result.
+	 *
 	 * @param belongsToComputer true if board belongs to computer
-	 * @param row               row index of hit
-	 * @param col				col index of hit
-	 * @return String           message to be outputted
+	 * @param cells             row * 10 + col of each shot, in firing order
+	 * @return                  each shot's outcome, as updateBoardAfterShot
+	 *                          returns it
 	 */
-	private String getHitMessage(boolean belongsToComputer, int row, int col)
+	public ShotOutcome[] updateBoardAfterVolley(boolean belongsToComputer,
+												int[] cells)
 	{
-		StringBuilder message = new StringBuilder();
-		if (belongsToComputer)
+		ShotOutcome[] outcomes = new ShotOutcome[cells.length];
+		if (events != null)
 		{
-			message.append("Congratulations, you struck a ");
+			events.publish(GameEventType.VOLLEY, eventBoard, -1, -1,
+					cells.length);
 		}
-		else
+		for (int i = 0; i < cells.length; ++i)
 		{
-			message.append("\nUnfortunately, it struck your ");
+			outcomes[i] = updateBoardAfterShot(belongsToComputer,
+					cells[i] / 10 + 1, "ABCDEFGHIJ".charAt(cells[i] % 10));
 		}
-		
-		char type = board[row][col];
-		Ship currShip = null;
-		
-		/* 
-		 * Access currShip by index. Ships will always be in same position
-		 * even when sunk, because each ship is just an object containing an
-		 * array of ShipPoints. Being sunk merely means the ship has an empty
-		 * array of the points.
-		 */
-		switch (type) 
+		return outcomes;
+	}
+
+	/**
+	 * Publishes a resolved shot's outcome.
+	 *
+	 * @param type what was in the cell before the shot
+	 * @param cell row * 10 + col
+	 */
+	private void publishShot(char type, int cell)
+	{
+		if (type == ' ' || type == 'X' || type == 'O')
 		{
-			case 'A':
-				message.append("Carrier");
-				currShip = ships.get(0);
-				break;
-			case 'B':
-				message.append("Battleship");
-				currShip = ships.get(1);
-				break;
-			case 'C':
-				message.append("Cruiser");
-				currShip = ships.get(2);
-				break;
-			case 'S':
-				message.append("Submarine");
-				currShip = ships.get(3);
-				break;
-			case 'D':
-				message.append("Destroyer");
-				currShip = ships.get(4);
-				break;
-			default:
-				System.out.printf("Something went wrong! %s isn't a legal " +
-						"ship type.", type);
-				System.exit(1);
-				break;
+			events.publish(GameEventType.MISS, eventBoard, cell, -1,
+					(type == ' ') ? 0 : 1);
+			return;
 		}
-		// Update ship, i.e., remove hit ship point from array.
-		currShip.updateShipAfterShot(row, col);
+		int ship = shipIndex(type);
+		events.publish(ships.get(ship).isSunk() ? GameEventType.SINK
+				: GameEventType.HIT, eventBoard, cell, ship, 0);
+	}
 
-		if (currShip.isSunk()) 
+	/**
+	 * Returns the journal position, for rolling back to later. O(1); the
+	 * board isn't copied.
+	 * <p>
+	 * Meant for AI lookahead on a silent board without an event bus:
+	 * rolling back doesn't print or publish anything.
+	 *
+	 * @return checkpoint to pass to rollback
+	 */
+	public int checkpoint()
+	{
+		return journalSize;
+	}
+
+	/**
+	 * Undoes every shot since a checkpoint, newest first, putting back
+	 * marks and ship points. Allocates nothing.
+	 *
+	 * @param checkpoint value returned by checkpoint
+	 */
+	public void rollback(int checkpoint)
+	{
+		if (checkpoint < 0 || checkpoint > journalSize)
 		{
-			message.append(" and sunk it!\n");
+			throw new IllegalArgumentException("Not a current checkpoint: " +
+					checkpoint);
 		}
-		else
+		while (journalSize > checkpoint)
 		{
-			message.append(".. but did not sink it.\n");
+			journalSize--;
+			int cell = journalCells[journalSize];
+			char mark = journalMarks[journalSize];
+			board[cell / 10][cell % 10] = mark;
+			if (journalPoints[journalSize] != null)
+			{
+				ships.get(shipIndex(mark)).restorePoint(
+						journalIndices[journalSize], journalPoints[journalSize]);
+				journalPoints[journalSize] = null;
+			}
 		}
-		return message.toString();
 	}
-	
+
+	/**
+	 * Adds an undo journal entry.
+	 *
+	 * @param cell  row * 10 + col
+	 * @param mark  the cell's mark before the shot
+	 * @param point ship point removed by the shot, or null
+	 * @param index where point was in its ship's list
+	 */
+	private void journal(int cell, char mark, ShipPoint point, int index)
+	{
+		journalCells[journalSize] = cell;
+		journalMarks[journalSize] = mark;
+		journalPoints[journalSize] = point;
+		journalIndices[journalSize] = index;
+		journalSize++;
+	}
+
+	/**
+	 * Returns a ship's index (FleetLayout order) from its type.
+	 *
+	 * @param type ship type, e.g. 'A'
+	 * @return     ship index, or -1 if not a ship type
+	 */
+	private static int shipIndex(char type)
+	{
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			if (FleetLayout.TYPES[ship] == type)
+			{
+				return ship;
+			}
+		}
+		return -1;
+	}
+
 	/**
 	 * Find each ship on the board and create appropriate Ship objects.
 	 * Called after game board initialization. 
@@ -537,6 +832,45 @@ public class GameBoard
 		ships.add(destroyer);
 	}
 	
+	/**
+	 * Publishes this board's shots (and placements, via publishPlacements)
+	 * on an event bus.
+	 *
+	 * @param bus   bus to publish on, or null to stop
+	 * @param board EventBus.HUMAN_BOARD or EventBus.COMPUTER_BOARD
+	 */
+	public void setEventBus(EventBus bus, int board)
+	{
+		events = bus;
+		eventBoard = board;
+	}
+
+	/**
+	 * Publishes a PLACEMENT event for every ship, if there's an event bus.
+	 * Call once the ships are set up and before any shot.
+	 */
+	public void publishPlacements()
+	{
+		if (events == null)
+		{
+			return;
+		}
+		for (int ship = 0; ship < NUM_SHIPS; ++ship)
+		{
+			// Still whole, since no shots have been fired yet.
+			ArrayList<ShipPoint> points = ships.get(ship).primitiveShip;
+			int origin = 100;
+			for (ShipPoint point : points)
+			{
+				origin = Math.min(origin, point.getRow() * 10 + point.getCol());
+			}
+			boolean vertical = points.get(0).getCol() == points.get(1).getCol();
+			events.publish(GameEventType.PLACEMENT, eventBoard, origin, ship,
+					vertical ? 1 : 0);
+		}
+	}
+
+
 	/**
 	 * Returns the underlying 2D array.
 	 * 
@@ -604,6 +938,46 @@ public class GameBoard
 		return true;
 	}
 
+	/**
+	 * Returns how many cells have been shot at.
+	 *
+	 * @return cells marked as a hit or a miss
+	 */
+	public int getShotsTaken()
+	{
+		int shot = 0;
+		for (int i = 0; i < numRows; ++i)
+		{
+			for (int j = 0; j < numColumns; ++j)
+			{
+				if (board[i][j] == 'X' || board[i][j] == 'O')
+				{
+					shot++;
+				}
+			}
+		}
+		return shot;
+	}
+
+	/**
+	 * Returns how many ships haven't been sunk, i.e., a Salvo volley's size
+	 * for this board's owner.
+	 *
+	 * @return number of ships left
+	 */
+	public int getShipsLeft()
+	{
+		int left = 0;
+		for (int i = 0; i < NUM_SHIPS; ++i)
+		{
+			if (!ships.get(i).isSunk())
+			{
+				left++;
+			}
+		}
+		return left;
+	}
+
 	/** 
 	 * Replaces default toString() with a much more reader-friendly version. 
 	 * 
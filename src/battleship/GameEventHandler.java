@@ -0,0 +1,31 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Consumer of EventBus events. Events are passed as plain values so
+ *      neither side allocates per event.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+/**
+ * Receives game events on a subscriber thread.
+ */
+public interface GameEventHandler
+{
+	/**
+	 * Handles one event. Called on the subscription's own thread, in
+	 * publishing order.
+	 *
+	 * @param sequence event number, counting from 0
+	 * @param type     event type
+	 * @param board    EventBus.HUMAN_BOARD or EventBus.COMPUTER_BOARD
+	 * @param cell     row * 10 + col, or -1 if none
+	 * @param ship     ship index (as FleetLayout.NAMES), or -1 if none
+	 * @param value    type-specific value; see GameEventType
+	 */
+	void onEvent(long sequence, GameEventType type, int board, int cell,
+				 int ship, int value);
+}
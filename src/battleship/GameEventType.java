@@ -0,0 +1,52 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      The kinds of event published on an EventBus, and what each one's
+ *      fields mean.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+/**
+ * Game event types. Every shot publishes exactly one of MISS, HIT or SINK.
+ */
+public enum GameEventType
+{
+	/**
+	 * A ship was placed. Cell is its top-left cell, ship its index (as
+	 * FleetLayout.NAMES) and value 0 if horizontal, 1 if vertical.
+	 */
+	PLACEMENT,
+
+	/**
+	 * A shot struck no ship. Value is 1 if the cell had already been shot
+	 * at, else 0.
+	 */
+	MISS,
+
+	/**
+	 * A shot struck a ship without sinking it.
+	 */
+	HIT,
+
+	/**
+	 * A shot sank a ship.
+	 */
+	SINK,
+
+	/**
+	 * The game ended. Board is the board with no ships left and value the
+	 * number of cells shot at on it. Cell and ship are unused.
+	 */
+	GAME_OVER,
+
+	/**
+	 * A Salvo volley is being resolved on board. Value is its number of
+	 * shots, whose MISS, HIT or SINK events follow. Cell and ship are
+	 * unused.
+	 */
+	VOLLEY
+}
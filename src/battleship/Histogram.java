@@ -0,0 +1,204 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      A low-overhead, thread-safe histogram of non-negative longs
+ *      (latencies in nanoseconds, shot counts, etc.) for Metrics.
+ * Bucketing:
+ *          Values under 16 get a bucket each. Above that, each power of two
+ *      is split into 8 equal sub-buckets, so any recorded value is known to
+ *      within 12.5%. Every bucket is a LongAdder, which stripes its count
+ *      across cells under contention, so recording from many threads stays
+ *      cheap and never takes a lock.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * Log-linear histogram with striped counters.
+ */
+public class Histogram
+{
+	private static final int LINEAR_BUCKETS = 16;
+	private static final int SUB_BUCKET_BITS = 3;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+	static final int NUM_BUCKETS = LINEAR_BUCKETS
+			+ (63 - 4) * SUB_BUCKETS;
+
+	/**
+	 * Name used when exporting.
+	 */
+	private final String name;
+
+	private final LongAdder[] buckets = new LongAdder[NUM_BUCKETS];
+	private final LongAdder count = new LongAdder();
+	private final LongAdder sum = new LongAdder();
+	private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+	/**
+	 * Creates an empty histogram.
+	 *
+	 * @param theName name used when exporting
+	 */
+	public Histogram(String theName)
+	{
+		name = theName;
+		for (int i = 0; i < NUM_BUCKETS; ++i)
+		{
+			buckets[i] = new LongAdder();
+		}
+	}
+
+	/**
+	 * Returns the histogram's name.
+	 *
+	 * @return the name
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Records one value. Negative values are clamped to 0.
+	 *
+	 * @param value value to record
+	 */
+	public void record(long value)
+	{
+		if (value < 0)
+		{
+			value = 0;
+		}
+		buckets[bucketOf(value)].increment();
+		count.increment();
+		sum.add(value);
+		max.accumulate(value);
+	}
+
+	/**
+	 * Clears all recorded values.
+	 */
+	public void reset()
+	{
+		for (LongAdder bucket : buckets)
+		{
+			bucket.reset();
+		}
+		count.reset();
+		sum.reset();
+		max.reset();
+	}
+
+	/**
+	 * Returns the number of recorded values.
+	 *
+	 * @return the count
+	 */
+	public long getCount()
+	{
+		return count.sum();
+	}
+
+	/**
+	 * Returns the mean of recorded values.
+	 *
+	 * @return the mean, or 0 if empty
+	 */
+	public double getMean()
+	{
+		long n = count.sum();
+		return (n == 0) ? 0 : (double)sum.sum() / n;
+	}
+
+	/**
+	 * Returns the largest recorded value.
+	 *
+	 * @return the max, or 0 if empty
+	 */
+	public long getMax()
+	{
+		return max.get();
+	}
+
+	/**
+	 * Returns an estimate of the given quantile: the upper bound of the
+	 * bucket it falls in, capped at the max.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return         estimated value at that quantile
+	 */
+	public long getQuantile(double quantile)
+	{
+		long n = count.sum();
+		if (n == 0)
+		{
+			return 0;
+		}
+		long rank = (long)Math.ceil(quantile * n);
+		long seen = 0;
+		for (int i = 0; i < NUM_BUCKETS; ++i)
+		{
+			seen += buckets[i].sum();
+			if (seen >= rank && seen > 0)
+			{
+				return Math.min(upperBoundOf(i), getMax());
+			}
+		}
+		return getMax();
+	}
+
+	/**
+	 * Plain-text, single-line summary.
+	 *
+	 * @return representation of the histogram
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("%s count=%d mean=%.1f p50=%d p95=%d p99=%d " +
+				"max=%d", name, getCount(), getMean(), getQuantile(0.5),
+				getQuantile(0.95), getQuantile(0.99), getMax());
+	}
+
+	/**
+	 * Maps a value to its bucket. Shared with SimulationStats, whose
+	 * sketches merge bucket by bucket.
+	 *
+	 * @param value non-negative value
+	 * @return      its bucket, 0 - NUM_BUCKETS - 1
+	 */
+	static int bucketOf(long value)
+	{
+		if (value < LINEAR_BUCKETS)
+		{
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		int sub = (int)(value >>> (exponent - SUB_BUCKET_BITS))
+				& (SUB_BUCKETS - 1);
+		return LINEAR_BUCKETS + (exponent - 4) * SUB_BUCKETS + sub;
+	}
+
+	/**
+	 * Largest value that maps to a bucket.
+	 *
+	 * @param bucket bucket index, as returned by bucketOf
+	 * @return       the largest value in it
+	 */
+	static long upperBoundOf(int bucket)
+	{
+		if (bucket < LINEAR_BUCKETS)
+		{
+			return bucket;
+		}
+		int exponent = (bucket - LINEAR_BUCKETS) / SUB_BUCKETS + 4;
+		int sub = (bucket - LINEAR_BUCKETS) % SUB_BUCKETS;
+		long width = 1L << (exponent - SUB_BUCKET_BITS);
+		return (1L << exponent) + (sub + 1) * width - 1;
+	}
+}
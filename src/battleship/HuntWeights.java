@@ -0,0 +1,166 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Weights for a parameterised Hunt phase score, as an alternative to
+ *      BoardSpace.compareTo's fixed counter-then-neighbor-sum ordering.
+ *      WeightTuner searches for good values.
+ * Score:
+ *          A candidate cell scores
+ *
+ *          counter * w0 + neighborSum * w1 + edgeDistance * w2
+ *                  + (on parity lattice ? w3 : 0)
+ *
+ *      where edgeDistance is the number of cells to the nearest edge. The
+ *      parity bonus is a soft version of parity hunting: every unshot cell
+ *      is a candidate, and lattice cells get the bonus.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Immutable Hunt phase score weights.
+ */
+public final class HuntWeights
+{
+	/**
+	 * Weight names, in index order; also their property keys.
+	 */
+	static final String[] NAMES = {"counter", "neighborSum", "edgeDistance",
+			"parityBonus"};
+
+	/**
+	 * Starting point for tuning. Roughly compareTo's ordering (neighbor sums
+	 * mostly just break ties) with a parity bonus.
+	 */
+	static final HuntWeights DEFAULT = new HuntWeights(1, 0.01, 0, 5);
+
+	/**
+	 * Weight values, indexed as NAMES.
+	 */
+	private final double[] values;
+
+	/**
+	 * Creates weights.
+	 *
+	 * @param counter      weight of the placement counter
+	 * @param neighborSum  weight of the neighbors' counter sum
+	 * @param edgeDistance weight of the distance to the nearest edge
+	 * @param parityBonus  bonus for parity lattice cells
+	 */
+	public HuntWeights(double counter, double neighborSum,
+					   double edgeDistance, double parityBonus)
+	{
+		this(new double[] {counter, neighborSum, edgeDistance, parityBonus});
+	}
+
+	/**
+	 * Creates weights from an array, indexed as NAMES.
+	 *
+	 * @param values weight values; not copied
+	 */
+	private HuntWeights(double[] values)
+	{
+		this.values = values;
+	}
+
+	/**
+	 * Returns one weight.
+	 *
+	 * @param index weight index, as NAMES
+	 * @return      weight value
+	 */
+	double get(int index)
+	{
+		return values[index];
+	}
+
+	/**
+	 * Returns a copy with one weight changed.
+	 *
+	 * @param index weight index, as NAMES
+	 * @param value new value
+	 * @return      new weights
+	 */
+	HuntWeights with(int index, double value)
+	{
+		double[] copy = values.clone();
+		copy[index] = value;
+		return new HuntWeights(copy);
+	}
+
+	/**
+	 * Scores a candidate cell on a 10x10 board.
+	 *
+	 * @param counter     placement counter
+	 * @param neighborSum neighbors' counter sum
+	 * @param row         row of cell
+	 * @param col         col of cell
+	 * @param onLattice   true if on the parity lattice
+	 * @return            score; higher is better
+	 */
+	double score(double counter, int neighborSum, int row, int col,
+				 boolean onLattice)
+	{
+		int edgeDistance = Math.min(Math.min(row, 9 - row),
+				Math.min(col, 9 - col));
+		return counter * values[0] + neighborSum * values[1]
+				+ edgeDistance * values[2] + (onLattice ? values[3] : 0);
+	}
+
+	/**
+	 * Reads weights stored by store. Missing keys keep DEFAULT's values.
+	 *
+	 * @param props  properties to read
+	 * @param prefix key prefix, e.g. "weight."
+	 * @return       weights
+	 */
+	static HuntWeights load(Properties props, String prefix)
+	{
+		double[] loaded = DEFAULT.values.clone();
+		for (int i = 0; i < NAMES.length; ++i)
+		{
+			String value = props.getProperty(prefix + NAMES[i]);
+			if (value != null)
+			{
+				loaded[i] = Double.parseDouble(value);
+			}
+		}
+		return new HuntWeights(loaded);
+	}
+
+	/**
+	 * Stores weights as properties.
+	 *
+	 * @param props  properties to write
+	 * @param prefix key prefix, e.g. "weight."
+	 */
+	void store(Properties props, String prefix)
+	{
+		for (int i = 0; i < NAMES.length; ++i)
+		{
+			props.setProperty(prefix + NAMES[i], String.valueOf(values[i]));
+		}
+	}
+
+	/**
+	 * Returns the weights as name=value pairs.
+	 *
+	 * @return readable weights
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < NAMES.length; ++i)
+		{
+			builder.append((i == 0) ? "" : " ").append(NAMES[i]).append('=')
+					.append(String.format("%.4g", values[i]));
+		}
+		return builder.toString();
+	}
+}
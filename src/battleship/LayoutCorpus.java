@@ -0,0 +1,269 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      A compact binary corpus of fleet layouts, read through a memory
+ *      mapping so simulations can share one fixed set of boards without
+ *      parsing text files.
+ * File format:
+ *          A 32-byte header followed by fixed-size records. All values are
+ *      big-endian.
+ *
+ *          offset  size  field
+ *          0       4     magic, "BSLC"
+ *          4       2     format version (1)
+ *          6       1     board rows (10)
+ *          7       1     board columns (10)
+ *          8       1     number of ships (5)
+ *          9       1     record size in bytes (8)
+ *          10      6     reserved, zero
+ *          16      8     number of records
+ *          24      8     generator seed (informational)
+ *
+ *          Each record is one FleetLayout packed long.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+ * Memory-mapped, read-only view of a layout corpus file.
+ */
+public class LayoutCorpus
+{
+	static final int MAGIC = 0x42534C43;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 32;
+	static final int RECORD_SIZE = 8;
+
+	/**
+	 * The whole mapped file. Only absolute gets are used, so one corpus can
+	 * be read by many simulation threads at once.
+	 */
+	private final MappedByteBuffer buffer;
+
+	/**
+	 * Number of layouts in the corpus.
+	 */
+	private final int size;
+
+	/**
+	 * Seed the corpus was generated with.
+	 */
+	private final long seed;
+
+	/**
+	 * Maps a corpus file and checks its header.
+	 *
+	 * @param fname        the name of the corpus file
+	 * @throws IOException if the file can't be read or isn't a corpus
+	 */
+	public LayoutCorpus(String fname) throws IOException
+	{
+		try (RandomAccessFile file = new RandomAccessFile(fname, "r");
+			 FileChannel channel = file.getChannel())
+		{
+			long length = channel.size();
+			if (length < HEADER_SIZE)
+			{
+				throw new IOException(fname + " is too short to be a layout " +
+						"corpus.");
+			}
+			if (length > Integer.MAX_VALUE)
+			{
+				throw new IOException(fname + " is too large to map in one " +
+						"piece.");
+			}
+			// The mapping stays valid after the channel is closed.
+			buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+		}
+
+		if (buffer.getInt(0) != MAGIC)
+		{
+			throw new IOException(fname + " is not a layout corpus.");
+		}
+		if (buffer.getShort(4) != VERSION)
+		{
+			throw new IOException("Unsupported corpus version " +
+					buffer.getShort(4) + " in " + fname + ".");
+		}
+		if (buffer.get(6) != 10 || buffer.get(7) != 10
+				|| buffer.get(8) != FleetLayout.NUM_SHIPS
+				|| buffer.get(9) != RECORD_SIZE)
+		{
+			throw new IOException(fname + " was written for a different " +
+					"board or fleet.");
+		}
+
+		long count = buffer.getLong(16);
+		if (count < 0 || HEADER_SIZE + count * RECORD_SIZE > buffer.capacity())
+		{
+			throw new IOException(fname + " is truncated: header promises " +
+					count + " layouts.");
+		}
+		size = (int)count;
+		seed = buffer.getLong(24);
+	}
+
+	/**
+	 * Returns the number of layouts.
+	 *
+	 * @return layout count
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * Returns the seed the corpus was generated with.
+	 *
+	 * @return generator seed
+	 */
+	public long getSeed()
+	{
+		return seed;
+	}
+
+	/**
+	 * Zero-copy access to a layout: the packed long straight from the
+	 * mapping. Decode it with the FleetLayout helpers.
+	 *
+	 * @param index layout index
+	 * @return      packed layout
+	 */
+	public long getLayout(int index)
+	{
+		if (index < 0 || index >= size)
+		{
+			throw new IndexOutOfBoundsException("Layout " + index +
+					" of " + size);
+		}
+		// Whole file fits in an int-sized mapping, so this can't overflow.
+		return buffer.getLong(HEADER_SIZE + index * RECORD_SIZE);
+	}
+
+	/**
+	 * Builds a fresh, validated GameBoard for a layout.
+	 *
+	 * @param index        layout index
+	 * @return             board with the layout's ships set up
+	 * @throws IOException if the record isn't a legal fleet
+	 */
+	public GameBoard getBoard(int index) throws IOException
+	{
+		long layout = getLayout(index);
+		if (!FleetLayout.isValid(layout))
+		{
+			throw new IOException("Corrupt layout record " + index + ": " +
+					Long.toHexString(layout));
+		}
+		return FleetLayout.toBoard(layout);
+	}
+
+	/**
+	 * Streams layouts into a new corpus file. The record count is written
+	 * into the header on close.
+	 */
+	public static class Writer implements Closeable
+	{
+		private final RandomAccessFile file;
+		private final FileChannel channel;
+		private final ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+		private long count;
+
+		/**
+		 * Creates (or truncates) a corpus file.
+		 *
+		 * @param fname        the name of the corpus file
+		 * @param seed         generator seed to record in the header
+		 * @throws IOException if the file can't be written
+		 */
+		public Writer(String fname, long seed) throws IOException
+		{
+			file = new RandomAccessFile(fname, "rw");
+			file.setLength(0);
+			channel = file.getChannel();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC);
+			header.putShort(VERSION);
+			header.put((byte)10);
+			header.put((byte)10);
+			header.put((byte)FleetLayout.NUM_SHIPS);
+			header.put((byte)RECORD_SIZE);
+			header.position(16);
+			// Count is filled in on close.
+			header.putLong(0);
+			header.putLong(seed);
+			header.flip();
+			while (header.hasRemaining())
+			{
+				channel.write(header);
+			}
+		}
+
+		/**
+		 * Appends one layout.
+		 *
+		 * @param layout       packed layout
+		 * @throws IOException if the write fails
+		 */
+		public void append(long layout) throws IOException
+		{
+			if (!pending.hasRemaining())
+			{
+				flush();
+			}
+			pending.putLong(layout);
+			count++;
+		}
+
+		/**
+		 * Returns the number of layouts appended so far.
+		 *
+		 * @return layout count
+		 */
+		public long getCount()
+		{
+			return count;
+		}
+
+		private void flush() throws IOException
+		{
+			pending.flip();
+			while (pending.hasRemaining())
+			{
+				channel.write(pending);
+			}
+			pending.clear();
+		}
+
+		/**
+		 * Flushes remaining layouts and records the final count.
+		 *
+		 * @throws IOException if the write fails
+		 */
+		@Override
+		public void close() throws IOException
+		{
+			try
+			{
+				flush();
+				ByteBuffer countBytes = ByteBuffer.allocate(8);
+				countBytes.putLong(count);
+				countBytes.flip();
+				channel.write(countBytes, 16);
+			}
+			finally
+			{
+				file.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Command-line tool that streams random fleet layouts into a
+ *      LayoutCorpus file, skipping duplicates.
+ * Date:
+ *      10/18/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.LayoutCorpusGenerator <out> <count>
+ *              [uniform|random] [seed]
+ *      "uniform" draws every legal fleet with equal probability. "random"
+ *      (the default) uses GameBoard's own randomized placement, i.e., the
+ *      boards the computer plays with on replays.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates layout corpus files.
+ */
+public class LayoutCorpusGenerator
+{
+	/**
+	 * Parses arguments and writes the corpus.
+	 *
+	 * @param args         output file, layout count, mode, seed
+	 * @throws IOException if the corpus can't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2 || args.length > 4)
+		{
+			System.out.println("Usage: LayoutCorpusGenerator <out> <count> " +
+					"[uniform|random] [seed]");
+			System.exit(1);
+		}
+		String fname = args[0];
+		String mode = (args.length > 2) ? args[2] : "random";
+		if (!mode.equals("uniform") && !mode.equals("random"))
+		{
+			System.out.println("Unknown mode " + mode + "; use uniform or " +
+					"random. Exiting.");
+			System.exit(1);
+		}
+		boolean uniform = mode.equals("uniform");
+		long count = 0;
+		long seed = 0;
+		try
+		{
+			count = Long.parseLong(args[1]);
+			seed = (args.length > 3) ? Long.parseLong(args[3]) : 0;
+		}
+		catch (NumberFormatException e)
+		{
+			System.out.println("Count and seed must be whole numbers. " +
+					"Exiting.");
+			System.exit(1);
+		}
+		if (count <= 0)
+		{
+			System.out.println("Need at least one layout. Exiting.");
+			System.exit(1);
+		}
+
+		long start = System.nanoTime();
+		long duplicates = generate(fname, count, uniform, seed);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Wrote %d layouts to %s in %.1fs (%d duplicates " +
+				"skipped).\n", count, fname, seconds, duplicates);
+	}
+
+	/**
+	 * Writes count distinct layouts to a corpus file.
+	 *
+	 * @param fname        the name of the corpus file
+	 * @param count        number of distinct layouts to write
+	 * @param uniform      true for uniform layouts, false for GameBoard's
+	 * @param seed         generator seed
+	 * @return             number of duplicate layouts skipped
+	 * @throws IOException if the corpus can't be written
+	 */
+	static long generate(String fname, long count, boolean uniform, long seed)
+			throws IOException
+	{
+		Random rand = new Random(seed);
+		LongHashSet seen = new LongHashSet();
+		long duplicates = 0;
+
+		try (LayoutCorpus.Writer writer = new LayoutCorpus.Writer(fname, seed))
+		{
+			while (writer.getCount() < count)
+			{
+				long layout = uniform ? FleetLayout.randomUniform(rand)
+						: FleetLayout.encode(new GameBoard(rand));
+				if (seen.add(layout))
+				{
+					writer.append(layout);
+				}
+				else
+				{
+					duplicates++;
+				}
+			}
+		}
+		return duplicates;
+	}
+
+	/**
+	 * Open-addressing set of longs, so de-duplicating millions of layouts
+	 * doesn't box each one. Zero is never a legal layout (two ships would
+	 * share cell 0), so it marks empty slots.
+	 */
+	private static class LongHashSet
+	{
+		private long[] slots = new long[1 << 16];
+		private int size;
+
+		/**
+		 * Adds a value.
+		 *
+		 * @param value non-zero value
+		 * @return      true if it wasn't already present
+		 */
+		boolean add(long value)
+		{
+			// Keep load factor under one half.
+			if (size * 2 >= slots.length)
+			{
+				grow();
+			}
+			int mask = slots.length - 1;
+			int index = mix(value) & mask;
+			while (slots[index] != 0)
+			{
+				if (slots[index] == value)
+				{
+					return false;
+				}
+				index = (index + 1) & mask;
+			}
+			slots[index] = value;
+			size++;
+			return true;
+		}
+
+		private void grow()
+		{
+			long[] old = slots;
+			slots = new long[old.length * 2];
+			int mask = slots.length - 1;
+			for (long value : old)
+			{
+				if (value != 0)
+				{
+					int index = mix(value) & mask;
+					while (slots[index] != 0)
+					{
+						index = (index + 1) & mask;
+					}
+					slots[index] = value;
+				}
+			}
+		}
+
+		/**
+		 * Spreads the packed bits, since nearby layouts differ only in a few
+		 * low bits.
+		 */
+		private static int mix(long value)
+		{
+			value *= 0x9E3779B97F4A7C15L;
+			return (int)(value ^ (value >>> 32));
+		}
+	}
+}
@@ -0,0 +1,233 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Registry of the built-in instrumentation for the AI and boards:
+ *      latency histograms, timers, counters and per-game distributions.
+ * Usage:
+ *          Recording is off by default and every recording site checks
+ *      Metrics.enabled first, so a normal game pays one field read per site.
+ *      Start Game with --metrics (or --metrics=<file>) to turn it on; a
+ *      plain-text snapshot is written when the session ends.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Process-wide metrics.
+ */
+public final class Metrics
+{
+	/**
+	 * Whether instruments should record.
+	 */
+	static volatile boolean enabled = false;
+
+	/**
+	 * Registered instruments, in registration (and export) order.
+	 */
+	private static final Map<String, Histogram> histograms =
+			new LinkedHashMap<>();
+	private static final Map<String, LongAdder> counters =
+			new LinkedHashMap<>();
+
+	/**
+	 * Computer.playOneTurn latency, by phase.
+	 */
+	static final Histogram HUNT_TURN_NANOS =
+			histogram("computer.turn.hunt.ns");
+	static final Histogram TARGET_TURN_NANOS =
+			histogram("computer.turn.target.ns");
+
+	/**
+	 * Computer.chooseVolley latency, for the whole volley.
+	 */
+	static final Histogram VOLLEY_NANOS = histogram("computer.volley.ns");
+
+	/**
+	 * Density function timers.
+	 */
+	static final Histogram SET_BOARD_SPACES_NANOS =
+			histogram("computer.setBoardSpaces.ns");
+	static final Histogram SET_HUNT_SHOT_NANOS =
+			histogram("computer.setHuntShot.ns");
+
+	/**
+	 * Candidate cells compared by setHuntShot.
+	 */
+	static final LongAdder HUNT_CELLS_EVALUATED =
+			counter("computer.hunt.cellsEvaluated");
+
+	/**
+	 * Target phase shots that missed, with either targeting engine.
+	 */
+	static final LongAdder TARGET_MISSES = counter("computer.target.misses");
+
+	/**
+	 * possibleHits stack activity. A wasted pop is a Target phase shot taken
+	 * from the stack that didn't hit anything.
+	 */
+	static final LongAdder STACK_PUSHES = counter("computer.stack.pushes");
+	static final LongAdder STACK_POPS = counter("computer.stack.pops");
+	static final LongAdder STACK_WASTED_POPS =
+			counter("computer.stack.wastedPops");
+
+	/**
+	 * Per-game distributions. Shots per ship counts the computer's shots
+	 * since its previous sinking (or the start of the game).
+	 */
+	static final Histogram SHOTS_TO_WIN = histogram("game.shotsToWin");
+	static final Histogram SHOTS_PER_SHIP = histogram("game.shotsPerShip");
+
+	/**
+	 * Game events seen by the metrics subscriber (see countEvent), by
+	 * GameEventType ordinal.
+	 */
+	static final LongAdder[] GAME_EVENTS =
+			new LongAdder[GameEventType.values().length];
+
+	static
+	{
+		for (GameEventType type : GameEventType.values())
+		{
+			GAME_EVENTS[type.ordinal()] = counter("events."
+					+ type.name().toLowerCase());
+		}
+	}
+
+	/**
+	 * Static registry only.
+	 */
+	private Metrics()
+	{
+	}
+
+	/**
+	 * Registers a histogram.
+	 *
+	 * @param name export name
+	 * @return     the new histogram
+	 */
+	static synchronized Histogram histogram(String name)
+	{
+		Histogram histogram = new Histogram(name);
+		histograms.put(name, histogram);
+		return histogram;
+	}
+
+	/**
+	 * Registers a counter.
+	 *
+	 * @param name export name
+	 * @return     the new counter
+	 */
+	static synchronized LongAdder counter(String name)
+	{
+		LongAdder counter = new LongAdder();
+		counters.put(name, counter);
+		return counter;
+	}
+
+	/**
+	 * Returns the current time if recording, so disabled timers don't pay
+	 * for System.nanoTime().
+	 *
+	 * @return start time, or 0 if disabled
+	 */
+	static long start()
+	{
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Records the time since start into a histogram if recording.
+	 *
+	 * @param histogram timer to record into
+	 * @param start     value returned by start()
+	 */
+	static void stop(Histogram histogram, long start)
+	{
+		if (enabled)
+		{
+			histogram.record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * EventBus handler that counts events by type; subscribe it as
+	 * Metrics::countEvent.
+	 *
+	 * @param sequence event number
+	 * @param type     event type
+	 * @param board    board id
+	 * @param cell     cell, or -1
+	 * @param ship     ship index, or -1
+	 * @param value    type-specific value
+	 */
+	static void countEvent(long sequence, GameEventType type, int board,
+						   int cell, int ship, int value)
+	{
+		if (enabled)
+		{
+			GAME_EVENTS[type.ordinal()].increment();
+		}
+	}
+
+	/**
+	 * Clears every instrument.
+	 */
+	static synchronized void reset()
+	{
+		for (Histogram histogram : histograms.values())
+		{
+			histogram.reset();
+		}
+		for (LongAdder counter : counters.values())
+		{
+			counter.reset();
+		}
+	}
+
+	/**
+	 * Plain-text snapshot: one instrument per line.
+	 *
+	 * @return representation of every instrument
+	 */
+	static synchronized String snapshot()
+	{
+		StringBuilder result = new StringBuilder();
+		for (Histogram histogram : histograms.values())
+		{
+			result.append(histogram);
+			result.append("\n");
+		}
+		for (Map.Entry<String, LongAdder> entry : counters.entrySet())
+		{
+			result.append(entry.getKey());
+			result.append(" count=");
+			result.append(entry.getValue().sum());
+			result.append("\n");
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Writes a snapshot to a file.
+	 *
+	 * @param fname        the name of the output file
+	 * @throws IOException if the file can't be written
+	 */
+	static void writeSnapshot(String fname) throws IOException
+	{
+		try (Writer writer = new FileWriter(fname))
+		{
+			writer.write(snapshot());
+		}
+	}
+}
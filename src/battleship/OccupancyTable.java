@@ -0,0 +1,253 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      How often each ship covers each cell on the Computer's randomized
+ *      boards, as estimated by OccupancyTableGenerator. GameBoard's
+ *      randomized placement (random origin and direction, redrawn until the
+ *      ship fits) is not uniform over layouts: it favors some cells over
+ *      what uniformly random placement would give. Against those boards the
+ *      table is an exact prior for the Hunt phase (see weights).
+ * File format:
+ *          A 32-byte header followed by the table. All values are
+ *      big-endian.
+ *
+ *          offset  size  field
+ *          0       4     magic, "BSOT"
+ *          4       2     format version (1)
+ *          6       1     board rows (10)
+ *          7       1     board columns (10)
+ *          8       1     number of ships (5)
+ *          9       7     reserved, zero
+ *          16      8     number of layouts sampled
+ *          24      8     generator seed (informational)
+ *
+ *          The table is 5 rows of 100 floats: for each ship (Carrier,
+ *      Battleship, Cruiser, Submarine, Destroyer), the share of sampled
+ *      layouts in which it covered each cell, row-major.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.io.*;
+
+/**
+ * Per-ship, per-cell occupancy of randomized boards.
+ */
+public final class OccupancyTable
+{
+	static final int MAGIC = 0x42534F54;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 32;
+
+	/**
+	 * The table shipped with the game, generated from 1,000,000,000
+	 * layouts.
+	 */
+	static final String DEFAULT_FILE = "randomized-occupancy.bin";
+
+	/**
+	 * The shipped table, once loaded.
+	 */
+	private static OccupancyTable shipped = null;
+
+	/**
+	 * Share of layouts in which each ship covered each cell, indexed
+	 * [ship][row * 10 + col].
+	 */
+	private final float[][] occupancy;
+
+	/**
+	 * Number of layouts sampled.
+	 */
+	private final long samples;
+
+	/**
+	 * Seed they were sampled with.
+	 */
+	private final long seed;
+
+	/**
+	 * Creates table from counts.
+	 *
+	 * @param counts  layouts in which each ship covered each cell, indexed
+	 *                [ship * 100 + cell]
+	 * @param samples number of layouts sampled
+	 * @param seed    seed they were sampled with
+	 */
+	OccupancyTable(long[] counts, long samples, long seed)
+	{
+		occupancy = new float[FleetLayout.NUM_SHIPS][PlacementPrior.CELLS];
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			for (int cell = 0; cell < PlacementPrior.CELLS; ++cell)
+			{
+				occupancy[ship][cell] = (float)((double)counts[ship * 100
+						+ cell] / samples);
+			}
+		}
+		this.samples = samples;
+		this.seed = seed;
+	}
+
+	/**
+	 * Creates table from stored shares.
+	 *
+	 * @param occupancy shares, indexed [ship][cell]; not copied
+	 * @param samples   number of layouts sampled
+	 * @param seed      seed they were sampled with
+	 */
+	private OccupancyTable(float[][] occupancy, long samples, long seed)
+	{
+		this.occupancy = occupancy;
+		this.samples = samples;
+		this.seed = seed;
+	}
+
+	/**
+	 * Reads a table file.
+	 *
+	 * @param fname        the name of the table file
+	 * @return             the table
+	 * @throws IOException if the file can't be read or isn't a table
+	 */
+	public static OccupancyTable load(String fname) throws IOException
+	{
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(new FileInputStream(fname))))
+		{
+			if (in.readInt() != MAGIC)
+			{
+				throw new IOException(fname + " is not an occupancy table.");
+			}
+			short version = in.readShort();
+			if (version != VERSION)
+			{
+				throw new IOException("Unsupported occupancy table version " +
+						version + " in " + fname + ".");
+			}
+			if (in.readByte() != 10 || in.readByte() != 10
+					|| in.readByte() != FleetLayout.NUM_SHIPS)
+			{
+				throw new IOException(fname + " was written for a different " +
+						"board or fleet.");
+			}
+			in.skipBytes(7);
+			long samples = in.readLong();
+			long seed = in.readLong();
+			if (samples <= 0)
+			{
+				throw new IOException(fname + " has no samples.");
+			}
+
+			float[][] occupancy =
+					new float[FleetLayout.NUM_SHIPS][PlacementPrior.CELLS];
+			for (float[] shipOccupancy : occupancy)
+			{
+				for (int cell = 0; cell < shipOccupancy.length; ++cell)
+				{
+					shipOccupancy[cell] = in.readFloat();
+				}
+			}
+			return new OccupancyTable(occupancy, samples, seed);
+		}
+		catch (EOFException e)
+		{
+			throw new IOException(fname + " is truncated.", e);
+		}
+	}
+
+	/**
+	 * Returns the table shipped with the game, reading it on first use.
+	 *
+	 * @return             the shipped table
+	 * @throws IOException if DEFAULT_FILE can't be read
+	 */
+	static synchronized OccupancyTable shipped() throws IOException
+	{
+		if (shipped == null)
+		{
+			shipped = load(DEFAULT_FILE);
+		}
+		return shipped;
+	}
+
+	/**
+	 * Writes the table to a file, replacing it.
+	 *
+	 * @param fname        the name of the table file
+	 * @throws IOException if it can't be written
+	 */
+	public void write(String fname) throws IOException
+	{
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(new FileOutputStream(fname))))
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeByte(10);
+			out.writeByte(10);
+			out.writeByte(FleetLayout.NUM_SHIPS);
+			out.write(new byte[7]);
+			out.writeLong(samples);
+			out.writeLong(seed);
+			for (float[] shipOccupancy : occupancy)
+			{
+				for (float share : shipOccupancy)
+				{
+					out.writeFloat(share);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the share of layouts in which a ship covers a cell.
+	 *
+	 * @param ship ship index, as FleetLayout
+	 * @param cell row * 10 + col
+	 * @return     occupancy, 0 - 1
+	 */
+	public float getOccupancy(int ship, int cell)
+	{
+		return occupancy[ship][cell];
+	}
+
+	/**
+	 * Returns the number of layouts sampled.
+	 *
+	 * @return sample count
+	 */
+	public long getSamples()
+	{
+		return samples;
+	}
+
+	/**
+	 * Returns per-cell Hunt weights for Computer.setPlacementPrior: each
+	 * cell's total occupancy over uniformly random placement's (see
+	 * PlacementPrior.BASELINE), blended with 1. Since the Hunt density
+	 * already assumes uniform placement, a blend of 1 corrects it to this
+	 * table's distribution, cell by cell.
+	 *
+	 * @param blend how much the table counts, between 0 and 1
+	 * @return      weight per cell (row * 10 + col)
+	 */
+	public double[] weights(double blend)
+	{
+		double[] weights = new double[PlacementPrior.CELLS];
+		for (int cell = 0; cell < PlacementPrior.CELLS; ++cell)
+		{
+			double total = 0;
+			for (float[] shipOccupancy : occupancy)
+			{
+				total += shipOccupancy[cell];
+			}
+			weights[cell] = (1 - blend)
+					+ blend * total / PlacementPrior.BASELINE[cell];
+		}
+		return weights;
+	}
+}
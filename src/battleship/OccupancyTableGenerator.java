@@ -0,0 +1,256 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Command-line tool that estimates an OccupancyTable by sampling
+ *      randomized boards in parallel.
+ * Sampling:
+ *          Each sample replays GameBoard.randomizeBoard's algorithm (random
+ *      origin, redrawn if taken; random direction; the whole draw repeated
+ *      if the ship runs off the board or into another) on a 100-bit cell
+ *      mask, so a sample costs a few dozen random numbers and no
+ *      allocation. The layouts come out with the same distribution as
+ *      GameBoard's, not the same layouts for a seed.
+ *
+ *          The samples are split into chunks of CHUNK_SIZE, each with its
+ *      own generator split from the seed, so the result is the same for
+ *      any number of threads. Worker threads count per-ship, per-cell
+ *      coverage into their own arrays, and finished chunks are added into
+ *      the totals as they complete, so memory doesn't grow with the sample
+ *      count.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.OccupancyTableGenerator <out> <samples>
+ *              [seed] [threads]
+ *      The shipped table was generated with
+ *          java -cp bin battleship.OccupancyTableGenerator
+ *                  src/randomized-occupancy.bin 1000000000 2014
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Generates occupancy table files.
+ */
+public class OccupancyTableGenerator
+{
+	/**
+	 * Layouts per chunk.
+	 */
+	static final int CHUNK_SIZE = 1 << 22;
+
+	/**
+	 * Parses arguments, samples and writes the table.
+	 *
+	 * @param args         output file, sample count, seed, threads
+	 * @throws IOException if the table can't be written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: OccupancyTableGenerator <out> " +
+					"<samples> [seed] [threads]");
+			System.exit(1);
+		}
+		String fname = args[0];
+		long samples = Long.parseLong(args[1]);
+		long seed = (args.length > 2) ? Long.parseLong(args[2]) : 0;
+		int threads = (args.length > 3) ? Integer.parseInt(args[3])
+				: Runtime.getRuntime().availableProcessors();
+		if (samples <= 0 || threads <= 0)
+		{
+			System.out.println("Need at least one sample and one thread. " +
+					"Exiting.");
+			System.exit(1);
+		}
+
+		long start = System.nanoTime();
+		OccupancyTable table = generate(samples, seed, threads);
+		table.write(fname);
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.printf("Wrote occupancy of %d layouts to %s in %.1fs " +
+				"(%.0f ns per layout).\n", samples, fname, seconds,
+				seconds * 1e9 / samples);
+	}
+
+	/**
+	 * Samples randomized layouts and counts where each ship lands.
+	 *
+	 * @param samples number of layouts
+	 * @param seed    generator seed
+	 * @param threads worker threads
+	 * @return        the table
+	 */
+	static OccupancyTable generate(long samples, long seed, int threads)
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		CompletionService<long[]> done =
+				new ExecutorCompletionService<>(pool);
+		SplittableRandom root = new SplittableRandom(seed);
+
+		long chunks = (samples + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		for (long chunk = 0; chunk < chunks; ++chunk)
+		{
+			SplittableRandom rand = root.split();
+			long count = Math.min(CHUNK_SIZE, samples - chunk * CHUNK_SIZE);
+			done.submit(() -> sampleChunk(rand, count));
+		}
+
+		long[] totals = new long[FleetLayout.NUM_SHIPS * 100];
+		try
+		{
+			for (long chunk = 1; chunk <= chunks; ++chunk)
+			{
+				long[] counts = done.take().get();
+				for (int i = 0; i < totals.length; ++i)
+				{
+					totals[i] += counts[i];
+				}
+				if (chunk % 16 == 0 && chunk < chunks)
+				{
+					System.out.printf("%d of %d layouts\n",
+							chunk * CHUNK_SIZE, samples);
+				}
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			throw new IllegalStateException("Sampling failed.", e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		return new OccupancyTable(totals, samples, seed);
+	}
+
+	/**
+	 * Samples one chunk of layouts.
+	 *
+	 * @param rand  the chunk's generator
+	 * @param count number of layouts
+	 * @return      layouts in which each ship covered each cell, indexed
+	 *              [ship * 100 + cell]
+	 */
+	static long[] sampleChunk(SplittableRandom rand, long count)
+	{
+		long[] counts = new long[FleetLayout.NUM_SHIPS * 100];
+		for (long i = 0; i < count; ++i)
+		{
+			sampleLayout(rand, counts);
+		}
+		return counts;
+	}
+
+	/**
+	 * Places one fleet the way GameBoard.randomizeBoard does and counts the
+	 * cells each ship covers.
+	 *
+	 * @param rand   source of randomness
+	 * @param counts counts to add to, indexed [ship * 100 + cell]
+	 */
+	static void sampleLayout(SplittableRandom rand, long[] counts)
+	{
+		// Cells 0 - 63 in low, 64 - 99 in high.
+		long low = 0;
+		long high = 0;
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			int size = FleetLayout.SIZES[ship];
+			while (true)
+			{
+				// One draw for the uniform origin row and col.
+				int origin = rand.nextInt(100);
+				int row = origin / 10;
+				int col = origin % 10;
+				if (isTaken(low, high, origin))
+				{
+					continue;
+				}
+
+				// As placePoints: 0 North, 1 West, 2 South, 3 East.
+				int dir = rand.nextInt(4);
+				int step;
+				if (dir == FleetLayout.NORTH)
+				{
+					if (row < size - 1)
+					{
+						continue;
+					}
+					step = -10;
+				}
+				else if (dir == FleetLayout.WEST)
+				{
+					if (col < size - 1)
+					{
+						continue;
+					}
+					step = -1;
+				}
+				else if (dir == FleetLayout.SOUTH)
+				{
+					if (row > 10 - size)
+					{
+						continue;
+					}
+					step = 10;
+				}
+				else
+				{
+					if (col > 10 - size)
+					{
+						continue;
+					}
+					step = 1;
+				}
+
+				boolean clear = true;
+				for (int i = 1; i < size && clear; ++i)
+				{
+					clear = !isTaken(low, high, origin + i * step);
+				}
+				if (!clear)
+				{
+					continue;
+				}
+
+				for (int i = 0; i < size; ++i)
+				{
+					int cell = origin + i * step;
+					if (cell < 64)
+					{
+						low |= 1L << cell;
+					}
+					else
+					{
+						high |= 1L << (cell - 64);
+					}
+					counts[ship * 100 + cell]++;
+				}
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Whether a cell is in a 100-bit mask.
+	 *
+	 * @param low  cells 0 - 63
+	 * @param high cells 64 - 99
+	 * @param cell cell index
+	 * @return     true if set
+	 */
+	private static boolean isTaken(long low, long high, int cell)
+	{
+		return (cell < 64) ? (low & (1L << cell)) != 0
+				: (high & (1L << (cell - 64))) != 0;
+	}
+}
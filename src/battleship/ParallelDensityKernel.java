@@ -0,0 +1,465 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      DensityKernel that splits huge boards into bands and runs them as
+ *      fork/join tasks, so a move's density pass and best-cell search use
+ *      every core. Boards below PARALLEL_CELLS go to a serial kernel
+ *      instead, since splitting only costs them.
+ * Algorithm:
+ *          Bands must be independent, so this kernel counts placements from
+ *      free runs rather than prefix sums carried across the board. For a
+ *      free cell with a free run of left cells (itself included) to its left
+ *      and right cells to its right, a ship of length k fits over it in
+ *
+ *          max(0, min(k - 1, left - 1) - max(0, k - right) + 1)
+ *
+ *      ways along that line. Horizontal placements are counted in row bands
+ *      (each task owns whole rows), vertical ones in column bands (each task
+ *      owns whole columns, walked a row segment at a time). Neighbor sums use
+ *      row bands.
+ *
+ *          The best cell is found per band and the band winners are merged
+ *      in band order using DensityKernel.isBetter, which keeps the earlier
+ *      cell on ties: the same counter, neighbor sum, row-major order as
+ *      BoardSpace.compareTo.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.concurrent.*;
+
+/**
+ * Band-parallel density kernel for huge boards.
+ */
+public class ParallelDensityKernel extends DensityKernel
+{
+	/**
+	 * Boards with fewer cells than this (512 x 512) use the serial kernel.
+	 */
+	static final int PARALLEL_CELLS = 512 * 512;
+
+	/**
+	 * Rows or columns per band, at least.
+	 */
+	static final int MIN_BAND = 32;
+
+	/**
+	 * Pool the bands run in.
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Kernel for boards below the threshold.
+	 */
+	private final DensityKernel serial;
+
+	/**
+	 * Scratch: run lengths to the right (horizontal pass) or downward
+	 * (vertical pass) of every cell.
+	 */
+	private int[] runs = new int[0];
+
+	/**
+	 * Creates kernel using the common pool and the fastest serial kernel.
+	 */
+	public ParallelDensityKernel()
+	{
+		this(ForkJoinPool.commonPool(), DensityKernel.best());
+	}
+
+	/**
+	 * Creates kernel.
+	 *
+	 * @param pool   pool to run bands in
+	 * @param serial kernel for boards below PARALLEL_CELLS
+	 */
+	public ParallelDensityKernel(ForkJoinPool pool, DensityKernel serial)
+	{
+		this.pool = pool;
+		this.serial = serial;
+	}
+
+	/**
+	 * Returns the kernel's name.
+	 *
+	 * @return "parallel" and the pool's parallelism
+	 */
+	@Override
+	public String getName()
+	{
+		return "parallel-" + pool.getParallelism();
+	}
+
+	/**
+	 * Returns whether a board is big enough to split.
+	 *
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 * @return     true if bands will be used
+	 */
+	static boolean isParallel(int rows, int cols)
+	{
+		return (long)rows * cols >= PARALLEL_CELLS;
+	}
+
+	/**
+	 * Sets each cell's placement counter. See DensityKernel.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output, rows * cols
+	 */
+	@Override
+	public void computeCounters(int[] blocked, int rows, int cols,
+								int[] lengths, int[] counters)
+	{
+		if (!isParallel(rows, cols))
+		{
+			serial.computeCounters(blocked, rows, cols, lengths, counters);
+			return;
+		}
+		if (runs.length < rows * cols)
+		{
+			runs = new int[rows * cols];
+		}
+
+		// Horizontal first: it sets the counters the vertical pass adds to.
+		pool.invoke(new BandAction((from, to) -> countHorizontal(blocked, cols,
+				lengths, counters, from, to), 0, rows, bandSize(rows)));
+		pool.invoke(new BandAction((from, to) -> countVertical(blocked, rows,
+				cols, lengths, counters, from, to), 0, cols, bandSize(cols)));
+	}
+
+	/**
+	 * Sets each cell's neighbor sum. See DensityKernel.
+	 *
+	 * @param counters counters from computeCounters
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param sums     output, rows * cols
+	 */
+	@Override
+	public void computeNeighborSums(int[] counters, int rows, int cols,
+									int[] sums)
+	{
+		if (!isParallel(rows, cols))
+		{
+			serial.computeNeighborSums(counters, rows, cols, sums);
+			return;
+		}
+		pool.invoke(new BandAction((from, to) -> sumNeighbors(counters, rows,
+				cols, sums, from, to), 0, rows, bandSize(rows)));
+	}
+
+	/**
+	 * Returns the best free cell. See DensityKernel.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param counters counters from computeCounters
+	 * @param sums     sums from computeNeighborSums
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @return         index of the best cell, or -1 if all are blocked
+	 */
+	@Override
+	public int selectBest(int[] blocked, int[] counters, int[] sums, int rows,
+						  int cols)
+	{
+		if (!isParallel(rows, cols))
+		{
+			return serial.selectBest(blocked, counters, sums, rows, cols);
+		}
+		return pool.invoke(new BestTask(blocked, counters, sums, 0, rows, cols,
+				bandSize(rows)));
+	}
+
+	/**
+	 * Counts horizontal placements for a band of rows.
+	 *
+	 * @param blocked  board
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output
+	 * @param from     first row, inclusive
+	 * @param to       last row, exclusive
+	 */
+	private void countHorizontal(int[] blocked, int cols, int[] lengths,
+								 int[] counters, int from, int to)
+	{
+		for (int row = from; row < to; ++row)
+		{
+			int base = row * cols;
+
+			// Free run to the right of each cell, itself included.
+			int right = 0;
+			for (int col = cols - 1; col >= 0; --col)
+			{
+				right = (blocked[base + col] == 0) ? right + 1 : 0;
+				runs[base + col] = right;
+			}
+
+			int left = 0;
+			for (int col = 0; col < cols; ++col)
+			{
+				left = (blocked[base + col] == 0) ? left + 1 : 0;
+				counters[base + col] = placements(left, runs[base + col],
+						lengths);
+			}
+		}
+	}
+
+	/**
+	 * Adds vertical placements for a band of columns. Walks whole row
+	 * segments of the band so memory is read in order.
+	 *
+	 * @param blocked  board
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output, already holding horizontal counts
+	 * @param from     first column, inclusive
+	 * @param to       last column, exclusive
+	 */
+	private void countVertical(int[] blocked, int rows, int cols,
+							   int[] lengths, int[] counters, int from, int to)
+	{
+		// Free run downward from each cell, itself included.
+		for (int row = rows - 1; row >= 0; --row)
+		{
+			int base = row * cols;
+			for (int col = from; col < to; ++col)
+			{
+				int below = (row == rows - 1) ? 0 : runs[base + cols + col];
+				runs[base + col] = (blocked[base + col] == 0) ? below + 1 : 0;
+			}
+		}
+
+		// Free run upward, kept per column of the band.
+		int[] up = new int[to - from];
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = from; col < to; ++col)
+			{
+				int i = col - from;
+				up[i] = (blocked[base + col] == 0) ? up[i] + 1 : 0;
+				counters[base + col] += placements(up[i], runs[base + col],
+						lengths);
+			}
+		}
+	}
+
+	/**
+	 * Number of placements over a cell along one line.
+	 *
+	 * @param before  free run ending at the cell, itself included
+	 * @param after   free run starting at the cell, itself included
+	 * @param lengths ship lengths
+	 * @return        placements of all lengths covering the cell
+	 */
+	private static int placements(int before, int after, int[] lengths)
+	{
+		if (before == 0)
+		{
+			return 0;
+		}
+		int total = 0;
+		for (int length : lengths)
+		{
+			int ways = Math.min(length - 1, before - 1)
+					- Math.max(0, length - after) + 1;
+			if (ways > 0)
+			{
+				total += ways;
+			}
+		}
+		return total;
+	}
+
+	/**
+	 * Sets neighbor sums for a band of rows.
+	 *
+	 * @param counters counters
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param sums     output
+	 * @param from     first row, inclusive
+	 * @param to       last row, exclusive
+	 */
+	private static void sumNeighbors(int[] counters, int rows, int cols,
+									 int[] sums, int from, int to)
+	{
+		for (int row = from; row < to; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				int sum = 0;
+				if (row != 0)
+				{
+					sum += counters[base - cols + col];
+				}
+				if (col != cols - 1)
+				{
+					sum += counters[base + col + 1];
+				}
+				if (row != rows - 1)
+				{
+					sum += counters[base + cols + col];
+				}
+				if (col != 0)
+				{
+					sum += counters[base + col - 1];
+				}
+				sums[base + col] = sum;
+			}
+		}
+	}
+
+	/**
+	 * Returns how many rows or columns a band holds, so there are a few
+	 * bands per worker for load balancing.
+	 *
+	 * @param lines total rows or columns being split
+	 * @return      band size
+	 */
+	private int bandSize(int lines)
+	{
+		return Math.max(MIN_BAND, lines / (4 * pool.getParallelism()));
+	}
+
+	/**
+	 * Work on one band of rows or columns.
+	 */
+	private interface Band
+	{
+		/**
+		 * Processes lines [from, to).
+		 *
+		 * @param from first line, inclusive
+		 * @param to   last line, exclusive
+		 */
+		void run(int from, int to);
+	}
+
+	/**
+	 * Splits a range of rows or columns in halves down to band size and
+	 * runs each band.
+	 */
+	private static class BandAction extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final Band body;
+		private final int from;
+		private final int to;
+		private final int band;
+
+		/**
+		 * Creates action.
+		 *
+		 * @param body work per band
+		 * @param from first line, inclusive
+		 * @param to   last line, exclusive
+		 * @param band band size
+		 */
+		BandAction(Band body, int from, int to, int band)
+		{
+			this.body = body;
+			this.from = from;
+			this.to = to;
+			this.band = band;
+		}
+
+		/**
+		 * Runs the band, or splits it.
+		 */
+		@Override
+		protected void compute()
+		{
+			if (to - from <= band)
+			{
+				body.run(from, to);
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			invokeAll(new BandAction(body, from, mid, band),
+					new BandAction(body, mid, to, band));
+		}
+	}
+
+	/**
+	 * Finds the best cell of a range of rows, merging halves in row order.
+	 */
+	private static class BestTask extends RecursiveTask<Integer>
+	{
+		private static final long serialVersionUID = 1L;
+
+		private final int[] blocked;
+		private final int[] counters;
+		private final int[] sums;
+		private final int from;
+		private final int to;
+		private final int cols;
+		private final int band;
+
+		/**
+		 * Creates task for a band of rows.
+		 *
+		 * @param blocked  board
+		 * @param counters counters
+		 * @param sums     neighbor sums
+		 * @param from     first row, inclusive
+		 * @param to       last row, exclusive
+		 * @param cols     number of columns
+		 * @param band     band size
+		 */
+		BestTask(int[] blocked, int[] counters, int[] sums, int from, int to,
+				 int cols, int band)
+		{
+			this.blocked = blocked;
+			this.counters = counters;
+			this.sums = sums;
+			this.from = from;
+			this.to = to;
+			this.cols = cols;
+			this.band = band;
+		}
+
+		/**
+		 * Returns the band's best cell, or the better of its halves'.
+		 *
+		 * @return best cell index, or -1 if all are blocked
+		 */
+		@Override
+		protected Integer compute()
+		{
+			if (to - from <= band)
+			{
+				return selectBestInRange(blocked, counters, sums, from * cols,
+						to * cols);
+			}
+			int mid = (from + to) >>> 1;
+			BestTask upper = new BestTask(blocked, counters, sums, from, mid,
+					cols, band);
+			BestTask lower = new BestTask(blocked, counters, sums, mid, to,
+					cols, band);
+			lower.fork();
+			int first = upper.compute();
+			int second = lower.join();
+
+			// The upper half's cells come first, so it wins ties.
+			if (first == -1 || (second != -1
+					&& isBetter(counters, sums, second, first)))
+			{
+				return second;
+			}
+			return first;
+		}
+	}
+}
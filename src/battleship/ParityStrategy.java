@@ -0,0 +1,160 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Classic hunt/target strategy with checkerboard parity. In the Hunt
+ *      phase it shoots at random among cells of one checkerboard colour,
+ *      since every ship is at least two long and so must cover one. After a
+ *      hit it shoots at the unshot neighbours of every hit on a ship that
+ *      hasn't been sunk yet.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Checkerboard hunting with neighbour targeting.
+ */
+public class ParityStrategy implements TargetingStrategy
+{
+	/**
+	 * Source of randomness. Seeded by the caller for repeatable games.
+	 */
+	private final Random rand;
+
+	/**
+	 * Reused list of candidate cells.
+	 */
+	private final int[] candidates = new int[100];
+
+	/**
+	 * Hits on ships that haven't been sunk yet, by ship name.
+	 */
+	private final Map<String, List<Integer>> openHits = new HashMap<>();
+
+	/**
+	 * Constructs strategy with a given source of randomness.
+	 *
+	 * @param theRand source of randomness
+	 */
+	public ParityStrategy(Random theRand)
+	{
+		rand = theRand;
+	}
+
+	/**
+	 * Returns the strategy's name.
+	 *
+	 * @return "parity"
+	 */
+	@Override
+	public String getName()
+	{
+		return "parity";
+	}
+
+	/**
+	 * Picks a random neighbour of an open hit if there is one, else a random
+	 * cell of the parity colour, else any random unshot cell.
+	 *
+	 * @param board the opponent's board
+	 * @return      row * 10 + col of the chosen cell
+	 */
+	@Override
+	public int chooseShot(char[][] board)
+	{
+		int numCandidates = 0;
+
+		// Target phase.
+		for (List<Integer> hits : openHits.values())
+		{
+			for (int hit : hits)
+			{
+				numCandidates = addNeighbors(board, hit, numCandidates);
+			}
+		}
+
+		// Hunt phase, on the parity colour first.
+		for (int pass = 0; pass < 2 && numCandidates == 0; ++pass)
+		{
+			for (int row = 0; row < 10; ++row)
+			{
+				for (int col = 0; col < 10; ++col)
+				{
+					if ((pass == 1 || (row + col) % 2 == 0)
+							&& isOpen(board, row, col))
+					{
+						candidates[numCandidates++] = row * 10 + col;
+					}
+				}
+			}
+		}
+		return (numCandidates == 0) ? 0
+				: candidates[rand.nextInt(numCandidates)];
+	}
+
+	/**
+	 * Tracks hits until their ship sinks.
+	 *
+	 * @param row     row of the shot
+	 * @param col     col of the shot
+	 * @param outcome outcome returned by updateBoardAfterShot
+	 */
+	@Override
+	public void recordShot(int row, int col, ShotOutcome outcome)
+	{
+		if (!outcome.isHit())
+		{
+			return;
+		}
+		String name = outcome.getShipName();
+		if (outcome.isSunk())
+		{
+			openHits.remove(name);
+		}
+		else
+		{
+			if (!openHits.containsKey(name))
+			{
+				openHits.put(name, new ArrayList<Integer>());
+			}
+			openHits.get(name).add(row * 10 + col);
+		}
+	}
+
+	/**
+	 * Adds the unshot cardinal neighbours of a cell to the candidates.
+	 *
+	 * @param board         the opponent's board
+	 * @param cell          row * 10 + col of the hit
+	 * @param numCandidates candidates so far
+	 * @return              candidates now
+	 */
+	private int addNeighbors(char[][] board, int cell, int numCandidates)
+	{
+		int row = cell / 10;
+		int col = cell % 10;
+		int[][] neighbors = {{row - 1, col}, {row, col - 1}, {row + 1, col},
+				{row, col + 1}};
+		for (int[] neighbor : neighbors)
+		{
+			if (isOpen(board, neighbor[0], neighbor[1]))
+			{
+				candidates[numCandidates++] = neighbor[0] * 10 + neighbor[1];
+			}
+		}
+		return numCandidates;
+	}
+
+	/**
+	 * Returns whether a cell is on the board and not yet shot at.
+	 */
+	private static boolean isOpen(char[][] board, int row, int col)
+	{
+		return row >= 0 && row < 10 && col >= 0 && col < 10
+				&& board[row][col] != 'X' && board[row][col] != 'O';
+	}
+}
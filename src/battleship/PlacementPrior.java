@@ -0,0 +1,182 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      One player's placement habits: a heatmap of the cells their ships
+ *      covered in past games, turned into per-cell weights that bias the
+ *      Computer's Hunt phase towards where that player tends to put ships.
+ * Model:
+ *          After each game, every cell's heat is multiplied by the decay
+ *      factor and the cells the player's ships covered get 1 more, so
+ *      recent games count most. The effective number of games decays the
+ *      same way.
+ *
+ *          The Hunt density already favors cells that many placements pass
+ *      through, so the prior must not count that twice. A cell's weight is
+ *      the ratio of how often this player's ships covered it to how often a
+ *      uniformly random placement would (its share of all placements on an
+ *      empty board, times 17 ship cells), shrunk towards 1 by one pseudo-game
+ *      of the uniform baseline, then blended with 1:
+ *
+ *          ratio  = (heat + baseline) / ((games + 1) * baseline)
+ *          weight = (1 - blend) + blend * ratio
+ *
+ *      The weights are worked out once per game (O(cells)); the Computer
+ *      multiplies each Hunt counter by its cell's weight.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+/**
+ * Per-player placement heatmap.
+ */
+public final class PlacementPrior
+{
+	/**
+	 * Cells on the board.
+	 */
+	static final int CELLS = 100;
+
+	/**
+	 * How often a uniformly random placement covers each cell, in expected
+	 * ship cells (sums to 17).
+	 */
+	static final double[] BASELINE = baseline();
+
+	/**
+	 * Defaults for the decay and blend factors; against simulated players,
+	 * these gave the biggest gains for no cost against random placement
+	 * (see PriorBenchmark).
+	 */
+	static final double DEFAULT_DECAY = 0.98;
+	static final double DEFAULT_BLEND = 0.5;
+
+	/**
+	 * Decayed count of games each cell was covered in.
+	 */
+	private final float[] heat = new float[CELLS];
+
+	/**
+	 * Decayed number of games.
+	 */
+	private float games = 0;
+
+	/**
+	 * Creates an empty prior.
+	 */
+	public PlacementPrior()
+	{
+	}
+
+	/**
+	 * Creates a prior from stored values.
+	 *
+	 * @param heat  heat per cell; copied
+	 * @param games decayed number of games
+	 */
+	PlacementPrior(float[] heat, float games)
+	{
+		System.arraycopy(heat, 0, this.heat, 0, CELLS);
+		this.games = games;
+	}
+
+	/**
+	 * Adds a finished game's fleet, decaying older games.
+	 *
+	 * @param layout the player's packed layout
+	 * @param decay  weight kept by older games, between 0 and 1
+	 */
+	public void record(long layout, double decay)
+	{
+		for (int cell = 0; cell < CELLS; ++cell)
+		{
+			heat[cell] *= decay;
+		}
+		games = (float)(games * decay + 1);
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			int origin = FleetLayout.getOrigin(layout, ship);
+			int step = (FleetLayout.getDirection(layout, ship)
+					== FleetLayout.SOUTH) ? 10 : 1;
+			for (int i = 0; i < FleetLayout.SIZES[ship]; ++i)
+			{
+				heat[origin + i * step]++;
+			}
+		}
+	}
+
+	/**
+	 * Returns the per-cell Hunt weights.
+	 *
+	 * @param blend how much the prior counts, between 0 (not at all) and 1
+	 * @return      weight per cell (row * 10 + col), or null if no games
+	 *              have been recorded
+	 */
+	public double[] weights(double blend)
+	{
+		if (games == 0)
+		{
+			return null;
+		}
+		double[] weights = new double[CELLS];
+		for (int cell = 0; cell < CELLS; ++cell)
+		{
+			double ratio = (heat[cell] + BASELINE[cell])
+					/ ((games + 1) * BASELINE[cell]);
+			weights[cell] = (1 - blend) + blend * ratio;
+		}
+		return weights;
+	}
+
+	/**
+	 * Returns the decayed number of games recorded.
+	 *
+	 * @return effective game count
+	 */
+	public float getGames()
+	{
+		return games;
+	}
+
+	/**
+	 * Returns one cell's heat.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     decayed count of games the cell was covered in
+	 */
+	float getHeat(int cell)
+	{
+		return heat[cell];
+	}
+
+	/**
+	 * Expected ship cells per cell under uniformly random placement: each
+	 * ship's placements on an empty board, counted per cell, as a share of
+	 * that ship's placements.
+	 *
+	 * @return baseline per cell
+	 */
+	private static double[] baseline()
+	{
+		double[] baseline = new double[CELLS];
+		for (int size : FleetLayout.SIZES)
+		{
+			int placements = 2 * 10 * (11 - size);
+			for (int row = 0; row < 10; ++row)
+			{
+				for (int start = 0; start + size <= 10; ++start)
+				{
+					for (int i = 0; i < size; ++i)
+					{
+						// Horizontal along the row, vertical down the column.
+						baseline[row * 10 + start + i] += 1.0 / placements;
+						baseline[(start + i) * 10 + row] += 1.0 / placements;
+					}
+				}
+			}
+		}
+		return baseline;
+	}
+}
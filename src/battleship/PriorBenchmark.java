@@ -0,0 +1,215 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Measures what placement priors buy against players with habits.
+ *      Each simulated player places a run of fleets; the Computer plays
+ *      every one of them twice, once hunting by density alone and once with
+ *      a PlacementPrior learned from that player's earlier games, and the
+ *      report compares shots-to-win.
+ * Players:
+ *          random  uniformly random fleets; the prior should cost nothing
+ *          edges   every ship touches the edge of the board
+ *          west    every ship stays in columns A - F
+ *          habit   one favorite fleet, with one ship moved each game
+ *
+ *      All but habit draw uniform fleets and keep those that fit the habit.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.PriorBenchmark [options]
+ *      Options:
+ *          --games=<n>    games per player (default 500)
+ *          --seed=<n>     layout seed (default 2014)
+ *          --decay=<f>    weight kept by older games (default 0.98)
+ *          --blend=<f>    how much the prior counts, 0 - 1 (default 0.5)
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Shots-to-win with and without placement priors.
+ */
+public class PriorBenchmark
+{
+	/**
+	 * Simulated players, in report order.
+	 */
+	static final String[] PLAYERS = {"random", "edges", "west", "habit"};
+
+	/**
+	 * Parses options, plays every player and prints the report.
+	 *
+	 * @param args see class comment
+	 */
+	public static void main(String[] args)
+	{
+		int games = 500;
+		long seed = 2014;
+		double decay = PlacementPrior.DEFAULT_DECAY;
+		double blend = PlacementPrior.DEFAULT_BLEND;
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--decay="))
+			{
+				decay = Double.parseDouble(value);
+			}
+			else if (arg.startsWith("--blend="))
+			{
+				blend = Double.parseDouble(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (games < 2 || decay <= 0 || decay > 1 || blend < 0 || blend > 1)
+		{
+			System.out.println("Need --games >= 2, 0 < --decay <= 1 and " +
+					"0 <= --blend <= 1. Exiting.");
+			System.exit(1);
+		}
+
+		System.out.printf("Placement priors, %d games per player, decay " +
+				"%.2f, blend %.2f:%n", games, decay, blend);
+		System.out.printf("%-8s %10s %10s %10s %14s %12s%n", "player",
+				"density", "prior", "change", "second half", "ns/move");
+		for (String player : PLAYERS)
+		{
+			long[] layouts = habitualLayouts(player, new Random(seed), games);
+			report(player, layouts, decay, blend);
+		}
+	}
+
+	/**
+	 * Plays one player's games with and without the prior and prints a
+	 * report line. The prior only ever knows the games before the current
+	 * one.
+	 *
+	 * @param player  player name
+	 * @param layouts the player's fleets, in game order
+	 * @param decay   weight kept by older games
+	 * @param blend   how much the prior counts
+	 */
+	static void report(String player, long[] layouts, double decay,
+					   double blend)
+	{
+		GameBoard board = Simulation.newBoard(layouts[0]);
+		Computer computer = new Computer(board);
+		PlacementPrior prior = new PlacementPrior();
+
+		int[] plain = new int[layouts.length];
+		int[] primed = new int[layouts.length];
+		long nanos = 0;
+		long moves = 0;
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			computer.setPlacementPrior(null);
+			plain[i] = Simulation.playGame(computer, board, layouts[i]);
+
+			computer.setPlacementPrior(prior.weights(blend));
+			long start = System.nanoTime();
+			primed[i] = Simulation.playGame(computer, board, layouts[i]);
+			nanos += System.nanoTime() - start;
+			moves += primed[i];
+
+			prior.record(layouts[i], decay);
+		}
+
+		int half = layouts.length / 2;
+		int[] plainLate = Arrays.copyOfRange(plain, half, plain.length);
+		int[] primedLate = Arrays.copyOfRange(primed, half, primed.length);
+		double plainMean = Simulation.mean(plain);
+		double primedMean = Simulation.mean(primed);
+		System.out.printf("%-8s %10.2f %10.2f %+9.1f%% %+13.1f%% %12.0f%n",
+				player, plainMean, primedMean,
+				100 * (primedMean - plainMean) / plainMean,
+				100 * (Simulation.mean(primedLate)
+						- Simulation.mean(plainLate))
+						/ Simulation.mean(plainLate),
+				(double)nanos / moves);
+	}
+
+	/**
+	 * Draws a player's fleets.
+	 *
+	 * @param player one of PLAYERS
+	 * @param rand   source of randomness
+	 * @param count  number of fleets
+	 * @return       packed layouts, in game order
+	 */
+	static long[] habitualLayouts(String player, Random rand, int count)
+	{
+		long[] layouts = new long[count];
+		long favorite = FleetLayout.randomUniform(rand);
+		for (int i = 0; i < count; ++i)
+		{
+			long layout;
+			do
+			{
+				layout = FleetLayout.randomUniform(rand);
+				if (player.equals("habit"))
+				{
+					// The favorite with one ship swapped for a random one.
+					int ship = rand.nextInt(FleetLayout.NUM_SHIPS);
+					long bits = 0x1FFL << (ship * FleetLayout.BITS_PER_SHIP);
+					layout = (favorite & ~bits) | (layout & bits);
+				}
+			}
+			while (!fitsHabit(player, layout));
+			layouts[i] = layout;
+		}
+		return layouts;
+	}
+
+	/**
+	 * Whether a fleet is one the player would place.
+	 *
+	 * @param player one of PLAYERS
+	 * @param layout packed layout
+	 * @return       true if it fits the player's habit
+	 */
+	static boolean fitsHabit(String player, long layout)
+	{
+		if (!FleetLayout.isValid(layout))
+		{
+			return false;
+		}
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			int origin = FleetLayout.getOrigin(layout, ship);
+			int row = origin / 10;
+			int col = origin % 10;
+			boolean south = FleetLayout.getDirection(layout, ship)
+					== FleetLayout.SOUTH;
+			int last = FleetLayout.SIZES[ship] - 1;
+			int endRow = south ? row + last : row;
+			int endCol = south ? col : col + last;
+
+			if (player.equals("edges") && row != 0 && col != 0
+					&& endRow != 9 && endCol != 9)
+			{
+				return false;
+			}
+			if (player.equals("west") && endCol > 5)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+}
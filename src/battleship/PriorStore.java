@@ -0,0 +1,299 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Keeps every player's PlacementPrior in one small binary file, with
+ *      the recently used ones cached in memory.
+ * File format:
+ *          A 16-byte header followed by fixed-size records, so a player's
+ *      record can be rewritten in place. All values are big-endian.
+ *
+ *          offset  size  field
+ *          0       4     magic, "BSPP"
+ *          4       2     format version (1)
+ *          6       1     board rows (10)
+ *          7       1     board columns (10)
+ *          8       4     number of records
+ *          12      4     reserved, zero
+ *
+ *          Each 440-byte record is
+ *
+ *          0       32    player name, UTF-8, zero-padded
+ *          32      4     decayed game count (float)
+ *          36      400   heat per cell (float), row-major
+ *          436     4     reserved, zero
+ * Caching:
+ *          Opening the store reads only the names, to know which record is
+ *      whose. Heatmaps are read on first use and kept in an access-ordered
+ *      LinkedHashMap that drops the least recently used one past its
+ *      capacity. Recording a game updates the cached prior and writes its
+ *      record straight through, so nothing cached is ever unsaved and
+ *      dropping an entry costs nothing.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+/**
+ * Persistent, LRU-cached per-player placement priors.
+ */
+public class PriorStore implements AutoCloseable
+{
+	static final int MAGIC = 0x42535050;
+	static final short VERSION = 1;
+	static final int HEADER_SIZE = 16;
+	static final int NAME_SIZE = 32;
+	static final int RECORD_SIZE = 440;
+
+	/**
+	 * Default number of priors kept in memory.
+	 */
+	static final int DEFAULT_CACHE_SIZE = 64;
+
+	/**
+	 * The open file.
+	 */
+	private final RandomAccessFile file;
+
+	/**
+	 * Record index of every player in the file.
+	 */
+	private final Map<String, Integer> records = new HashMap<>();
+
+	/**
+	 * Recently used priors, least recently used first.
+	 */
+	private final Map<String, PlacementPrior> cache;
+
+	/**
+	 * Opens a store, creating the file if it doesn't exist.
+	 *
+	 * @param fname        the name of the store file
+	 * @param cacheSize    number of priors kept in memory
+	 * @throws IOException if the file can't be read or isn't a prior store
+	 */
+	public PriorStore(String fname, int cacheSize) throws IOException
+	{
+		file = new RandomAccessFile(fname, "rw");
+		cache = new LinkedHashMap<String, PlacementPrior>(16, 0.75f, true)
+		{
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(
+					Map.Entry<String, PlacementPrior> eldest)
+			{
+				return size() > cacheSize;
+			}
+		};
+
+		try
+		{
+			if (file.length() == 0)
+			{
+				file.writeInt(MAGIC);
+				file.writeShort(VERSION);
+				file.writeByte(10);
+				file.writeByte(10);
+				file.writeInt(0);
+				file.writeInt(0);
+				return;
+			}
+			readNames(fname);
+		}
+		catch (IOException e)
+		{
+			file.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Checks the header and reads every record's name.
+	 *
+	 * @param fname        the name of the store file, for messages
+	 * @throws IOException if the file can't be read or isn't a prior store
+	 */
+	private void readNames(String fname) throws IOException
+	{
+		if (file.length() < HEADER_SIZE || file.readInt() != MAGIC)
+		{
+			throw new IOException(fname + " is not a placement prior store.");
+		}
+		short version = file.readShort();
+		if (version != VERSION)
+		{
+			throw new IOException("Unsupported prior store version " +
+					version + " in " + fname + ".");
+		}
+		if (file.readByte() != 10 || file.readByte() != 10)
+		{
+			throw new IOException(fname + " was written for a different " +
+					"board.");
+		}
+		int count = file.readInt();
+		if (count < 0 || HEADER_SIZE + (long)count * RECORD_SIZE
+				> file.length())
+		{
+			throw new IOException(fname + " is truncated: header promises " +
+					count + " players.");
+		}
+
+		byte[] name = new byte[NAME_SIZE];
+		for (int i = 0; i < count; ++i)
+		{
+			file.seek(HEADER_SIZE + (long)i * RECORD_SIZE);
+			file.readFully(name);
+			records.put(decodeName(name), i);
+		}
+	}
+
+	/**
+	 * Returns a player's prior, from the cache or the file, or a new empty
+	 * one for a new player.
+	 *
+	 * @param player       player name
+	 * @return             the player's prior; updated by record
+	 * @throws IOException if the record can't be read
+	 * @throws IllegalArgumentException if a new player's name doesn't fit
+	 */
+	public PlacementPrior get(String player) throws IOException
+	{
+		PlacementPrior prior = cache.get(player);
+		if (prior != null)
+		{
+			return prior;
+		}
+
+		Integer index = records.get(player);
+		if (index == null)
+		{
+			encodeName(player);
+			prior = new PlacementPrior();
+		}
+		else
+		{
+			file.seek(HEADER_SIZE + (long)index * RECORD_SIZE + NAME_SIZE);
+			float games = file.readFloat();
+			float[] heat = new float[PlacementPrior.CELLS];
+			for (int cell = 0; cell < heat.length; ++cell)
+			{
+				heat[cell] = file.readFloat();
+			}
+			prior = new PlacementPrior(heat, games);
+		}
+		cache.put(player, prior);
+		return prior;
+	}
+
+	/**
+	 * Adds a finished game to a player's prior and writes it to the file.
+	 *
+	 * @param player       player name
+	 * @param layout       the player's packed layout that game
+	 * @param decay        weight kept by older games, between 0 and 1
+	 * @throws IOException if the record can't be written
+	 */
+	public void record(String player, long layout, double decay)
+			throws IOException
+	{
+		PlacementPrior prior = get(player);
+		prior.record(layout, decay);
+
+		Integer index = records.get(player);
+		if (index == null)
+		{
+			// Append, then count it only once it's all there.
+			index = records.size();
+			file.seek(HEADER_SIZE + (long)index * RECORD_SIZE);
+			file.write(encodeName(player));
+			writeValues(prior);
+			file.seek(8);
+			file.writeInt(index + 1);
+			records.put(player, index);
+			return;
+		}
+		file.seek(HEADER_SIZE + (long)index * RECORD_SIZE + NAME_SIZE);
+		writeValues(prior);
+	}
+
+	/**
+	 * Writes a prior's game count and heat at the file pointer.
+	 *
+	 * @param prior        prior to write
+	 * @throws IOException if it can't be written
+	 */
+	private void writeValues(PlacementPrior prior) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(
+				RECORD_SIZE - NAME_SIZE);
+		DataOutputStream out = new DataOutputStream(bytes);
+		out.writeFloat(prior.getGames());
+		for (int cell = 0; cell < PlacementPrior.CELLS; ++cell)
+		{
+			out.writeFloat(prior.getHeat(cell));
+		}
+		out.writeInt(0);
+		file.write(bytes.toByteArray());
+	}
+
+	/**
+	 * Returns the number of players in the store.
+	 *
+	 * @return player count
+	 */
+	public int size()
+	{
+		return records.size();
+	}
+
+	/**
+	 * Encodes a name into its fixed-size field.
+	 *
+	 * @param player player name
+	 * @return       zero-padded UTF-8 bytes
+	 * @throws IllegalArgumentException if the name is empty or too long
+	 */
+	private static byte[] encodeName(String player)
+	{
+		byte[] utf8 = player.getBytes(StandardCharsets.UTF_8);
+		if (utf8.length == 0 || utf8.length > NAME_SIZE)
+		{
+			throw new IllegalArgumentException("Player names must be 1 - " +
+					NAME_SIZE + " bytes of UTF-8: " + player);
+		}
+		return Arrays.copyOf(utf8, NAME_SIZE);
+	}
+
+	/**
+	 * Decodes a fixed-size name field.
+	 *
+	 * @param field zero-padded UTF-8 bytes
+	 * @return      player name
+	 */
+	private static String decodeName(byte[] field)
+	{
+		int length = 0;
+		while (length < field.length && field[length] != 0)
+		{
+			length++;
+		}
+		return new String(field, 0, length, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Closes the file.
+	 *
+	 * @throws IOException if it can't be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		file.close();
+	}
+}
@@ -0,0 +1,87 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Baseline targeting strategy: every shot goes to a uniformly random
+ *      cell that hasn't been shot at. Uses no information from hits.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Shoots at random.
+ */
+public class RandomStrategy implements TargetingStrategy
+{
+	/**
+	 * Source of randomness. Seeded by the caller for repeatable games.
+	 */
+	private final Random rand;
+
+	/**
+	 * Reused list of cells not yet shot at.
+	 */
+	private final int[] candidates = new int[100];
+
+	/**
+	 * Constructs strategy with a given source of randomness.
+	 *
+	 * @param theRand source of randomness
+	 */
+	public RandomStrategy(Random theRand)
+	{
+		rand = theRand;
+	}
+
+	/**
+	 * Returns the strategy's name.
+	 *
+	 * @return "random"
+	 */
+	@Override
+	public String getName()
+	{
+		return "random";
+	}
+
+	/**
+	 * Picks a random cell not yet shot at.
+	 *
+	 * @param board the opponent's board
+	 * @return      row * 10 + col of the chosen cell
+	 */
+	@Override
+	public int chooseShot(char[][] board)
+	{
+		int numCandidates = 0;
+		for (int row = 0; row < 10; ++row)
+		{
+			for (int col = 0; col < 10; ++col)
+			{
+				if (board[row][col] != 'X' && board[row][col] != 'O')
+				{
+					candidates[numCandidates++] = row * 10 + col;
+				}
+			}
+		}
+		return (numCandidates == 0) ? 0
+				: candidates[rand.nextInt(numCandidates)];
+	}
+
+	/**
+	 * Ignores the outcome.
+	 *
+	 * @param row     row of the shot
+	 * @param col     col of the shot
+	 * @param outcome outcome returned by updateBoardAfterShot
+	 */
+	@Override
+	public void recordShot(int row, int col, ShotOutcome outcome)
+	{
+		// Doesn't learn.
+	}
+}
@@ -0,0 +1,103 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      EventBus subscriber that writes every game event to a text file, one
+ *      per line, e.g.
+ *
+ *          12 SINK Human 7C Destroyer
+ *          40 GAME_OVER Computer 55
+ *
+ *      so a session can be replayed or inspected afterwards.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.io.*;
+
+/**
+ * Replay log writer.
+ */
+public class ReplayLog implements GameEventHandler, AutoCloseable
+{
+	/**
+	 * To convert col value to column letter.
+	 */
+	private static final String COLUMNS = "ABCDEFGHIJ";
+
+	/**
+	 * Output. Only the subscriber thread writes, until close.
+	 */
+	private final PrintWriter writer;
+
+	/**
+	 * Opens the log.
+	 *
+	 * @param fname        the name of the log file
+	 * @throws IOException if the file can't be created
+	 */
+	public ReplayLog(String fname) throws IOException
+	{
+		writer = new PrintWriter(new BufferedWriter(new FileWriter(fname)));
+	}
+
+	/**
+	 * Writes one event.
+	 *
+	 * @param sequence event number
+	 * @param type     event type
+	 * @param board    board id
+	 * @param cell     cell, or -1
+	 * @param ship     ship index, or -1
+	 * @param value    type-specific value
+	 */
+	@Override
+	public void onEvent(long sequence, GameEventType type, int board, int cell,
+						int ship, int value)
+	{
+		writer.print(sequence);
+		writer.print(' ');
+		writer.print(type);
+		writer.print((board == EventBus.HUMAN_BOARD) ? " Human" : " Computer");
+		if (cell >= 0)
+		{
+			writer.print(' ');
+			writer.print(cell / 10 + 1);
+			writer.print(COLUMNS.charAt(cell % 10));
+		}
+		if (ship >= 0)
+		{
+			writer.print(' ');
+			writer.print(FleetLayout.NAMES[ship]);
+		}
+		if (type == GameEventType.PLACEMENT)
+		{
+			writer.print((value == 0) ? " horizontal" : " vertical");
+		}
+		else if (type == GameEventType.GAME_OVER
+				|| type == GameEventType.VOLLEY
+				|| (type == GameEventType.MISS && value != 0))
+		{
+			writer.print(' ');
+			writer.print((type == GameEventType.MISS) ? "repeat" : value);
+		}
+		writer.println();
+	}
+
+	/**
+	 * Flushes and closes the log. Call after the subscription is closed.
+	 *
+	 * @throws IOException if anything failed to be written
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		writer.close();
+		if (writer.checkError())
+		{
+			throw new IOException("Couldn't write the replay log.");
+		}
+	}
+}
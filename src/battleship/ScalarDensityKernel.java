@@ -0,0 +1,197 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Plain-Java DensityKernel, and the fallback when the Vector API isn't
+ *      available.
+ * Algorithm:
+ *          Rather than walking every placement cell by cell (O(cells *
+ *      length^2) per length, as Computer.setBoardSpaces does), each line is
+ *      handled with prefix sums. A prefix count of blocked cells tells in
+ *      O(1) whether a placement is free; each free placement adds +1 at its
+ *      start and -1 just past its end in a difference array; and a running
+ *      sum of the difference array gives every cell's counter. That's
+ *      O(cells) per length.
+ *
+ *          Vertical placements are processed a whole row at a time: the
+ *      prefix, difference and running-sum arrays are kept per column and
+ *      advanced row by row, so the inner loops run along contiguous memory.
+ *      VectorDensityKernel uses the same layout with SIMD lanes.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.util.*;
+
+/**
+ * Prefix-sum density kernel.
+ */
+public class ScalarDensityKernel extends DensityKernel
+{
+	/**
+	 * Scratch: per-row prefix and difference arrays (cols + 1), and
+	 * per-column prefix and difference arrays ((rows + 1) * cols).
+	 */
+	int[] rowPrefix = new int[0];
+	int[] rowDiff = new int[0];
+	int[] colPrefix = new int[0];
+	int[] colDiff = new int[0];
+	int[] colRun = new int[0];
+
+	/**
+	 * Returns the kernel's name.
+	 *
+	 * @return "scalar"
+	 */
+	@Override
+	public String getName()
+	{
+		return "scalar";
+	}
+
+	/**
+	 * Grows scratch arrays for a board size.
+	 *
+	 * @param rows number of rows
+	 * @param cols number of columns
+	 */
+	void ensureScratch(int rows, int cols)
+	{
+		if (rowPrefix.length < cols + 1)
+		{
+			rowPrefix = new int[cols + 1];
+			rowDiff = new int[cols + 1];
+			colRun = new int[cols];
+		}
+		if (colPrefix.length < (rows + 1) * cols)
+		{
+			colPrefix = new int[(rows + 1) * cols];
+			colDiff = new int[(rows + 1) * cols];
+		}
+	}
+
+	/**
+	 * Sets each cell's placement counter. See DensityKernel.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output, rows * cols
+	 */
+	@Override
+	public void computeCounters(int[] blocked, int rows, int cols,
+								int[] lengths, int[] counters)
+	{
+		ensureScratch(rows, cols);
+
+		// Horizontal placements, one row at a time.
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				rowPrefix[col + 1] = rowPrefix[col] + blocked[base + col];
+			}
+			Arrays.fill(rowDiff, 0, cols + 1, 0);
+			for (int length : lengths)
+			{
+				for (int start = 0; start + length <= cols; ++start)
+				{
+					// Free if no blocked cells in [start, start + length).
+					if (rowPrefix[start + length] == rowPrefix[start])
+					{
+						rowDiff[start]++;
+						rowDiff[start + length]--;
+					}
+				}
+			}
+			int run = 0;
+			for (int col = 0; col < cols; ++col)
+			{
+				run += rowDiff[col];
+				counters[base + col] = run;
+			}
+		}
+
+		// Vertical placements, a whole row of columns at a time.
+		Arrays.fill(colPrefix, 0, cols, 0);
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				colPrefix[base + cols + col] = colPrefix[base + col]
+						+ blocked[base + col];
+			}
+		}
+		Arrays.fill(colDiff, 0, (rows + 1) * cols, 0);
+		for (int length : lengths)
+		{
+			for (int start = 0; start + length <= rows; ++start)
+			{
+				int top = start * cols;
+				int bottom = (start + length) * cols;
+				for (int col = 0; col < cols; ++col)
+				{
+					if (colPrefix[bottom + col] == colPrefix[top + col])
+					{
+						colDiff[top + col]++;
+						colDiff[bottom + col]--;
+					}
+				}
+			}
+		}
+		Arrays.fill(colRun, 0, cols, 0);
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				colRun[col] += colDiff[base + col];
+				counters[base + col] += colRun[col];
+			}
+		}
+	}
+
+	/**
+	 * Sets each cell's neighbor sum. See DensityKernel.
+	 *
+	 * @param counters counters from computeCounters
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param sums     output, rows * cols
+	 */
+	@Override
+	public void computeNeighborSums(int[] counters, int rows, int cols,
+									int[] sums)
+	{
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				int sum = 0;
+				if (row != 0)
+				{
+					sum += counters[base - cols + col];
+				}
+				if (col != cols - 1)
+				{
+					sum += counters[base + col + 1];
+				}
+				if (row != rows - 1)
+				{
+					sum += counters[base + cols + col];
+				}
+				if (col != 0)
+				{
+					sum += counters[base + col - 1];
+				}
+				sums[base + col] = sum;
+			}
+		}
+	}
+}
@@ -0,0 +1,442 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      A/B comparison of two registered strategies that stops as soon as
+ *      the answer is clear, instead of after a fixed, very large number of
+ *      games.
+ * Pairing:
+ *          Both strategies play every layout, game i being
+ *      Simulation.layoutFor(seed + i) with strategy seed seed + i, and the
+ *      test looks at the paired difference d = shots(A) - shots(B). Most
+ *      of a game's length comes from the layout, which both sides share,
+ *      so d varies far less than either side's shots-to-win, and far fewer
+ *      games are needed.
+ * Test:
+ *          Two sequential probability ratio tests run side by side on d,
+ *      each with a normal model whose variance is estimated as the games
+ *      come in: H0 mean 0 against H1 mean +delta (B is better), and H0
+ *      against H1 mean -delta (A is better), each at alpha / 2. For H1
+ *      mean theta the log-likelihood ratio after n games is
+ *          LLR = theta / var * (sum(d) - n * theta / 2),
+ *      accepting H1 once it reaches ln((1 - beta) / (alpha / 2)) and H0
+ *      once it falls to ln(beta / (1 - alpha / 2)). The comparison ends
+ *      when either test accepts H1 or both accept H0 (no difference of
+ *      delta or more). No decision is taken before --min-games, so the
+ *      variance estimate can settle, and after --max-games the result is
+ *      reported as inconclusive.
+ *
+ *          Games are played in batches on a thread pool but fed to the
+ *      test in seed order, so the decision and the game it was reached on
+ *      don't depend on the thread count. The report compares the games
+ *      used with a fixed-size paired test, and with an unpaired one, of
+ *      the same alpha, beta and delta.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.SequentialComparison --a=<name> --b=<name>
+ *              [options]
+ *      Options:
+ *          --delta=<shots>      smallest difference in mean shots-to-win
+ *                               worth detecting (default 0.25)
+ *          --alpha=<p>          false positive rate (default 0.05)
+ *          --beta=<p>           false negative rate (default 0.05)
+ *          --seed=<n>           first game seed (default 2014)
+ *          --min-games=<n>      games before any decision (default 200)
+ *          --max-games=<n>      games before giving up (default 1000000)
+ *          --threads=<n>        worker threads (default: all processors)
+ *      Exits with status 1 if the result is inconclusive.
+ */
+
+package battleship;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Paired sequential test between two strategies.
+ */
+public class SequentialComparison
+{
+	/**
+	 * Games per thread per batch.
+	 */
+	static final int BATCH_SIZE = 64;
+
+	/**
+	 * Test outcomes.
+	 */
+	static final int UNDECIDED = 0;
+	static final int ACCEPT_H0 = 1;
+	static final int ACCEPT_H1 = 2;
+
+	private final double delta;
+	private final long minGames;
+	private final double lower;
+	private final double upper;
+
+	// Running sums: d, d squared, and each side's shots for the unpaired
+	// comparison.
+	private long games = 0;
+	private double sum = 0;
+	private double sumSquares = 0;
+	private double sumA = 0;
+	private double sumSquaresA = 0;
+	private double sumB = 0;
+	private double sumSquaresB = 0;
+
+	// Outcome of the test for +delta (B better) and for -delta (A better).
+	private int bBetter = UNDECIDED;
+	private int aBetter = UNDECIDED;
+
+	/**
+	 * Sets up the two tests.
+	 *
+	 * @param delta    smallest difference worth detecting, in shots
+	 * @param alpha    false positive rate, shared by the two tests
+	 * @param beta     false negative rate
+	 * @param minGames games before any decision
+	 */
+	SequentialComparison(double delta, double alpha, double beta,
+			long minGames)
+	{
+		this.delta = delta;
+		this.minGames = minGames;
+		lower = Math.log(beta / (1 - alpha / 2));
+		upper = Math.log((1 - beta) / (alpha / 2));
+	}
+
+	/**
+	 * Parses options, plays pairs until the tests decide and prints the
+	 * report.
+	 *
+	 * @param args see class comment
+	 */
+	public static void main(String[] args)
+	{
+		String nameA = null;
+		String nameB = null;
+		double delta = 0.25;
+		double alpha = 0.05;
+		double beta = 0.05;
+		long seed = 2014;
+		long minGames = 200;
+		long maxGames = 1000000;
+		int threads = Runtime.getRuntime().availableProcessors();
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--a="))
+			{
+				nameA = value;
+			}
+			else if (arg.startsWith("--b="))
+			{
+				nameB = value;
+			}
+			else if (arg.startsWith("--delta="))
+			{
+				delta = Double.parseDouble(value);
+			}
+			else if (arg.startsWith("--alpha="))
+			{
+				alpha = Double.parseDouble(value);
+			}
+			else if (arg.startsWith("--beta="))
+			{
+				beta = Double.parseDouble(value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--min-games="))
+			{
+				minGames = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--max-games="))
+			{
+				maxGames = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--threads="))
+			{
+				threads = Integer.parseInt(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		for (String name : new String[] {nameA, nameB})
+		{
+			if (name == null || !Arrays.asList(Strategies.NAMES).contains(name))
+			{
+				System.out.println("Need two registered strategies, --a and " +
+						"--b, from " + String.join(", ", Strategies.NAMES) +
+						". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (delta <= 0 || alpha <= 0 || alpha >= 1 || beta <= 0 || beta >= 1
+				|| threads <= 0 || maxGames < minGames)
+		{
+			System.out.println("Need delta > 0, alpha and beta in (0, 1), " +
+					"threads > 0 and max-games >= min-games. Exiting.");
+			System.exit(1);
+		}
+
+		SequentialComparison test = new SequentialComparison(delta, alpha,
+				beta, minGames);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		long start = System.nanoTime();
+		long played = 0;
+		try
+		{
+			while (!test.isDecided() && test.games < maxGames)
+			{
+				List<Future<int[]>> batch = new ArrayList<>();
+				for (int t = 0; t < threads; ++t)
+				{
+					long first = seed + played + (long)t * BATCH_SIZE;
+					String a = nameA;
+					String b = nameB;
+					batch.add(pool.submit(() -> playPairs(a, b, first)));
+				}
+				played += (long)threads * BATCH_SIZE;
+
+				for (Future<int[]> result : batch)
+				{
+					int[] shots = result.get();
+					for (int i = 0; i < shots.length; i += 2)
+					{
+						if (test.isDecided() || test.games >= maxGames)
+						{
+							break;
+						}
+						test.add(shots[i], shots[i + 1]);
+					}
+				}
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			throw new IllegalStateException("Playing failed.", e);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+
+		System.out.print(test.report(nameA, nameB, alpha, beta));
+		System.out.printf("%d games per side in %.1fs (%d played, the rest " +
+				"of the last batch unused).\n", test.games, seconds, played);
+		if (!test.isDecided())
+		{
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Plays one batch of pairs.
+	 *
+	 * @param nameA strategy A
+	 * @param nameB strategy B
+	 * @param first first game seed
+	 * @return      shots-to-win, A then B for each game in seed order
+	 */
+	static int[] playPairs(String nameA, String nameB, long first)
+	{
+		int[] shots = new int[2 * BATCH_SIZE];
+		for (int i = 0; i < BATCH_SIZE; ++i)
+		{
+			long layout = Simulation.layoutFor(first + i);
+			GameBoard board = Simulation.newBoard(layout);
+			shots[2 * i] = Simulation.playGame(
+					Strategies.create(nameA, board, first + i), board);
+			board = Simulation.newBoard(layout);
+			shots[2 * i + 1] = Simulation.playGame(
+					Strategies.create(nameB, board, first + i), board);
+		}
+		return shots;
+	}
+
+	/**
+	 * Adds one pair and updates both tests.
+	 *
+	 * @param shotsA A's shots-to-win
+	 * @param shotsB B's on the same layout
+	 */
+	void add(int shotsA, int shotsB)
+	{
+		int d = shotsA - shotsB;
+		games++;
+		sum += d;
+		sumSquares += (double)d * d;
+		sumA += shotsA;
+		sumSquaresA += (double)shotsA * shotsA;
+		sumB += shotsB;
+		sumSquaresB += (double)shotsB * shotsB;
+
+		// Decisions wait for the variance estimate to settle.
+		if (games < minGames)
+		{
+			return;
+		}
+		if (bBetter == UNDECIDED)
+		{
+			bBetter = decide(llr(delta));
+		}
+		if (aBetter == UNDECIDED)
+		{
+			aBetter = decide(llr(-delta));
+		}
+	}
+
+	/**
+	 * Log-likelihood ratio of mean theta against mean 0 so far.
+	 *
+	 * @param theta H1 mean difference
+	 * @return      the ratio's log
+	 */
+	private double llr(double theta)
+	{
+		// Identical strategies give a variance of 0; any shift is then
+		// infinitely unlikely.
+		double variance = Math.max(variance(sum, sumSquares), 1e-9);
+		return theta / variance * (sum - games * theta / 2);
+	}
+
+	/**
+	 * Compares a log-likelihood ratio with the bounds.
+	 *
+	 * @param llr log-likelihood ratio
+	 * @return    UNDECIDED, ACCEPT_H0 or ACCEPT_H1
+	 */
+	private int decide(double llr)
+	{
+		return (llr >= upper) ? ACCEPT_H1
+				: (llr <= lower) ? ACCEPT_H0 : UNDECIDED;
+	}
+
+	/**
+	 * Whether the comparison can stop.
+	 *
+	 * @return true if one side is better, or neither by delta
+	 */
+	boolean isDecided()
+	{
+		return bBetter == ACCEPT_H1 || aBetter == ACCEPT_H1
+				|| (bBetter == ACCEPT_H0 && aBetter == ACCEPT_H0);
+	}
+
+	/**
+	 * Sample variance from running sums.
+	 *
+	 * @param sum        sum of values
+	 * @param sumSquares sum of their squares
+	 * @return           the variance, or 0 with fewer than two values
+	 */
+	private double variance(double sum, double sumSquares)
+	{
+		if (games < 2)
+		{
+			return 0;
+		}
+		return Math.max(0, (sumSquares - sum * sum / games) / (games - 1));
+	}
+
+	/**
+	 * Formats the decision and the games a fixed-size test would need.
+	 *
+	 * @param nameA strategy A
+	 * @param nameB strategy B
+	 * @param alpha false positive rate
+	 * @param beta  false negative rate
+	 * @return      the report
+	 */
+	String report(String nameA, String nameB, double alpha, double beta)
+	{
+		double meanA = sumA / games;
+		double meanB = sumB / games;
+		double mean = sum / games;
+		double sdPaired = Math.sqrt(variance(sum, sumSquares));
+		double sdUnpaired = Math.sqrt(variance(sumA, sumSquaresA)
+				+ variance(sumB, sumSquaresB));
+		double z = normalQuantile(1 - alpha / 2) + normalQuantile(1 - beta);
+
+		String verdict;
+		if (aBetter == ACCEPT_H1 && bBetter != ACCEPT_H1)
+		{
+			verdict = nameA + " is better";
+		}
+		else if (bBetter == ACCEPT_H1 && aBetter != ACCEPT_H1)
+		{
+			verdict = nameB + " is better";
+		}
+		else if (aBetter == ACCEPT_H0 && bBetter == ACCEPT_H0)
+		{
+			verdict = "neither is better by " + delta + " shots or more";
+		}
+		else
+		{
+			verdict = "inconclusive";
+		}
+
+		StringBuilder report = new StringBuilder();
+		report.append(String.format("%-16s%10s\n", "strategy", "mean"));
+		report.append(String.format("%-16s%10.3f\n", nameA, meanA));
+		report.append(String.format("%-16s%10.3f\n", nameB, meanB));
+		report.append(String.format("\nMean difference %.3f shots, sd %.2f " +
+				"paired (%.2f unpaired).\n", mean, sdPaired, sdUnpaired));
+		report.append(String.format("Verdict at alpha %.3g, beta %.3g, " +
+				"delta %.3g: %s.\n", alpha, beta, delta, verdict));
+		report.append(String.format("A fixed-size test would need %.0f " +
+				"games per side paired, %.0f unpaired.\n",
+				Math.ceil(Math.pow(z * sdPaired / delta, 2)),
+				Math.ceil(Math.pow(z * sdUnpaired / delta, 2))));
+		return report.toString();
+	}
+
+	/**
+	 * Inverse of the standard normal distribution function, by Acklam's
+	 * rational approximation (relative error under 1.2e-9).
+	 *
+	 * @param p probability in (0, 1)
+	 * @return  z such that P(Z <= z) = p
+	 */
+	static double normalQuantile(double p)
+	{
+		final double[] a = {-3.969683028665376e+01, 2.209460984245205e+02,
+				-2.759285104469687e+02, 1.383577518672690e+02,
+				-3.066479806614716e+01, 2.506628277459239e+00};
+		final double[] b = {-5.447609879822406e+01, 1.615858368580409e+02,
+				-1.556989798598866e+02, 6.680131188771972e+01,
+				-1.328068155288572e+01};
+		final double[] c = {-7.784894002430293e-03, -3.223964580411365e-01,
+				-2.400758277161838e+00, -2.549732539343734e+00,
+				4.374664141464968e+00, 2.938163982698783e+00};
+		final double[] d = {7.784695709041462e-03, 3.224671290700398e-01,
+				2.445134137142996e+00, 3.754408661907416e+00};
+
+		if (p < 0.02425)
+		{
+			double q = Math.sqrt(-2 * Math.log(p));
+			return (((((c[0] * q + c[1]) * q + c[2]) * q + c[3]) * q + c[4])
+					* q + c[5]) / ((((d[0] * q + d[1]) * q + d[2]) * q + d[3])
+					* q + 1);
+		}
+		if (p > 1 - 0.02425)
+		{
+			return -normalQuantile(1 - p);
+		}
+		double q = p - 0.5;
+		double r = q * q;
+		return (((((a[0] * r + a[1]) * r + a[2]) * r + a[3]) * r + a[4]) * r
+				+ a[5]) * q / (((((b[0] * r + b[1]) * r + b[2]) * r + b[3])
+				* r + b[4]) * r + 1);
+	}
+}
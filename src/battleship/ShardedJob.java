@@ -0,0 +1,665 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Runs a large simulation (strategies x games) as shards spread over
+ *      worker processes that share a spool directory, and merges their
+ *      results into one report. Workers can join, be killed or be restarted
+ *      at any time; no shard is lost or played twice.
+ * Spool directory:
+ *          job.properties     the job: strategies, games, seed, shard size
+ *          shard-<n>.lock     locked by the worker playing shard n
+ *          shard-<n>.ckpt     shard n's SimulationStats so far
+ *
+ *          Shard n is one strategy's run of shard-size consecutive games.
+ *      Game i plays the layout Simulation.layoutFor(seed + i), and the
+ *      strategy is seeded with seed + i as in StrategyBenchmark, so a
+ *      game's result doesn't depend on which worker played it. A
+ *      checkpoint holds a SimulationStats summary rather than a result per
+ *      game, so it stays the same few kilobytes however big the shard, and
+ *      the report merges summaries instead of collecting games.
+ * Workers:
+ *          A worker claims a shard with an operating system lock on its
+ *      lock file, which is released when the worker exits for any reason,
+ *      however it died. It resumes from the shard's checkpoint, and writes
+ *      a new one every CHECKPOINT_INTERVAL games through a temporary file
+ *      and an atomic rename, so a checkpoint is always complete. A worker
+ *      keeps claiming shards until every one is finished, waiting on shards
+ *      that others hold in case they die.
+ *
+ *          More workers can be started at any time, including on other
+ *      machines that mount the spool, as long as its file system supports
+ *      locking.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.ShardedJob <command> <spool> [options]
+ *      Commands:
+ *          plan     create the job in the spool
+ *          work     play shards until the job is finished
+ *          report   print the merged results so far
+ *          run      plan, start local workers, wait and report
+ *      Options (plan and run; an existing job must match):
+ *          --strategies=<a,b>   strategies to play (default: all)
+ *          --games=<n>          games per strategy (default 100000)
+ *          --seed=<n>           first game seed (default 2014)
+ *          --shard-size=<n>     games per shard (default 2000)
+ *          --workers=<n>        processes to start, run only (default:
+ *                               one per core)
+ */
+
+package battleship;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A sharded simulation job in a spool directory.
+ */
+public class ShardedJob
+{
+	/**
+	 * "BSSJ", at the start of every checkpoint.
+	 */
+	static final int MAGIC = 0x4253534A;
+	static final short VERSION = 2;
+
+	/**
+	 * Name of the job description in the spool.
+	 */
+	static final String JOB_FILE = "job.properties";
+
+	/**
+	 * Job defaults.
+	 */
+	static final int DEFAULT_GAMES = 100000;
+	static final long DEFAULT_SEED = 2014;
+	static final int DEFAULT_SHARD_SIZE = 2000;
+
+	/**
+	 * Games between checkpoints.
+	 */
+	static final int CHECKPOINT_INTERVAL = 250;
+
+	/**
+	 * How long an idle worker waits before looking again for shards whose
+	 * worker may have died.
+	 */
+	static final long IDLE_MILLIS = 1000;
+
+	/**
+	 * How often run prints progress.
+	 */
+	static final long PROGRESS_MILLIS = 10000;
+
+	private final Path spool;
+	private final String[] strategies;
+	private final int games;
+	private final long seed;
+	private final int shardSize;
+
+	/**
+	 * Describes a job.
+	 *
+	 * @param spool      spool directory
+	 * @param strategies registered strategy names
+	 * @param games      games per strategy
+	 * @param seed       first game seed
+	 * @param shardSize  games per shard
+	 */
+	private ShardedJob(Path spool, String[] strategies, int games, long seed,
+			int shardSize)
+	{
+		this.spool = spool;
+		this.strategies = strategies;
+		this.games = games;
+		this.seed = seed;
+		this.shardSize = shardSize;
+	}
+
+	/**
+	 * Parses the command and options and carries out the command.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the spool can't be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length < 2)
+		{
+			System.out.println("Usage: ShardedJob plan|work|report|run " +
+					"<spool> [options]");
+			System.exit(1);
+		}
+		String command = args[0];
+		Path spool = Paths.get(args[1]);
+		Properties options = new Properties();
+		int workers = Runtime.getRuntime().availableProcessors();
+
+		for (int i = 2; i < args.length; ++i)
+		{
+			String arg = args[i];
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--strategies="))
+			{
+				for (String name : value.split(","))
+				{
+					if (!Arrays.asList(Strategies.NAMES).contains(name))
+					{
+						System.out.println("Unknown strategy " + name +
+								". Exiting.");
+						System.exit(1);
+					}
+				}
+				options.setProperty("strategies", value);
+			}
+			else if (arg.startsWith("--games="))
+			{
+				options.setProperty("games", value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				options.setProperty("seed", value);
+			}
+			else if (arg.startsWith("--shard-size="))
+			{
+				options.setProperty("shardSize", value);
+			}
+			else if (arg.startsWith("--workers=") && command.equals("run"))
+			{
+				workers = Integer.parseInt(value);
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (!options.isEmpty() && !command.equals("plan") &&
+				!command.equals("run"))
+		{
+			System.out.println("Job options only apply to plan and run. " +
+					"Exiting.");
+			System.exit(1);
+		}
+
+		switch (command)
+		{
+			case "plan":
+			{
+				ShardedJob job = plan(spool, options);
+				System.out.printf("%s holds %d shards.\n", spool,
+						job.getShardCount());
+				break;
+			}
+			case "work":
+			{
+				int played = open(spool).work();
+				System.out.printf("Worker finished %d shards.\n", played);
+				break;
+			}
+			case "report":
+				System.out.print(open(spool).report());
+				break;
+			case "run":
+			{
+				ShardedJob job = plan(spool, options);
+				if (!job.run(workers))
+				{
+					System.exit(1);
+				}
+				break;
+			}
+			default:
+				System.out.println("Unknown command " + command +
+						". Exiting.");
+				System.exit(1);
+		}
+	}
+
+	/**
+	 * Creates the job in a spool, or opens the one already there.
+	 *
+	 * @param spool        spool directory, created if missing
+	 * @param options      job options given; defaults fill the rest
+	 * @return             the job
+	 * @throws IOException if the spool can't be written, or holds a job
+	 *                     that differs from the options
+	 */
+	static ShardedJob plan(Path spool, Properties options) throws IOException
+	{
+		Path jobFile = spool.resolve(JOB_FILE);
+		if (Files.exists(jobFile))
+		{
+			ShardedJob job = open(spool);
+			Properties existing = job.toProperties();
+			for (String key : options.stringPropertyNames())
+			{
+				if (!options.getProperty(key).equals(
+						existing.getProperty(key)))
+				{
+					throw new IOException(spool + " already holds a job " +
+							"with " + key + "=" + existing.getProperty(key) +
+							"; use a new spool directory.");
+				}
+			}
+			return job;
+		}
+
+		Properties job = new Properties();
+		job.setProperty("strategies", String.join(",", Strategies.NAMES));
+		job.setProperty("games", String.valueOf(DEFAULT_GAMES));
+		job.setProperty("seed", String.valueOf(DEFAULT_SEED));
+		job.setProperty("shardSize", String.valueOf(DEFAULT_SHARD_SIZE));
+		job.putAll(options);
+		ShardedJob created = fromProperties(spool, job);
+
+		Files.createDirectories(spool);
+		Path temp = jobFile.resolveSibling(JOB_FILE + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp))
+		{
+			created.toProperties().store(writer, "ShardedJob description. " +
+					"Don't edit once workers have started.");
+		}
+		Files.move(temp, jobFile, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+		return created;
+	}
+
+	/**
+	 * Opens the job in a spool.
+	 *
+	 * @param spool        spool directory
+	 * @return             the job
+	 * @throws IOException if the job file can't be read
+	 */
+	static ShardedJob open(Path spool) throws IOException
+	{
+		Properties job = new Properties();
+		try (Reader reader = Files.newBufferedReader(spool.resolve(JOB_FILE)))
+		{
+			job.load(reader);
+		}
+		catch (NoSuchFileException e)
+		{
+			throw new IOException(spool + " holds no job; plan one first.",
+					e);
+		}
+		return fromProperties(spool, job);
+	}
+
+	/**
+	 * Builds a job from its description.
+	 *
+	 * @param spool        spool directory
+	 * @param job          job properties
+	 * @return             the job
+	 * @throws IOException if the description is incomplete or invalid
+	 */
+	private static ShardedJob fromProperties(Path spool, Properties job)
+			throws IOException
+	{
+		try
+		{
+			String[] strategies = job.getProperty("strategies").split(",");
+			int games = Integer.parseInt(job.getProperty("games"));
+			long seed = Long.parseLong(job.getProperty("seed"));
+			int shardSize = Integer.parseInt(job.getProperty("shardSize"));
+			if (games <= 0 || shardSize <= 0)
+			{
+				throw new IOException("A job needs at least one game per " +
+						"shard.");
+			}
+			return new ShardedJob(spool, strategies, games, seed, shardSize);
+		}
+		catch (NullPointerException | NumberFormatException e)
+		{
+			throw new IOException("Invalid job description in " + spool +
+					".", e);
+		}
+	}
+
+	/**
+	 * Describes the job as properties.
+	 *
+	 * @return the job properties
+	 */
+	private Properties toProperties()
+	{
+		Properties job = new Properties();
+		job.setProperty("strategies", String.join(",", strategies));
+		job.setProperty("games", String.valueOf(games));
+		job.setProperty("seed", String.valueOf(seed));
+		job.setProperty("shardSize", String.valueOf(shardSize));
+		return job;
+	}
+
+	/**
+	 * Returns the number of shards.
+	 *
+	 * @return shards over all strategies
+	 */
+	int getShardCount()
+	{
+		return strategies.length * shardsPerStrategy();
+	}
+
+	/**
+	 * Returns the number of shards each strategy is split into.
+	 *
+	 * @return shards per strategy
+	 */
+	private int shardsPerStrategy()
+	{
+		return (games + shardSize - 1) / shardSize;
+	}
+
+	/**
+	 * Returns the number of games in a shard.
+	 *
+	 * @param shard shard index
+	 * @return      its games; the last of a strategy's may be short
+	 */
+	private int shardGames(int shard)
+	{
+		int from = (shard % shardsPerStrategy()) * shardSize;
+		return Math.min(shardSize, games - from);
+	}
+
+	/**
+	 * Plays shards until every one is finished.
+	 *
+	 * @return             shards this worker finished
+	 * @throws IOException if the spool can't be read or written
+	 */
+	int work() throws IOException
+	{
+		int finished = 0;
+		while (true)
+		{
+			boolean held = false;
+			boolean played = false;
+			for (int shard = 0; shard < getShardCount(); ++shard)
+			{
+				if (readShard(shard).getGames() == shardGames(shard))
+				{
+					continue;
+				}
+				try (FileChannel channel = FileChannel.open(
+						spool.resolve(String.format("shard-%05d.lock", shard)),
+						StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+					 FileLock lock = channel.tryLock())
+				{
+					if (lock == null)
+					{
+						held = true;
+						continue;
+					}
+					playShard(shard);
+					finished++;
+					played = true;
+				}
+			}
+			if (!held && !played)
+			{
+				return finished;
+			}
+			if (!played)
+			{
+				// Everything left is held; wait in case its worker dies.
+				try
+				{
+					Thread.sleep(IDLE_MILLIS);
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return finished;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Plays a locked shard from its checkpoint to the end.
+	 *
+	 * @param shard        shard index
+	 * @throws IOException if the checkpoint can't be read or written
+	 */
+	private void playShard(int shard) throws IOException
+	{
+		// Read again now that it's locked; its last worker may have moved on.
+		SimulationStats stats = readShard(shard);
+		int count = shardGames(shard);
+		String name = strategies[shard / shardsPerStrategy()];
+		long first = seed + (long)(shard % shardsPerStrategy()) * shardSize;
+
+		for (int i = (int)stats.getGames(); i < count; ++i)
+		{
+			GameBoard board = Simulation.newBoard(
+					Simulation.layoutFor(first + i));
+			Simulation.playGame(Strategies.create(name, board, first + i),
+					board, stats);
+			if ((i + 1) % CHECKPOINT_INTERVAL == 0 || i + 1 == count)
+			{
+				writeShard(shard, stats);
+			}
+		}
+	}
+
+	/**
+	 * Reads a shard's checkpoint.
+	 *
+	 * @param shard        shard index
+	 * @return             summary of the games played so far
+	 * @throws IOException if the checkpoint is unreadable or corrupt
+	 */
+	SimulationStats readShard(int shard) throws IOException
+	{
+		Path file = checkpointFile(shard);
+		if (!Files.exists(file))
+		{
+			return new SimulationStats();
+		}
+		try (DataInputStream in = new DataInputStream(
+				new BufferedInputStream(Files.newInputStream(file))))
+		{
+			if (in.readInt() != MAGIC || in.readShort() != VERSION ||
+					in.readInt() != shard)
+			{
+				throw new IOException(file + " is not this job's checkpoint.");
+			}
+			SimulationStats stats = SimulationStats.read(in);
+			if (stats.getGames() > shardGames(shard))
+			{
+				throw new IOException(file + " has " + stats.getGames() +
+						" games; the shard has " + shardGames(shard) + ".");
+			}
+			return stats;
+		}
+		catch (EOFException e)
+		{
+			throw new IOException(file + " is truncated.", e);
+		}
+	}
+
+	/**
+	 * Writes a shard's checkpoint through a temporary file so it is always
+	 * complete.
+	 *
+	 * @param shard        shard index
+	 * @param stats        summary of the games played so far
+	 * @throws IOException if it can't be written
+	 */
+	private void writeShard(int shard, SimulationStats stats)
+			throws IOException
+	{
+		Path target = checkpointFile(shard);
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (DataOutputStream out = new DataOutputStream(
+				new BufferedOutputStream(Files.newOutputStream(temp))))
+		{
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeInt(shard);
+			stats.write(out);
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Returns a shard's checkpoint file.
+	 *
+	 * @param shard shard index
+	 * @return      its path in the spool
+	 */
+	private Path checkpointFile(int shard)
+	{
+		return spool.resolve(String.format("shard-%05d.ckpt", shard));
+	}
+
+	/**
+	 * Merges every strategy's games played so far.
+	 *
+	 * @return             one summary per strategy, in job order
+	 * @throws IOException if a checkpoint can't be read
+	 */
+	SimulationStats[] collect() throws IOException
+	{
+		SimulationStats[] results = new SimulationStats[strategies.length];
+		for (int s = 0; s < strategies.length; ++s)
+		{
+			results[s] = new SimulationStats();
+			for (int block = 0; block < shardsPerStrategy(); ++block)
+			{
+				results[s].merge(readShard(s * shardsPerStrategy() + block));
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Formats the merged results so far: shots-to-win, Hunt and Target
+	 * shots per game and time per move, then each strategy's hit rate per
+	 * cell.
+	 *
+	 * @return             the report
+	 * @throws IOException if a checkpoint can't be read
+	 */
+	String report() throws IOException
+	{
+		SimulationStats[] results = collect();
+		StringBuilder report = new StringBuilder(String.format(
+				"%d games per strategy from seed %d, %d shards of %d\n\n",
+				games, seed, getShardCount(), shardSize));
+		report.append(String.format("%-16s%10s%9s%7s%6s%6s%8s%8s%10s%10s\n",
+				"strategy", "games", "mean", "sd", "p50", "p95", "hunt",
+				"target", "ns p50", "ns p99"));
+		StringBuilder heatmaps = new StringBuilder();
+		for (int s = 0; s < strategies.length; ++s)
+		{
+			SimulationStats stats = results[s];
+			if (stats.getGames() == 0)
+			{
+				report.append(String.format("%-16s%10d\n", strategies[s], 0));
+				continue;
+			}
+			report.append(String.format(
+					"%-16s%10d%9.2f%7.2f%6d%6d%8.2f%8.2f%10d%10d\n",
+					strategies[s], stats.getGames(),
+					stats.getShotsToWin().getMean(),
+					Math.sqrt(stats.getShotsToWin().getVariance()),
+					stats.getShotsToWinQuantile(0.5),
+					stats.getShotsToWinQuantile(0.95),
+					stats.getHuntShots().getMean(),
+					stats.getTargetShots().getMean(),
+					stats.getMoveNanosQuantile(0.5),
+					stats.getMoveNanosQuantile(0.99)));
+			heatmaps.append(String.format("\nHit rate per cell (%%), %s:\n%s",
+					strategies[s], stats.formatHeatmap()));
+		}
+		return report.append(heatmaps).toString();
+	}
+
+	/**
+	 * Returns the number of games played so far.
+	 *
+	 * @return             games over all strategies
+	 * @throws IOException if a checkpoint can't be read
+	 */
+	private long played() throws IOException
+	{
+		long total = 0;
+		for (int shard = 0; shard < getShardCount(); ++shard)
+		{
+			total += readShard(shard).getGames();
+		}
+		return total;
+	}
+
+	/**
+	 * Starts local worker processes, reports progress until they exit, then
+	 * prints the merged report.
+	 *
+	 * @param workers      processes to start
+	 * @return             true if the job is finished
+	 * @throws IOException if a worker can't be started or the spool read
+	 */
+	boolean run(int workers) throws IOException
+	{
+		String java = Paths.get(System.getProperty("java.home"), "bin",
+				"java").toString();
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp",
+				System.getProperty("java.class.path"),
+				ShardedJob.class.getName(), "work", spool.toString());
+		builder.inheritIO();
+
+		List<Process> processes = new ArrayList<>();
+		for (int i = 0; i < workers; ++i)
+		{
+			processes.add(builder.start());
+		}
+
+		long total = (long)games * strategies.length;
+		long start = System.nanoTime();
+		try
+		{
+			for (Process process : processes)
+			{
+				while (!process.waitFor(PROGRESS_MILLIS,
+						TimeUnit.MILLISECONDS))
+				{
+					System.out.printf("%d of %d games after %.0fs\n",
+							played(), total,
+							(System.nanoTime() - start) / 1e9);
+				}
+			}
+		}
+		catch (InterruptedException e)
+		{
+			for (Process process : processes)
+			{
+				process.destroy();
+			}
+			Thread.currentThread().interrupt();
+			return false;
+		}
+
+		System.out.printf("\n%s\n", report());
+		long done = played();
+		if (done < total)
+		{
+			System.out.printf("Only %d of %d games were played. Run again " +
+					"to resume.\n", done, total);
+			return false;
+		}
+		System.out.printf("Finished in %.1fs.\n",
+				(System.nanoTime() - start) / 1e9);
+		return true;
+	}
+}
@@ -80,12 +80,42 @@ public class Ship
 	 */
 	public void updateShipAfterShot(int row, int col)
 	{
-		/*
-		 *shipType argument doesn't matter, since overridden equals() just
-		 * cares about coordinates.
-		 */
-		ShipPoint hit = new ShipPoint('Z', row, col);
-		primitiveShip.remove(hit);
+		int index = indexOfPoint(row, col);
+		if (index >= 0)
+		{
+			primitiveShip.remove(index);
+		}
+	}
+
+	/**
+	 * Returns where a point is in the ship's list of (unhit) points.
+	 *
+	 * @param row row value of point
+	 * @param col col value of point
+	 * @return    index of point, or -1 if not in list
+	 */
+	public int indexOfPoint(int row, int col)
+	{
+		for (int i = 0; i < primitiveShip.size(); ++i)
+		{
+			ShipPoint point = primitiveShip.get(i);
+			if (point.getRow() == row && point.getCol() == col)
+			{
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Puts a hit point back, undoing updateShipAfterShot.
+	 *
+	 * @param index where the point was in the list
+	 * @param point the point removed
+	 */
+	public void restorePoint(int index, ShipPoint point)
+	{
+		primitiveShip.add(index, point);
 	}
 
 	/**
@@ -0,0 +1,40 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Java Flight Recorder event for each shot resolved on a GameBoard.
+ *      See AiDecisionEvent for how to record.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import jdk.jfr.*;
+
+/**
+ * One resolved shot: a hit, miss, sink or repeated shot.
+ */
+@Name("battleship.Shot")
+@Label("Shot")
+@Category("Battleship")
+@Description("A shot resolved by GameBoard.updateBoardAfterShot")
+@StackTrace(false)
+public class ShotEvent extends Event
+{
+	@Label("Board")
+	@Description("Whose board was shot at: Computer or Human")
+	String board;
+
+	@Label("Cell")
+	@Description("Cell shot at, as shown on the board (e.g. 7C)")
+	String cell;
+
+	@Label("Outcome")
+	@Description("Hit, Miss, Sink or Repeat")
+	String outcome;
+
+	@Label("Ship")
+	@Description("Ship struck, if any")
+	String ship;
+}
@@ -0,0 +1,115 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      What a resolved shot did, as GameBoard.updateBoardAfterShot returns
+ *      it to the shooter: a miss, or which ship was hit and whether it sank.
+ *      Strategies learn from this rather than from the printed message.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+/**
+ * Immutable shot outcome. There are only a dozen, all shared, so
+ * resolving a shot allocates nothing.
+ */
+public final class ShotOutcome
+{
+	/**
+	 * A miss, or a cell already shot at.
+	 */
+	static final ShotOutcome MISS = new ShotOutcome(-1, false);
+
+	/**
+	 * Hits and sinks, by ship index.
+	 */
+	private static final ShotOutcome[] HITS =
+			new ShotOutcome[FleetLayout.NUM_SHIPS];
+	private static final ShotOutcome[] SINKS =
+			new ShotOutcome[FleetLayout.NUM_SHIPS];
+
+	static
+	{
+		for (int ship = 0; ship < FleetLayout.NUM_SHIPS; ++ship)
+		{
+			HITS[ship] = new ShotOutcome(ship, false);
+			SINKS[ship] = new ShotOutcome(ship, true);
+		}
+	}
+
+	/**
+	 * Ship index (as FleetLayout.NAMES), or -1 for a miss.
+	 */
+	private final int ship;
+
+	/**
+	 * Whether the shot sank the ship.
+	 */
+	private final boolean sunk;
+
+	/**
+	 * Creates outcome.
+	 *
+	 * @param ship ship index, or -1
+	 * @param sunk whether the ship sank
+	 */
+	private ShotOutcome(int ship, boolean sunk)
+	{
+		this.ship = ship;
+		this.sunk = sunk;
+	}
+
+	/**
+	 * Returns the outcome of a hit.
+	 *
+	 * @param ship ship index, 0 - 4
+	 * @param sunk whether the hit sank the ship
+	 * @return     the shared outcome
+	 */
+	static ShotOutcome hit(int ship, boolean sunk)
+	{
+		return sunk ? SINKS[ship] : HITS[ship];
+	}
+
+	/**
+	 * Returns whether the shot struck a ship.
+	 *
+	 * @return true if a hit
+	 */
+	public boolean isHit()
+	{
+		return ship >= 0;
+	}
+
+	/**
+	 * Returns whether the shot sank a ship.
+	 *
+	 * @return true if a sink
+	 */
+	public boolean isSunk()
+	{
+		return sunk;
+	}
+
+	/**
+	 * Returns the ship hit.
+	 *
+	 * @return ship index (as FleetLayout.NAMES), or -1 for a miss
+	 */
+	public int getShip()
+	{
+		return ship;
+	}
+
+	/**
+	 * Returns the name of the ship hit.
+	 *
+	 * @return ship name, e.g. "Carrier", or "" for a miss
+	 */
+	public String getShipName()
+	{
+		return (ship < 0) ? "" : FleetLayout.NAMES[ship];
+	}
+}
@@ -0,0 +1,280 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      The simulation harness: plays the Computer, or any other
+ *      TargetingStrategy, against fixed fleet layouts with no console
+ *      output, for benchmarks and regression gates.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.lang.management.*;
+import java.util.*;
+
+/**
+ * Helpers for playing simulated games.
+ */
+public final class Simulation
+{
+	/**
+	 * No game on a 10x10 board needs more shots than this; anything beyond
+	 * means the AI is stuck.
+	 */
+	static final int MAX_SHOTS = 1000;
+
+	/**
+	 * To convert col value to column letter.
+	 */
+	static final char[] COLUMN_HEADERS = "ABCDEFGHIJ".toCharArray();
+
+	/**
+	 * Static helpers only.
+	 */
+	private Simulation()
+	{
+	}
+
+	/**
+	 * Repeatable layouts from GameBoard's own randomized placement.
+	 *
+	 * @param seed  generator seed
+	 * @param count number of layouts
+	 * @return      packed layouts
+	 */
+	static long[] seededLayouts(long seed, int count)
+	{
+		Random rand = new Random(seed);
+		long[] layouts = new long[count];
+		for (int i = 0; i < count; ++i)
+		{
+			layouts[i] = FleetLayout.encode(new GameBoard(rand));
+		}
+		return layouts;
+	}
+
+	/**
+	 * The layout for one game's own seed, so a game can be replayed
+	 * without generating the ones before it.
+	 *
+	 * @param seed the game's seed
+	 * @return     GameBoard's randomized placement from that seed
+	 */
+	static long layoutFor(long seed)
+	{
+		return FleetLayout.encode(new GameBoard(new Random(seed)));
+	}
+
+	/**
+	 * Layouts from a corpus file, or seeded ones if fname is null.
+	 *
+	 * @param fname        the name of the corpus file, or null
+	 * @param seed         generator seed if no corpus
+	 * @param count        number of layouts; capped at the corpus size
+	 * @return             packed layouts
+	 * @throws IOException if the corpus can't be read
+	 */
+	static long[] loadLayouts(String fname, long seed, int count)
+			throws IOException
+	{
+		if (fname == null)
+		{
+			return seededLayouts(seed, count);
+		}
+		LayoutCorpus corpus = new LayoutCorpus(fname);
+		long[] layouts = new long[Math.min(count, corpus.size())];
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			layouts[i] = corpus.getLayout(i);
+		}
+		return layouts;
+	}
+
+	/**
+	 * Builds a fresh board for a layout. It has no event bus, so it's
+	 * silent.
+	 *
+	 * @param layout packed layout
+	 * @return       board ready to be shot at
+	 */
+	static GameBoard newBoard(long layout)
+	{
+		return FleetLayout.toBoard(layout);
+	}
+
+	/**
+	 * Plays a strategy against a board until every ship is sunk.
+	 *
+	 * @param strategy strategy set up for board
+	 * @param board    the board being shot at
+	 * @return         shots needed to win
+	 */
+	static int playGame(TargetingStrategy strategy, GameBoard board)
+	{
+		char[][] raw = board.getBoard();
+		int shots = 0;
+		while (!board.areNoShipsLeft())
+		{
+			if (shots >= MAX_SHOTS)
+			{
+				throw new IllegalStateException(strategy.getName() + " did " +
+						"not finish within " + MAX_SHOTS + " shots.");
+			}
+			int shot = strategy.chooseShot(raw);
+			ShotOutcome outcome = board.updateBoardAfterShot(false,
+					shot / 10 + 1, COLUMN_HEADERS[shot % 10]);
+			strategy.recordShot(shot / 10, shot % 10, outcome);
+			shots++;
+		}
+		return shots;
+	}
+
+	/**
+	 * Plays a strategy against a board until every ship is sunk, recording
+	 * every move into a summary.
+	 *
+	 * @param strategy strategy set up for board
+	 * @param board    the board being shot at
+	 * @param stats    summary to record into
+	 * @return         shots needed to win
+	 */
+	static int playGame(TargetingStrategy strategy, GameBoard board,
+			SimulationStats stats)
+	{
+		char[][] raw = board.getBoard();
+		int shots = 0;
+		// Hit cells of ships not yet sunk; above 0 means Target moves.
+		int openHits = 0;
+		while (!board.areNoShipsLeft())
+		{
+			if (shots >= MAX_SHOTS)
+			{
+				throw new IllegalStateException(strategy.getName() + " did " +
+						"not finish within " + MAX_SHOTS + " shots.");
+			}
+			long start = System.nanoTime();
+			int shot = strategy.chooseShot(raw);
+			ShotOutcome outcome = board.updateBoardAfterShot(false,
+					shot / 10 + 1, COLUMN_HEADERS[shot % 10]);
+			strategy.recordShot(shot / 10, shot % 10, outcome);
+			long nanos = System.nanoTime() - start;
+
+			boolean hit = outcome.isHit();
+			stats.recordMove(shot, hit, openHits > 0, nanos);
+			if (hit)
+			{
+				openHits++;
+				if (outcome.isSunk())
+				{
+					openHits -= FleetLayout.SIZES[outcome.getShip()];
+				}
+			}
+			shots++;
+		}
+		stats.endGame();
+		return shots;
+	}
+
+	/**
+	 * Plays a fresh Computer against a layout.
+	 *
+	 * @param layout packed layout
+	 * @return       shots needed to win
+	 */
+	static int playGame(long layout)
+	{
+		GameBoard board = newBoard(layout);
+		return playGame(new Computer(board), board);
+	}
+
+	/**
+	 * Plays a reused Computer against a layout on its reused board. Both
+	 * are reset in place first, so bulk runs allocate no new boards.
+	 *
+	 * @param computer Computer set up for board
+	 * @param board    board the Computer shoots at
+	 * @param layout   packed layout
+	 * @return         shots needed to win
+	 */
+	static int playGame(Computer computer, GameBoard board, long layout)
+	{
+		FleetLayout.place(board, layout);
+		computer.reset();
+		return playGame(computer, board);
+	}
+
+	/**
+	 * Plays a Salvo game with a fixed volley size, since the shooter's own
+	 * fleet isn't simulated.
+	 *
+	 * @param computer Computer set up for board
+	 * @param board    the board being shot at
+	 * @param shots    shots per volley
+	 * @return         volleys needed to win
+	 */
+	static int playSalvoGame(Computer computer, GameBoard board, int shots)
+	{
+		int volleys = 0;
+		while (!board.areNoShipsLeft())
+		{
+			if (volleys * shots >= MAX_SHOTS)
+			{
+				throw new IllegalStateException(computer.getName() + " did " +
+						"not finish within " + MAX_SHOTS + " shots.");
+			}
+			computer.playOneVolley(board, shots);
+			volleys++;
+		}
+		return volleys;
+	}
+
+	/**
+	 * Bytes allocated so far by the current thread, where the JVM can tell.
+	 *
+	 * @return allocated bytes, or -1 if not supported
+	 */
+	static long allocatedBytes()
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (threads instanceof com.sun.management.ThreadMXBean)
+		{
+			return ((com.sun.management.ThreadMXBean)threads)
+					.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * Mean of a sample.
+	 *
+	 * @param values the sample
+	 * @return       the mean
+	 */
+	static double mean(int[] values)
+	{
+		long sum = 0;
+		for (int value : values)
+		{
+			sum += value;
+		}
+		return (double)sum / values.length;
+	}
+
+	/**
+	 * Exact quantile (nearest rank) of a sample.
+	 *
+	 * @param values   the sample
+	 * @param quantile between 0 and 1
+	 * @return         value at that quantile
+	 */
+	static int quantile(int[] values, double quantile)
+	{
+		int[] sorted = values.clone();
+		Arrays.sort(sorted);
+		int rank = (int)Math.ceil(quantile * sorted.length);
+		return sorted[Math.max(0, rank - 1)];
+	}
+}
@@ -0,0 +1,527 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Streaming, constant-memory summary of simulated games: shots-to-win,
+ *      Hunt and Target shots per game, time per move and where the hits
+ *      land. Nothing is kept per game, so a thousand games and ten billion
+ *      take the same few kilobytes, and any two summaries can be merged.
+ * Contents:
+ *          Moments         count, mean and variance, updated online
+ *                          (Welford) and merged exactly (Chan et al.)
+ *          Buckets         counts per value, for quantiles: one bucket
+ *                          per shot count up to 100 (larger counts go in the
+ *                          top bucket), or Histogram's log-linear buckets
+ *                          for nanoseconds, within 12.5%
+ *          heatmap         hits and shots per cell, for hit frequency
+ *                          per game and hit rate per shot
+ *
+ *          A move is a Target move if the board shows a hit on a ship that
+ *      isn't sunk yet when the shot is chosen, and a Hunt move otherwise,
+ *      so the split means the same for every strategy.
+ * Threads:
+ *          Not thread-safe, by design: recording is a handful of plain
+ *      array and field updates, with none of Histogram's striped counters.
+ *      Give each thread its own instance and merge them when it is done.
+ * Date:
+ *      10/19/26.
+ */
+
+package battleship;
+
+import java.io.*;
+
+/**
+ * Mergeable summary of simulated games, for one thread.
+ */
+public class SimulationStats
+{
+	/**
+	 * Buckets for shot counts: 0 - 100, the most a game can need without
+	 * repeating a cell.
+	 */
+	static final int SHOT_BUCKETS = 101;
+
+	/**
+	 * Online count, mean and variance.
+	 */
+	static final class Moments
+	{
+		private long count = 0;
+		private double mean = 0;
+		private double m2 = 0;
+
+		/**
+		 * Adds one value.
+		 *
+		 * @param value value to add
+		 */
+		void add(double value)
+		{
+			count++;
+			double delta = value - mean;
+			mean += delta / count;
+			m2 += delta * (value - mean);
+		}
+
+		/**
+		 * Adds another set of values.
+		 *
+		 * @param other moments to merge in; unchanged
+		 */
+		void merge(Moments other)
+		{
+			if (other.count == 0)
+			{
+				return;
+			}
+			long total = count + other.count;
+			double delta = other.mean - mean;
+			m2 += other.m2 + delta * delta * count / total * other.count;
+			mean += delta * other.count / total;
+			count = total;
+		}
+
+		/**
+		 * Returns the number of values.
+		 *
+		 * @return the count
+		 */
+		long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * Returns the mean.
+		 *
+		 * @return the mean, or 0 if empty
+		 */
+		double getMean()
+		{
+			return mean;
+		}
+
+		/**
+		 * Returns the sample variance.
+		 *
+		 * @return the variance, or 0 with fewer than two values
+		 */
+		double getVariance()
+		{
+			return (count < 2) ? 0 : m2 / (count - 1);
+		}
+
+		/**
+		 * Writes the moments.
+		 *
+		 * @param out          stream to write to
+		 * @throws IOException if it can't be written
+		 */
+		void write(DataOutput out) throws IOException
+		{
+			out.writeLong(count);
+			out.writeDouble(mean);
+			out.writeDouble(m2);
+		}
+
+		/**
+		 * Reads moments written by write.
+		 *
+		 * @param in           stream to read from
+		 * @throws IOException if it can't be read
+		 */
+		void read(DataInput in) throws IOException
+		{
+			count = in.readLong();
+			mean = in.readDouble();
+			m2 = in.readDouble();
+		}
+	}
+
+	/**
+	 * Fixed buckets of counts, for quantiles.
+	 */
+	static final class Buckets
+	{
+		private final long[] counts;
+		private final boolean logLinear;
+		private long total = 0;
+
+		/**
+		 * Creates empty buckets.
+		 *
+		 * @param logLinear true for Histogram's buckets, false for one
+		 *                  bucket per value below SHOT_BUCKETS
+		 */
+		Buckets(boolean logLinear)
+		{
+			this.logLinear = logLinear;
+			counts = new long[logLinear ? Histogram.NUM_BUCKETS
+					: SHOT_BUCKETS];
+		}
+
+		/**
+		 * Counts one value. Negative values count as 0.
+		 *
+		 * @param value value to count
+		 */
+		void add(long value)
+		{
+			value = Math.max(0, value);
+			counts[logLinear ? Histogram.bucketOf(value)
+					: (int)Math.min(value, SHOT_BUCKETS - 1)]++;
+			total++;
+		}
+
+		/**
+		 * Adds another set of counts with the same buckets.
+		 *
+		 * @param other buckets to merge in; unchanged
+		 */
+		void merge(Buckets other)
+		{
+			for (int i = 0; i < counts.length; ++i)
+			{
+				counts[i] += other.counts[i];
+			}
+			total += other.total;
+		}
+
+		/**
+		 * Returns an estimate of a quantile: the largest value of the
+		 * bucket it falls in. Exact for shot counts.
+		 *
+		 * @param quantile between 0 and 1
+		 * @return         estimated value, or 0 if empty
+		 */
+		long getQuantile(double quantile)
+		{
+			long rank = Math.max(1, (long)Math.ceil(quantile * total));
+			long seen = 0;
+			for (int i = 0; i < counts.length; ++i)
+			{
+				seen += counts[i];
+				if (seen >= rank)
+				{
+					return logLinear ? Histogram.upperBoundOf(i) : i;
+				}
+			}
+			return 0;
+		}
+
+		/**
+		 * Writes the counts.
+		 *
+		 * @param out          stream to write to
+		 * @throws IOException if it can't be written
+		 */
+		void write(DataOutput out) throws IOException
+		{
+			for (long count : counts)
+			{
+				out.writeLong(count);
+			}
+		}
+
+		/**
+		 * Reads counts written by write.
+		 *
+		 * @param in           stream to read from
+		 * @throws IOException if it can't be read
+		 */
+		void read(DataInput in) throws IOException
+		{
+			total = 0;
+			for (int i = 0; i < counts.length; ++i)
+			{
+				counts[i] = in.readLong();
+				total += counts[i];
+			}
+		}
+	}
+
+	private final Moments shotsToWin = new Moments();
+	private final Moments huntShots = new Moments();
+	private final Moments targetShots = new Moments();
+	private final Moments moveNanos = new Moments();
+	private final Buckets shotsToWinCounts = new Buckets(false);
+	private final Buckets huntCounts = new Buckets(false);
+	private final Buckets targetCounts = new Buckets(false);
+	private final Buckets moveNanosCounts = new Buckets(true);
+	private final long[] hits = new long[100];
+	private final long[] shots = new long[100];
+
+	// The game in progress.
+	private int gameHunt = 0;
+	private int gameTarget = 0;
+
+	/**
+	 * Records one move of the game in progress.
+	 *
+	 * @param cell   row * 10 + col
+	 * @param hit    true if it hit a ship
+	 * @param target true if an unsunk hit was showing when it was chosen
+	 * @param nanos  time the move took
+	 */
+	void recordMove(int cell, boolean hit, boolean target, long nanos)
+	{
+		shots[cell]++;
+		if (hit)
+		{
+			hits[cell]++;
+		}
+		if (target)
+		{
+			gameTarget++;
+		}
+		else
+		{
+			gameHunt++;
+		}
+		moveNanos.add(nanos);
+		moveNanosCounts.add(nanos);
+	}
+
+	/**
+	 * Ends the game in progress, recording its totals.
+	 */
+	void endGame()
+	{
+		shotsToWin.add(gameHunt + gameTarget);
+		shotsToWinCounts.add(gameHunt + gameTarget);
+		huntShots.add(gameHunt);
+		huntCounts.add(gameHunt);
+		targetShots.add(gameTarget);
+		targetCounts.add(gameTarget);
+		gameHunt = 0;
+		gameTarget = 0;
+	}
+
+	/**
+	 * Adds another summary's finished games to this one.
+	 *
+	 * @param other summary to merge in; unchanged
+	 */
+	void merge(SimulationStats other)
+	{
+		shotsToWin.merge(other.shotsToWin);
+		huntShots.merge(other.huntShots);
+		targetShots.merge(other.targetShots);
+		moveNanos.merge(other.moveNanos);
+		shotsToWinCounts.merge(other.shotsToWinCounts);
+		huntCounts.merge(other.huntCounts);
+		targetCounts.merge(other.targetCounts);
+		moveNanosCounts.merge(other.moveNanosCounts);
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			hits[cell] += other.hits[cell];
+			shots[cell] += other.shots[cell];
+		}
+	}
+
+	/**
+	 * Returns the number of finished games.
+	 *
+	 * @return the games
+	 */
+	long getGames()
+	{
+		return shotsToWin.getCount();
+	}
+
+	/**
+	 * Returns shots-to-win.
+	 *
+	 * @return its moments
+	 */
+	Moments getShotsToWin()
+	{
+		return shotsToWin;
+	}
+
+	/**
+	 * Returns a quantile of shots-to-win.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return         shots-to-win at that quantile
+	 */
+	long getShotsToWinQuantile(double quantile)
+	{
+		return shotsToWinCounts.getQuantile(quantile);
+	}
+
+	/**
+	 * Returns Hunt shots per game.
+	 *
+	 * @return their moments
+	 */
+	Moments getHuntShots()
+	{
+		return huntShots;
+	}
+
+	/**
+	 * Returns a quantile of Hunt shots per game.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return         Hunt shots at that quantile
+	 */
+	long getHuntShotsQuantile(double quantile)
+	{
+		return huntCounts.getQuantile(quantile);
+	}
+
+	/**
+	 * Returns Target shots per game.
+	 *
+	 * @return their moments
+	 */
+	Moments getTargetShots()
+	{
+		return targetShots;
+	}
+
+	/**
+	 * Returns a quantile of Target shots per game.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return         Target shots at that quantile
+	 */
+	long getTargetShotsQuantile(double quantile)
+	{
+		return targetCounts.getQuantile(quantile);
+	}
+
+	/**
+	 * Returns time per move.
+	 *
+	 * @return its moments, in nanoseconds
+	 */
+	Moments getMoveNanos()
+	{
+		return moveNanos;
+	}
+
+	/**
+	 * Returns a quantile of time per move.
+	 *
+	 * @param quantile between 0 and 1
+	 * @return         nanoseconds at that quantile, within 12.5%
+	 */
+	long getMoveNanosQuantile(double quantile)
+	{
+		return moveNanosCounts.getQuantile(quantile);
+	}
+
+	/**
+	 * Returns how often a cell was hit.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     hits per finished game
+	 */
+	double getHitFrequency(int cell)
+	{
+		return (getGames() == 0) ? 0 : (double)hits[cell] / getGames();
+	}
+
+	/**
+	 * Returns how often a cell was shot at.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     shots per finished game
+	 */
+	double getShotFrequency(int cell)
+	{
+		return (getGames() == 0) ? 0 : (double)shots[cell] / getGames();
+	}
+
+	/**
+	 * Returns the share of shots at a cell that hit.
+	 *
+	 * @param cell row * 10 + col
+	 * @return     hits per shot, or 0 if never shot at
+	 */
+	double getHitRate(int cell)
+	{
+		return (shots[cell] == 0) ? 0 : (double)hits[cell] / shots[cell];
+	}
+
+	/**
+	 * Formats the hit heatmap: the percentage of shots at each cell that
+	 * hit, laid out as the board is printed. Hits per game alone would show
+	 * only where ships tend to be, the same for every strategy, since every
+	 * ship cell is hit by the end of a game.
+	 *
+	 * @return ten rows under column headers
+	 */
+	String formatHeatmap()
+	{
+		StringBuilder map = new StringBuilder("  ");
+		for (char header : Simulation.COLUMN_HEADERS)
+		{
+			map.append(String.format("%4c", header));
+		}
+		map.append('\n');
+		for (int row = 0; row < 10; ++row)
+		{
+			map.append(String.format("%2d", row + 1));
+			for (int col = 0; col < 10; ++col)
+			{
+				map.append(String.format("%4.0f",
+						100 * getHitRate(row * 10 + col)));
+			}
+			map.append('\n');
+		}
+		return map.toString();
+	}
+
+	/**
+	 * Writes the finished games' summary.
+	 *
+	 * @param out          stream to write to
+	 * @throws IOException if it can't be written
+	 */
+	void write(DataOutput out) throws IOException
+	{
+		shotsToWin.write(out);
+		huntShots.write(out);
+		targetShots.write(out);
+		moveNanos.write(out);
+		shotsToWinCounts.write(out);
+		huntCounts.write(out);
+		targetCounts.write(out);
+		moveNanosCounts.write(out);
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			out.writeLong(hits[cell]);
+			out.writeLong(shots[cell]);
+		}
+	}
+
+	/**
+	 * Reads a summary written by write.
+	 *
+	 * @param in           stream to read from
+	 * @return             the summary
+	 * @throws IOException if it can't be read
+	 */
+	static SimulationStats read(DataInput in) throws IOException
+	{
+		SimulationStats stats = new SimulationStats();
+		stats.shotsToWin.read(in);
+		stats.huntShots.read(in);
+		stats.targetShots.read(in);
+		stats.moveNanos.read(in);
+		stats.shotsToWinCounts.read(in);
+		stats.huntCounts.read(in);
+		stats.targetCounts.read(in);
+		stats.moveNanosCounts.read(in);
+		for (int cell = 0; cell < 100; ++cell)
+		{
+			stats.hits[cell] = in.readLong();
+			stats.shots[cell] = in.readLong();
+		}
+		return stats;
+	}
+}
@@ -0,0 +1,110 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Registry of TargetingStrategy implementations, so benchmarks and
+ *      tools can pick engines by name. New engines register here.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Creates targeting strategies by name.
+ */
+public final class Strategies
+{
+	/**
+	 * Every registered strategy name.
+	 */
+	static final String[] NAMES = {"random", "parity", "density-full",
+			"density-stack", "density", "density-kernel", "density-weighted",
+			"density-endgame", "density-prior"};
+
+	/**
+	 * Static factory only.
+	 */
+	private Strategies()
+	{
+	}
+
+	/**
+	 * Creates a fresh strategy for one game.
+	 *
+	 * @param name  registered strategy name
+	 * @param board the board it will shoot at
+	 * @param seed  seed for strategies that use randomness
+	 * @return      the new strategy
+	 * @throws IllegalArgumentException if the name isn't registered
+	 */
+	static TargetingStrategy create(String name, GameBoard board, long seed)
+	{
+		switch (name)
+		{
+			case "random":
+				return new RandomStrategy(new Random(seed));
+			case "parity":
+				return new ParityStrategy(new Random(seed));
+			case "density-full":
+			{
+				// The original density engine: whole-board hunting, stack.
+				Computer computer = new Computer(board);
+				computer.setParityHunting(false);
+				computer.setClusterTargeting(false);
+				return computer;
+			}
+			case "density-stack":
+			{
+				// Parity-lattice hunting with the stack of possible hits.
+				Computer computer = new Computer(board);
+				computer.setClusterTargeting(false);
+				return computer;
+			}
+			case "density":
+				return new Computer(board);
+			case "density-kernel":
+			{
+				// Same shots as "density", counters from the fastest kernel.
+				Computer computer = new Computer(board);
+				computer.setDensityKernel(DensityKernel.best());
+				return computer;
+			}
+			case "density-weighted":
+			{
+				// Hunt phase scored by HuntWeights (see WeightTuner).
+				Computer computer = new Computer(board);
+				computer.setHuntWeights(HuntWeights.DEFAULT);
+				return computer;
+			}
+			case "density-endgame":
+			{
+				// Exact expectimax once one or two ships are left.
+				Computer computer = new Computer(board);
+				computer.setEndgameSolving(true);
+				return computer;
+			}
+			case "density-prior":
+			{
+				// Hunt biased by where randomized boards put ships.
+				Computer computer = new Computer(board);
+				try
+				{
+					computer.useRandomizedBoardPrior();
+				}
+				catch (IOException e)
+				{
+					throw new IllegalStateException("Couldn't read the " +
+							"randomized board prior.", e);
+				}
+				return computer;
+			}
+			default:
+				throw new IllegalArgumentException("Unknown strategy " +
+						name + ". Known: " + Arrays.toString(NAMES));
+		}
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Head-to-head benchmark of targeting strategies. Every strategy plays
+ *      the same layouts; the report puts strength (shots-to-win) next to
+ *      cost (CPU time per move and memory allocated per game), so the right
+ *      trade-off can be picked for each deployment.
+ * Date:
+ *      10/18/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.StrategyBenchmark [options]
+ *      Options:
+ *          --games=<n>          number of layouts (default 2000)
+ *          --seed=<n>           layout and strategy seed (default 2014)
+ *          --corpus=<file>      take layouts from a LayoutCorpus instead
+ *          --strategies=<a,b>   strategies to compare (default: all)
+ *          --metrics            also print each strategy's Metrics snapshot
+ */
+
+package battleship;
+
+import java.io.*;
+import java.lang.management.*;
+
+/**
+ * Compares registered strategies on identical layouts.
+ */
+public class StrategyBenchmark
+{
+	/**
+	 * Parses options, runs every strategy and prints the report.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the corpus can't be read
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int games = 2000;
+		long seed = 2014;
+		String corpus = null;
+		String[] names = Strategies.NAMES;
+		boolean metrics = false;
+
+		for (String arg : args)
+		{
+			String value = arg.substring(arg.indexOf('=') + 1);
+			if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(value);
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(value);
+			}
+			else if (arg.startsWith("--corpus="))
+			{
+				corpus = value;
+			}
+			else if (arg.startsWith("--strategies="))
+			{
+				names = value.split(",");
+			}
+			else if (arg.equals("--metrics"))
+			{
+				metrics = true;
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+
+		long[] layouts = Simulation.loadLayouts(corpus, seed, games);
+
+		System.out.printf("%d layouts, seed %d\n\n", layouts.length, seed);
+		System.out.printf("%-16s%10s%8s%8s%14s%14s\n", "strategy", "mean",
+				"p50", "p95", "cpu ns/move", "bytes/game");
+		StringBuilder snapshots = new StringBuilder();
+		for (String name : names)
+		{
+			// Warm up so the JIT has compiled the strategy.
+			run(name, layouts, seed);
+			Metrics.reset();
+			Metrics.enabled = metrics;
+			System.out.println(run(name, layouts, seed));
+			Metrics.enabled = false;
+			snapshots.append(String.format("\nMetrics for %s:\n%s", name,
+					Metrics.snapshot()));
+		}
+		if (metrics)
+		{
+			System.out.print(snapshots);
+		}
+	}
+
+	/**
+	 * Plays one strategy against every layout.
+	 *
+	 * @param name    registered strategy name
+	 * @param layouts packed layouts
+	 * @param seed    strategy seed; game i uses seed + i
+	 * @return        report line
+	 */
+	static String run(String name, long[] layouts, long seed)
+	{
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		int[] shots = new int[layouts.length];
+		long cpuNanos = 0;
+		long bytes = 0;
+		long moves = 0;
+
+		for (int i = 0; i < layouts.length; ++i)
+		{
+			GameBoard board = Simulation.newBoard(layouts[i]);
+
+			// Memory per game includes the strategy's own set-up.
+			long startBytes = Simulation.allocatedBytes();
+			TargetingStrategy strategy = Strategies.create(name, board,
+					seed + i);
+			long startCpu = threads.getCurrentThreadCpuTime();
+			shots[i] = Simulation.playGame(strategy, board);
+			cpuNanos += threads.getCurrentThreadCpuTime() - startCpu;
+			bytes += Simulation.allocatedBytes() - startBytes;
+			moves += shots[i];
+		}
+
+		return String.format("%-16s%10.2f%8d%8d%14.0f%14.0f", name,
+				Simulation.mean(shots), Simulation.quantile(shots, 0.5),
+				Simulation.quantile(shots, 0.95), (double)cpuNanos / moves,
+				(double)bytes / layouts.length);
+	}
+}
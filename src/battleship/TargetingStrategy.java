@@ -0,0 +1,48 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      The interface every targeting algorithm plugs into. The Computer's
+ *      own density-plus-stack algorithm is one implementation; simpler
+ *      baselines and future engines are others. See Strategies for the
+ *      registered implementations.
+ * Date:
+ *      10/18/26.
+ */
+
+package battleship;
+
+/**
+ * A targeting algorithm: chooses shots and learns from their outcomes.
+ * <p>
+ * A game alternates chooseShot and recordShot. Implementations only see
+ * what a real player would: the opponent's board for shots already taken
+ * (GameBoard's 'X' and 'O' marks) and each shot's outcome.
+ */
+public interface TargetingStrategy
+{
+	/**
+	 * Returns the name the strategy is registered under.
+	 *
+	 * @return strategy name
+	 */
+	String getName();
+
+	/**
+	 * Chooses the next cell to shoot at. Must not choose a cell that has
+	 * already been shot at unless every cell has.
+	 *
+	 * @param board the opponent's board, as returned by getBoard()
+	 * @return      row * 10 + col of the chosen cell
+	 */
+	int chooseShot(char[][] board);
+
+	/**
+	 * Learns from the shot just chosen.
+	 *
+	 * @param row     row of the shot
+	 * @param col     col of the shot
+	 * @param outcome outcome returned by updateBoardAfterShot
+	 */
+	void recordShot(int row, int col, ShotOutcome outcome);
+}
@@ -0,0 +1,403 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      Tunes the Computer's Hunt phase weights (see HuntWeights) by
+ *      self-play, using every core.
+ * Search:
+ *          Coordinate descent: each sweep tries moving each weight up, then
+ *      down, by its step, and keeps the first move that lowers the mean
+ *      shots-to-win. A sweep with no improvement halves every step. The
+ *      search stops after --sweeps sweeps or once steps are 1/64 of their
+ *      starting size.
+ *
+ *          Every candidate plays the same layouts, so differences between
+ *      candidates come from the weights and not from luckier layouts. The
+ *      layouts are split into chunks that a fixed thread pool plays in
+ *      parallel; games share nothing but the read-only layout array.
+ * Checkpoints:
+ *          After every weight is tried, the search state (weights, steps,
+ *      position in the sweep, best mean) is written to the checkpoint file,
+ *      via a temporary file and rename so a kill never leaves half a file.
+ *      Rerunning with the same checkpoint resumes where it left off; the
+ *      layouts must be the same ones, which is checked.
+ * Date:
+ *      10/19/26.
+ *
+ * To run from command line (after compiling as described in Game):
+ *      java -cp bin battleship.WeightTuner [options]
+ *      Options:
+ *          --games=<n>          number of layouts per evaluation (default 5000)
+ *          --seed=<n>           layout seed (default 2014)
+ *          --corpus=<file>      take layouts from a LayoutCorpus instead
+ *          --threads=<n>        worker threads (default: all processors)
+ *          --sweeps=<n>         maximum sweeps (default 20)
+ *          --checkpoint=<file>  search state (default tuning.properties)
+ *          --fresh              ignore an existing checkpoint
+ */
+
+package battleship;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Parallel self-play coordinate descent over HuntWeights.
+ */
+public class WeightTuner
+{
+	/**
+	 * Starting step for each weight, indexed as HuntWeights.NAMES.
+	 */
+	static final double[] INITIAL_STEPS = {0.25, 0.005, 0.5, 2};
+
+	/**
+	 * Steps stop halving at this fraction of their starting size.
+	 */
+	static final double MIN_STEP_FRACTION = 1.0 / 64;
+
+	/**
+	 * Layouts every candidate plays.
+	 */
+	private final long[] layouts;
+
+	/**
+	 * Pool that plays games.
+	 */
+	private final ExecutorService pool;
+
+	/**
+	 * Number of chunks each evaluation is split into.
+	 */
+	private final int chunks;
+
+	/**
+	 * Creates tuner.
+	 *
+	 * @param layouts layouts every candidate plays
+	 * @param threads worker threads
+	 * @throws IllegalArgumentException if there are no layouts
+	 */
+	WeightTuner(long[] layouts, int threads)
+	{
+		if (layouts.length == 0)
+		{
+			throw new IllegalArgumentException("Need at least one layout " +
+					"to tune on.");
+		}
+		this.layouts = layouts;
+		this.pool = Executors.newFixedThreadPool(threads);
+		// A few chunks per thread so a slow chunk doesn't idle the others.
+		this.chunks = Math.min(layouts.length, 4 * threads);
+	}
+
+	/**
+	 * Parses options and runs (or resumes) the search.
+	 *
+	 * @param args         see class comment
+	 * @throws IOException if the corpus or checkpoint can't be read or
+	 *                     written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		int games = 5000;
+		long seed = 2014;
+		String corpus = null;
+		int threads = Runtime.getRuntime().availableProcessors();
+		int sweeps = 20;
+		String checkpoint = "tuning.properties";
+		boolean fresh = false;
+
+		for (String arg : args)
+		{
+			if (arg.startsWith("--games="))
+			{
+				games = Integer.parseInt(valueOf(arg));
+			}
+			else if (arg.startsWith("--seed="))
+			{
+				seed = Long.parseLong(valueOf(arg));
+			}
+			else if (arg.startsWith("--corpus="))
+			{
+				corpus = valueOf(arg);
+			}
+			else if (arg.startsWith("--threads="))
+			{
+				threads = Integer.parseInt(valueOf(arg));
+			}
+			else if (arg.startsWith("--sweeps="))
+			{
+				sweeps = Integer.parseInt(valueOf(arg));
+			}
+			else if (arg.startsWith("--checkpoint="))
+			{
+				checkpoint = valueOf(arg);
+			}
+			else if (arg.equals("--fresh"))
+			{
+				fresh = true;
+			}
+			else
+			{
+				System.out.println("Unknown option " + arg + ". Exiting.");
+				System.exit(1);
+			}
+		}
+		if (games <= 0 || threads <= 0)
+		{
+			System.out.println("Need at least one game and one thread. " +
+					"Exiting.");
+			System.exit(1);
+		}
+
+		long[] layouts = Simulation.loadLayouts(corpus, seed, games);
+		if (layouts.length == 0)
+		{
+			System.out.println("Corpus " + corpus + " has no layouts. " +
+					"Exiting.");
+			System.exit(1);
+		}
+		String layoutId = layouts.length + "@"
+				+ ((corpus == null) ? String.valueOf(seed) : corpus);
+
+		Properties state = new Properties();
+		File file = new File(checkpoint);
+		if (!fresh && file.exists())
+		{
+			try (Reader reader = new FileReader(file))
+			{
+				state.load(reader);
+			}
+			if (!layoutId.equals(state.getProperty("layouts")))
+			{
+				System.out.println("Checkpoint " + checkpoint + " was made " +
+						"with different layouts (" +
+						state.getProperty("layouts") + "); rerun with the " +
+						"same --games/--seed/--corpus or --fresh. Exiting.");
+				System.exit(1);
+			}
+			System.out.println("Resuming from " + checkpoint + ".");
+		}
+		state.setProperty("layouts", layoutId);
+
+		WeightTuner tuner = new WeightTuner(layouts, threads);
+		try
+		{
+			tuner.search(state, sweeps, checkpoint);
+		}
+		finally
+		{
+			tuner.pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs coordinate descent from a (possibly empty) saved state.
+	 *
+	 * @param state        saved state; updated as the search goes
+	 * @param sweeps       maximum sweeps
+	 * @param checkpoint   file to save state to
+	 * @throws IOException if the checkpoint can't be written
+	 */
+	void search(Properties state, int sweeps, String checkpoint)
+			throws IOException
+	{
+		HuntWeights best = HuntWeights.load(state, "weight.");
+		double[] steps = new double[INITIAL_STEPS.length];
+		for (int i = 0; i < steps.length; ++i)
+		{
+			steps[i] = Double.parseDouble(state.getProperty(
+					"step." + HuntWeights.NAMES[i],
+					String.valueOf(INITIAL_STEPS[i])));
+		}
+		int sweep = Integer.parseInt(state.getProperty("sweep", "0"));
+		int coordinate = Integer.parseInt(state.getProperty("coordinate",
+				"0"));
+		boolean improved = Boolean.parseBoolean(state.getProperty("improved",
+				"false"));
+		int evaluations = Integer.parseInt(state.getProperty("evaluations",
+				"0"));
+		double bestMean;
+		if (state.getProperty("bestMean") != null)
+		{
+			bestMean = Double.parseDouble(state.getProperty("bestMean"));
+		}
+		else
+		{
+			bestMean = evaluate(best);
+			evaluations++;
+		}
+		System.out.printf("start  %.3f  %s\n", bestMean, best);
+
+		while (sweep < sweeps && !converged(steps))
+		{
+			for (; coordinate < steps.length; ++coordinate)
+			{
+				for (int sign = 1; sign >= -1; sign -= 2)
+				{
+					HuntWeights candidate = best.with(coordinate,
+							best.get(coordinate) + sign * steps[coordinate]);
+					long start = System.nanoTime();
+					double mean = evaluate(candidate);
+					evaluations++;
+					System.out.printf("sweep %d  %.3f  %s  (%.1f s)\n", sweep,
+							mean, candidate,
+							(System.nanoTime() - start) / 1e9);
+					if (mean < bestMean)
+					{
+						best = candidate;
+						bestMean = mean;
+						improved = true;
+						break;
+					}
+				}
+				save(state, checkpoint, best, bestMean, steps, sweep,
+						coordinate + 1, improved, evaluations);
+			}
+
+			if (!improved)
+			{
+				for (int i = 0; i < steps.length; ++i)
+				{
+					steps[i] /= 2;
+				}
+			}
+			sweep++;
+			coordinate = 0;
+			improved = false;
+			save(state, checkpoint, best, bestMean, steps, sweep, coordinate,
+					improved, evaluations);
+		}
+
+		System.out.printf("best   %.3f  %s  (%d evaluations of %d games)\n",
+				bestMean, best, evaluations, layouts.length);
+	}
+
+	/**
+	 * Returns whether every step has shrunk below MIN_STEP_FRACTION of its
+	 * starting size.
+	 *
+	 * @param steps current steps
+	 * @return      true if the search is done
+	 */
+	private static boolean converged(double[] steps)
+	{
+		for (int i = 0; i < steps.length; ++i)
+		{
+			if (steps[i] >= INITIAL_STEPS[i] * MIN_STEP_FRACTION)
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Mean shots-to-win of a Computer with the given weights over every
+	 * layout, playing chunks of layouts in parallel.
+	 *
+	 * @param weights Hunt phase weights
+	 * @return        mean shots-to-win
+	 */
+	double evaluate(HuntWeights weights)
+	{
+		List<Future<Long>> results = new ArrayList<>();
+		for (int chunk = 0; chunk < chunks; ++chunk)
+		{
+			int from = (int)((long)layouts.length * chunk / chunks);
+			int to = (int)((long)layouts.length * (chunk + 1) / chunks);
+			results.add(pool.submit(() -> playChunk(weights, from, to)));
+		}
+
+		long total = 0;
+		try
+		{
+			for (Future<Long> result : results)
+			{
+				total += result.get();
+			}
+		}
+		catch (InterruptedException | ExecutionException e)
+		{
+			throw new IllegalStateException("Self-play failed.", e);
+		}
+		return (double)total / layouts.length;
+	}
+
+	/**
+	 * Plays a range of layouts.
+	 *
+	 * @param weights Hunt phase weights
+	 * @param from    first layout, inclusive
+	 * @param to      last layout, exclusive
+	 * @return        total shots-to-win
+	 */
+	private long playChunk(HuntWeights weights, int from, int to)
+	{
+		// One board and Computer per chunk, reset for every game.
+		GameBoard board = Simulation.newBoard(layouts[from]);
+		Computer computer = new Computer(board);
+		computer.setHuntWeights(weights);
+
+		long total = 0;
+		for (int i = from; i < to; ++i)
+		{
+			total += Simulation.playGame(computer, board, layouts[i]);
+		}
+		return total;
+	}
+
+	/**
+	 * Writes the search state to the checkpoint file, through a temporary
+	 * file so the checkpoint is always complete.
+	 *
+	 * @param state       properties to fill and store
+	 * @param checkpoint  checkpoint file
+	 * @param best        best weights so far
+	 * @param bestMean    their mean shots-to-win
+	 * @param steps       current steps
+	 * @param sweep       current sweep
+	 * @param coordinate  next weight to try
+	 * @param improved    whether this sweep improved so far
+	 * @param evaluations evaluations so far
+	 * @throws IOException if the file can't be written
+	 */
+	private static void save(Properties state, String checkpoint,
+							 HuntWeights best, double bestMean,
+							 double[] steps, int sweep, int coordinate,
+							 boolean improved, int evaluations)
+			throws IOException
+	{
+		best.store(state, "weight.");
+		for (int i = 0; i < steps.length; ++i)
+		{
+			state.setProperty("step." + HuntWeights.NAMES[i],
+					String.valueOf(steps[i]));
+		}
+		state.setProperty("bestMean", String.valueOf(bestMean));
+		state.setProperty("sweep", String.valueOf(sweep));
+		state.setProperty("coordinate", String.valueOf(coordinate));
+		state.setProperty("improved", String.valueOf(improved));
+		state.setProperty("evaluations", String.valueOf(evaluations));
+
+		Path target = Paths.get(checkpoint).toAbsolutePath();
+		Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+		try (Writer writer = Files.newBufferedWriter(temp))
+		{
+			state.store(writer, "WeightTuner checkpoint. Rerun to resume.");
+		}
+		Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING,
+				StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * Value part of a --name=value option.
+	 */
+	private static String valueOf(String arg)
+	{
+		return arg.substring(arg.indexOf('=') + 1);
+	}
+}
@@ -0,0 +1,250 @@
+/*
+ * Author:
+ *      Cyrus Xi
+ * Purpose:
+ *      DensityKernel built on the incubating Vector API, processing whole
+ *      lanes of a row at once. Same prefix-sum algorithm as
+ *      ScalarDensityKernel, whose scratch arrays it shares.
+ * Vectorization:
+ *          Vertical placements vectorize naturally: the per-column prefix
+ *      counts, the free-placement test, the difference array updates and
+ *      the running sums all go along a row, one SIMD lane per column.
+ *      Horizontal placements vectorize the free-placement test and
+ *      difference updates across start positions; the per-row prefix and
+ *      running sums are inherently sequential and stay scalar. Neighbor sums
+ *      load the rows above and below and the row shifted left and right.
+ * Date:
+ *      10/19/26.
+ *
+ * This file lives outside src/battleship so the rest of the game builds
+ * without the incubator module. To build and run with it:
+ *      javac --add-modules jdk.incubator.vector -cp bin -d bin
+ *              src/vector/battleship/*.java
+ *      java --add-modules jdk.incubator.vector -cp bin battleship.<Main>
+ * DensityKernel.best() picks it up when both steps were done, and falls
+ * back to ScalarDensityKernel otherwise.
+ */
+
+package battleship;
+
+import jdk.incubator.vector.*;
+
+/**
+ * SIMD prefix-sum density kernel.
+ */
+public class VectorDensityKernel extends ScalarDensityKernel
+{
+	private static final VectorSpecies<Integer> SPECIES =
+			IntVector.SPECIES_PREFERRED;
+
+	/**
+	 * Returns the kernel's name.
+	 *
+	 * @return "vector" and the lane count
+	 */
+	@Override
+	public String getName()
+	{
+		return "vector-" + SPECIES.length();
+	}
+
+	/**
+	 * Sets each cell's placement counter. See DensityKernel.
+	 *
+	 * @param blocked  1 for blocked cells, 0 for free ones
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param lengths  lengths of extant ships
+	 * @param counters output, rows * cols
+	 */
+	@Override
+	public void computeCounters(int[] blocked, int rows, int cols,
+								int[] lengths, int[] counters)
+	{
+		ensureScratch(rows, cols);
+		IntVector zero = IntVector.zero(SPECIES);
+		IntVector one = IntVector.broadcast(SPECIES, 1);
+
+		// Horizontal placements, one row at a time.
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			for (int col = 0; col < cols; ++col)
+			{
+				rowPrefix[col + 1] = rowPrefix[col] + blocked[base + col];
+			}
+			java.util.Arrays.fill(rowDiff, 0, cols + 1, 0);
+			for (int length : lengths)
+			{
+				int starts = cols - length + 1;
+				int start = 0;
+				for (; start < SPECIES.loopBound(Math.max(starts, 0));
+					 start += SPECIES.length())
+				{
+					IntVector free = zero.blend(one, IntVector
+							.fromArray(SPECIES, rowPrefix, start + length)
+							.eq(IntVector.fromArray(SPECIES, rowPrefix,
+									start)));
+					IntVector.fromArray(SPECIES, rowDiff, start).add(free)
+							.intoArray(rowDiff, start);
+					IntVector.fromArray(SPECIES, rowDiff, start + length)
+							.sub(free).intoArray(rowDiff, start + length);
+				}
+				for (; start < starts; ++start)
+				{
+					if (rowPrefix[start + length] == rowPrefix[start])
+					{
+						rowDiff[start]++;
+						rowDiff[start + length]--;
+					}
+				}
+			}
+			int run = 0;
+			for (int col = 0; col < cols; ++col)
+			{
+				run += rowDiff[col];
+				counters[base + col] = run;
+			}
+		}
+
+		int bound = SPECIES.loopBound(cols);
+
+		// Vertical placements, a whole row of columns at a time.
+		java.util.Arrays.fill(colPrefix, 0, cols, 0);
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			int col = 0;
+			for (; col < bound; col += SPECIES.length())
+			{
+				IntVector.fromArray(SPECIES, colPrefix, base + col)
+						.add(IntVector.fromArray(SPECIES, blocked, base + col))
+						.intoArray(colPrefix, base + cols + col);
+			}
+			for (; col < cols; ++col)
+			{
+				colPrefix[base + cols + col] = colPrefix[base + col]
+						+ blocked[base + col];
+			}
+		}
+		java.util.Arrays.fill(colDiff, 0, (rows + 1) * cols, 0);
+		for (int length : lengths)
+		{
+			for (int start = 0; start + length <= rows; ++start)
+			{
+				int top = start * cols;
+				int bottom = (start + length) * cols;
+				int col = 0;
+				for (; col < bound; col += SPECIES.length())
+				{
+					IntVector free = zero.blend(one, IntVector
+							.fromArray(SPECIES, colPrefix, bottom + col)
+							.eq(IntVector.fromArray(SPECIES, colPrefix,
+									top + col)));
+					IntVector.fromArray(SPECIES, colDiff, top + col).add(free)
+							.intoArray(colDiff, top + col);
+					IntVector.fromArray(SPECIES, colDiff, bottom + col)
+							.sub(free).intoArray(colDiff, bottom + col);
+				}
+				for (; col < cols; ++col)
+				{
+					if (colPrefix[bottom + col] == colPrefix[top + col])
+					{
+						colDiff[top + col]++;
+						colDiff[bottom + col]--;
+					}
+				}
+			}
+		}
+		java.util.Arrays.fill(colRun, 0, cols, 0);
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			int col = 0;
+			for (; col < bound; col += SPECIES.length())
+			{
+				IntVector run = IntVector.fromArray(SPECIES, colRun, col)
+						.add(IntVector.fromArray(SPECIES, colDiff, base + col));
+				run.intoArray(colRun, col);
+				IntVector.fromArray(SPECIES, counters, base + col).add(run)
+						.intoArray(counters, base + col);
+			}
+			for (; col < cols; ++col)
+			{
+				colRun[col] += colDiff[base + col];
+				counters[base + col] += colRun[col];
+			}
+		}
+	}
+
+	/**
+	 * Sets each cell's neighbor sum. See DensityKernel. Interior columns are
+	 * vectorized; the first and last column and any tail are scalar.
+	 *
+	 * @param counters counters from computeCounters
+	 * @param rows     number of rows
+	 * @param cols     number of columns
+	 * @param sums     output, rows * cols
+	 */
+	@Override
+	public void computeNeighborSums(int[] counters, int rows, int cols,
+									int[] sums)
+	{
+		// Interior lanes need col - 1 >= 0 and col + lanes + 1 <= cols.
+		int last = cols - 1 - SPECIES.length();
+		for (int row = 0; row < rows; ++row)
+		{
+			int base = row * cols;
+			int col = 1;
+			for (; col <= last; col += SPECIES.length())
+			{
+				IntVector sum = IntVector.fromArray(SPECIES, counters,
+						base + col - 1).add(IntVector.fromArray(SPECIES,
+						counters, base + col + 1));
+				if (row != 0)
+				{
+					sum = sum.add(IntVector.fromArray(SPECIES, counters,
+							base - cols + col));
+				}
+				if (row != rows - 1)
+				{
+					sum = sum.add(IntVector.fromArray(SPECIES, counters,
+							base + cols + col));
+				}
+				sum.intoArray(sums, base + col);
+			}
+			scalarNeighborSum(counters, rows, cols, sums, row, 0);
+			for (; col < cols; ++col)
+			{
+				scalarNeighborSum(counters, rows, cols, sums, row, col);
+			}
+		}
+	}
+
+	/**
+	 * Neighbor sum of a single cell.
+	 */
+	private static void scalarNeighborSum(int[] counters, int rows, int cols,
+										  int[] sums, int row, int col)
+	{
+		int base = row * cols;
+		int sum = 0;
+		if (row != 0)
+		{
+			sum += counters[base - cols + col];
+		}
+		if (col != cols - 1)
+		{
+			sum += counters[base + col + 1];
+		}
+		if (row != rows - 1)
+		{
+			sum += counters[base + cols + col];
+		}
+		if (col != 0)
+		{
+			sum += counters[base + col - 1];
+		}
+		sums[base + col] = sum;
+	}
+}